@@ -0,0 +1,65 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Variación de stock a aplicar sobre un producto: positiva para ingresos, negativa para egresos.
+ */
+public class AjusteStock {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long idProducto;
+    private final int delta;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea el ajuste.
+     * @param idProducto ID del producto a ajustar
+     * @param delta Unidades a sumar (negativo para restar)
+     */
+    public AjusteStock(long idProducto, int delta) {
+        this.idProducto = idProducto;
+        this.delta = delta;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return ID del producto a ajustar
+     */
+    public long getIdProducto() {
+        return idProducto;
+    }
+
+    /**
+     * @return Unidades a sumar (negativo para restar)
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Representación en texto del ajuste
+     */
+    @Override
+    public String toString() {
+        return "AjusteStock[producto=" + idProducto + ", delta=" + (delta > 0 ? "+" : "") + delta + "]";
+    }
+}
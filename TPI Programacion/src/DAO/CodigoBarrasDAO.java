@@ -7,21 +7,68 @@ package DAO;
 @author Gaston Alberto Cejas
  */
 
-import config.DatabaseConnection;
+import config.GestorTransacciones;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
 import model.CodigoBarras;
 import model.EnumTipo;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementación de DAO para operaciones CRUD de códigos de barras.
  * Gestra inserción, actualización y consultas de códigos de barras.
+ * Los métodos que no reciben una conexión usan la de la transacción en curso del hilo
+ * ({@link GestorTransacciones}) si la hay, o una conexión propia si no.
  */
 public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
 
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Filas traídas por bloque en los recorridos por streaming si no se indica otro valor */
+    public static final int FETCH_SIZE_STREAMING = 1000;
+
+    /** Cantidad de filas por executeBatch si no se indica otro valor */
+    public static final int TAMANIO_LOTE = 500;
+
+    /** Máximo de IDs por cláusula IN en las búsquedas múltiples */
+    public static final int TAMANIO_BLOQUE_IN = 500;
+
+    /** Métricas de las operaciones CRUD, compartidas con el backend en memoria */
+    static final MetricaOperacion METRICA_INSERTAR = RegistroMetricas.operacion("dao.codigo.insertar");
+    static final MetricaOperacion METRICA_ACTUALIZAR = RegistroMetricas.operacion("dao.codigo.actualizar");
+    static final MetricaOperacion METRICA_ELIMINAR = RegistroMetricas.operacion("dao.codigo.eliminar");
+    static final MetricaOperacion METRICA_GET_BY_ID = RegistroMetricas.operacion("dao.codigo.getById");
+    static final MetricaOperacion METRICA_GET_ALL = RegistroMetricas.operacion("dao.codigo.getAll");
+
+    /** INSERT de código de barras, compartido por la inserción individual y por lotes */
+    private static final String SQL_INSERT =
+            "INSERT INTO codigo_barras (tipo, valor, fecha_asignacion, observaciones) VALUES (?, ?, ?, ?)";
+
+    /** SELECT de código de barras, sin cláusula WHERE */
+    private static final String SELECT_CODIGO =
+            "SELECT id, tipo, valor, fecha_asignacion, observaciones, eliminado, version FROM codigo_barras ";
+
+    // Posiciones de las columnas de SELECT_CODIGO, en el mismo orden
+    private static final int COL_ID = 1;
+    private static final int COL_TIPO = 2;
+    private static final int COL_VALOR = 3;
+    private static final int COL_FECHA = 4;
+    private static final int COL_OBSERVACIONES = 5;
+    private static final int COL_ELIMINADO = 6;
+    private static final int COL_VERSION = 7;
+
+    /** Tipos de código por nombre, compartida con el mapeo de productos */
+    static final TablaEnum<EnumTipo> TIPOS_CODIGO = new TablaEnum<>(EnumTipo.class, "tipo de código");
+
     // =========================================
     // MÉTODOS DE INSERCIÓN
     // =========================================
@@ -45,36 +92,96 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void insertar(CodigoBarras entidad, Connection conn) throws Exception {
-        String sql = "INSERT INTO codigo_barras (tipo, valor, fecha_asignacion, observaciones) VALUES (?, ?, ?, ?)";
+        long inicio = System.nanoTime();
+        try {
+            String sql = SQL_INSERT;
+            boolean usarConexionExterna = (conn != null);
+
+            if (!usarConexionExterna) {
+                conn = GestorTransacciones.getConnection();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                cargarParametrosInsert(stmt, entidad);
+                stmt.executeUpdate();
+
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        entidad.setId(rs.getLong(1));
+                    }
+                }
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
+            }
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
+            throw e;
+        } finally {
+            METRICA_INSERTAR.registrar(inicio);
+        }
+    }
+
+    /**
+     * Inserta varios códigos de barras por lotes usando conexión automática.
+     * 
+     * @param entidades Códigos de barras a insertar; reciben su ID generado
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public void insertarLote(List<CodigoBarras> entidades) throws Exception {
+        insertarLote(entidades, TAMANIO_LOTE, null);
+    }
+
+    /**
+     * Inserta varios códigos de barras con addBatch/executeBatch usando conexión existente o nueva.
+     * Envía un executeBatch cada {@code tamanioLote} filas y asigna a cada código
+     * el ID generado, en el mismo orden de la lista.
+     * Con conexión nueva, el lote completo se confirma o revierte como una unidad.
+     * 
+     * @param entidades Códigos de barras a insertar; reciben su ID generado
+     * @param tamanioLote Filas por executeBatch (mayor a 0)
+     * @param conn Conexión existente o null para nueva
+     * @throws IllegalArgumentException Si tamanioLote no es positivo
+     * @throws Exception Si ocurre error en la ejecución SQL
+     */
+    public void insertarLote(List<CodigoBarras> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        if (entidades == null || entidades.isEmpty()) {
+            return;
+        }
         boolean usarConexionExterna = (conn != null);
-        
+
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
+            conn.setAutoCommit(false);
         }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, entidad.getTipo().name());
-            stmt.setString(2, entidad.getValor());
-            stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
-            
-            String obsValue = entidad.getObservaciones();
-            if (obsValue != null && !obsValue.trim().isEmpty()) {
-                stmt.setString(4, obsValue.trim());
-            } else {
-                stmt.setNull(4, Types.VARCHAR);
-            }
-
-            stmt.executeUpdate();
 
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    entidad.setId(rs.getLong(1));
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<CodigoBarras> bloque = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+                for (CodigoBarras entidad : bloque) {
+                    cargarParametrosInsert(stmt, entidad);
+                    stmt.addBatch();
                 }
+                stmt.executeBatch();
+                DaoUtils.asignarIdsGenerados(stmt, bloque);
             }
-            
+
             if (!usarConexionExterna) {
                 conn.commit();
             }
+        } catch (Exception e) {
+            if (!usarConexionExterna) {
+                conn.rollback();
+            }
+            throw e;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -99,40 +206,59 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
     
     /**
      * Actualiza código de barras usando conexión existente o nueva.
+     * La fila solo se modifica si conserva la versión leída; al aplicarse,
+     * la entidad recibe la nueva versión.
      * 
      * @param entidad Código de barras a actualizar
      * @param conn Conexión existente o null para nueva
+     * @throws ConflictoVersionException Si la fila cambió o fue eliminada desde la lectura
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void actualizar(CodigoBarras entidad, Connection conn) throws Exception {
-        String sql = "UPDATE codigo_barras SET tipo = ?, valor = ?, fecha_asignacion = ?, observaciones = ? WHERE id = ?";
-        boolean usarConexionExterna = (conn != null);
-        
-        if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
-        }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, entidad.getTipo().name());
-            stmt.setString(2, entidad.getValor());
-            stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
-            
-            if (entidad.getObservaciones() != null && !entidad.getObservaciones().trim().isEmpty()) {
-                stmt.setString(4, entidad.getObservaciones());
-            } else {
-                stmt.setNull(4, Types.VARCHAR);
-            }
-            
-            stmt.setLong(5, entidad.getId());
-            stmt.executeUpdate();
-            
+        long inicio = System.nanoTime();
+        try {
+            String sql = "UPDATE codigo_barras SET tipo = ?, valor = ?, fecha_asignacion = ?, observaciones = ?, version = version + 1 " +
+                         "WHERE id = ? AND version = ? AND eliminado = false";
+            boolean usarConexionExterna = (conn != null);
+
             if (!usarConexionExterna) {
-                conn.commit();
+                conn = GestorTransacciones.getConnection();
             }
-        } finally {
-            if (!usarConexionExterna && conn != null) {
-                conn.close();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, entidad.getTipo().name());
+                stmt.setString(2, entidad.getValor());
+                stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
+
+                if (entidad.getObservaciones() != null && !entidad.getObservaciones().trim().isEmpty()) {
+                    stmt.setString(4, entidad.getObservaciones());
+                } else {
+                    stmt.setNull(4, Types.VARCHAR);
+                }
+
+                stmt.setLong(5, entidad.getId());
+                stmt.setLong(6, entidad.getVersion());
+                if (stmt.executeUpdate() == 0) {
+                    throw new ConflictoVersionException("codigo_barras", entidad.getId(), entidad.getVersion());
+                }
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+                long versionLeida = entidad.getVersion();
+                entidad.setVersion(versionLeida + 1);
+                // Si la transacción en curso se revierte, la fila conserva la versión leída
+                GestorTransacciones.siSeRevierte(() -> entidad.setVersion(versionLeida));
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
             }
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ACTUALIZAR.registrar(inicio);
         }
     }
 
@@ -159,24 +285,32 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void eliminar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE codigo_barras SET eliminado = true WHERE id = ? AND eliminado = false";
-        boolean usarConexionExterna = (conn != null);
-        
-        if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
-        }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            stmt.executeUpdate();
-            
+        long inicio = System.nanoTime();
+        try {
+            String sql = "UPDATE codigo_barras SET eliminado = true, version = version + 1 WHERE id = ? AND eliminado = false";
+            boolean usarConexionExterna = (conn != null);
+
             if (!usarConexionExterna) {
-                conn.commit();
+                conn = GestorTransacciones.getConnection();
             }
-        } finally {
-            if (!usarConexionExterna && conn != null) {
-                conn.close();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, id);
+                stmt.executeUpdate();
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
             }
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ELIMINAR.registrar(inicio);
         }
     }
     
@@ -198,11 +332,11 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void recuperar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE codigo_barras SET eliminado = false WHERE id = ? AND eliminado = true";
+        String sql = "UPDATE codigo_barras SET eliminado = false, version = version + 1 WHERE id = ? AND eliminado = true";
         boolean usarConexionExterna = (conn != null);
 
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
         }
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -232,15 +366,23 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public CodigoBarras getById(long id) throws Exception {
-        String sql = "SELECT * FROM codigo_barras WHERE id = ? AND eliminado = false";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return mapRow(rs);
+        long inicio = System.nanoTime();
+        try {
+            String sql = SELECT_CODIGO + "WHERE id = ? AND eliminado = false";
+            try (Connection conn = GestorTransacciones.getConnectionLectura();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) return mapRow(rs);
+                }
             }
+            return null;
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
         }
-        return null;
     }
 
     /**
@@ -251,14 +393,125 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public List<CodigoBarras> getAll() throws Exception {
-        List<CodigoBarras> lista = new ArrayList<>();
-        String sql = "SELECT * FROM codigo_barras WHERE eliminado = false";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) lista.add(mapRow(rs));
+        long inicio = System.nanoTime();
+        try {
+            List<CodigoBarras> lista = new ArrayList<>();
+            String sql = SELECT_CODIGO + "WHERE eliminado = false";
+            try (Connection conn = GestorTransacciones.getConnectionLectura();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) lista.add(mapRow(rs));
+            }
+            return lista;
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
+    }
+
+    /**
+     * Obtiene varios códigos de barras activos por ID usando conexión automática.
+     * 
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids) throws Exception {
+        return getByIds(ids, null);
+    }
+
+    /**
+     * Obtiene varios códigos de barras activos por ID usando conexión existente o nueva.
+     * Divide los IDs en bloques de {@link #TAMANIO_BLOQUE_IN} y ejecuta todas las consultas
+     * sobre la misma conexión: N búsquedas cuestan ceil(N / bloque) viajes a la base.
+     * 
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @param conn Conexión existente o null para nueva
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error en la consulta SQL
+     */
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids, Connection conn) throws Exception {
+        List<Long> unicos = DaoUtils.idsSinRepetir(ids);
+        Map<Long, CodigoBarras> resultado = DaoUtils.mapaConFaltantes(unicos);
+        if (unicos.isEmpty()) {
+            return resultado;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = GestorTransacciones.getConnectionLectura();
+        }
+        
+        try {
+            for (int desde = 0; desde < unicos.size(); desde += TAMANIO_BLOQUE_IN) {
+                List<Long> bloque = unicos.subList(desde, Math.min(unicos.size(), desde + TAMANIO_BLOQUE_IN));
+                String sql = SELECT_CODIGO + "WHERE eliminado = false AND id IN (" + DaoUtils.marcadores(bloque.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < bloque.size(); i++) {
+                        stmt.setLong(i + 1, bloque.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            CodigoBarras entidad = mapRow(rs);
+                            resultado.put(entidad.getId(), entidad);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene una página de códigos de barras activos usando paginación por clave (keyset).
+     * Filtra por ID en lugar de usar OFFSET, por lo que el costo no crece con la página.
+     * 
+     * @param despuesDeId Cursor: ID del último código de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de códigos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página con los códigos y el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Pagina<CodigoBarras> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
         }
-        return lista;
+        boolean desc = (orden == Orden.DESC);
+        boolean conCursor = (despuesDeId != Pagina.INICIO);
+        String sql = SELECT_CODIGO + "WHERE eliminado = false " +
+                     (conCursor ? (desc ? "AND id < ? " : "AND id > ? ") : "") +
+                     "ORDER BY id " + (desc ? "DESC " : "ASC ") +
+                     "LIMIT ?";
+        List<CodigoBarras> lista = new ArrayList<>(limite);
+        boolean hayMas = false;
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (conCursor) {
+                stmt.setLong(i++, despuesDeId);
+            }
+            stmt.setInt(i, limite + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (lista.size() == limite) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(mapRow(rs));
+                }
+            }
+        }
+        long cursor = lista.isEmpty() ? despuesDeId : lista.get(lista.size() - 1).getId();
+        return new Pagina<>(lista, cursor, hayMas);
     }
 
     /**
@@ -281,11 +534,11 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception Si ocurre error en la consulta SQL
      */
     public CodigoBarras getByValor(String valor, Connection conn) throws Exception {
-        String sql = "SELECT * FROM codigo_barras WHERE valor = ? AND eliminado = false";
+        String sql = SELECT_CODIGO + "WHERE valor = ? AND eliminado = false";
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnectionLectura();
         }
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -301,33 +554,95 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
         return null;
     }
 
+    // =========================================
+    // MÉTODOS DE RECORRIDO (STREAMING)
+    // =========================================
+
+    /**
+     * Recorre todos los códigos de barras activos con el tamaño de bloque por defecto.
+     * 
+     * @param consumidor Acción a ejecutar por cada fila mapeada
+     * @return Cantidad de filas procesadas
+     * @throws Exception Si ocurre error de base de datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<CodigoBarras> consumidor) throws Exception {
+        return forEachActivo(consumidor, FETCH_SIZE_STREAMING);
+    }
+
+    /**
+     * Recorre todos los códigos de barras activos sin materializarlos en una lista.
+     * Usa un ResultSet de solo avance y solo lectura que el driver trae en bloques
+     * de {@code fetchSize} filas, por lo que la memoria usada no depende del total.
+     * La conexión queda ocupada hasta terminar el recorrido: el consumidor no debe
+     * usar la misma conexión para otras consultas.
+     * 
+     * @param consumidor Acción a ejecutar por cada fila mapeada
+     * @param fetchSize Cantidad de filas que el driver trae por bloque (mayor a 0)
+     * @return Cantidad de filas procesadas
+     * @throws IllegalArgumentException Si fetchSize no es positivo
+     * @throws Exception Si ocurre error de base de datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<CodigoBarras> consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        String sql = SELECT_CODIGO + "WHERE eliminado = false";
+        long procesados = 0;
+        try (Connection conn = GestorTransacciones.getConnectionLectura()) {
+            conn.setReadOnly(true);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.accept(mapRow(rs));
+                        procesados++;
+                    }
+                }
+            }
+        }
+        return procesados;
+    }
+
     // =========================================
     // MÉTODOS AUXILIARES
     // =========================================
 
+    /**
+     * Carga los parámetros del INSERT de código de barras en el statement.
+     * 
+     * @param stmt Statement preparado con {@link #SQL_INSERT}
+     * @param entidad Código de barras cuyos datos se cargan
+     * @throws SQLException Si hay error al asignar parámetros
+     */
+    private void cargarParametrosInsert(PreparedStatement stmt, CodigoBarras entidad) throws SQLException {
+        stmt.setString(1, entidad.getTipo().name());
+        stmt.setString(2, entidad.getValor());
+        stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
+        
+        String obsValue = entidad.getObservaciones();
+        if (obsValue != null && !obsValue.trim().isEmpty()) {
+            stmt.setString(4, obsValue.trim());
+        } else {
+            stmt.setNull(4, Types.VARCHAR);
+        }
+    }
+
     /**
      * Mapea ResultSet a objeto CodigoBarras.
+     * Lee las columnas por posición y el tipo con una tabla precalculada.
      * 
-     * @param rs ResultSet posicionado en fila válida
+     * @param rs ResultSet de una consulta con {@link #SELECT_CODIGO}, posicionado en fila válida
      * @return Código de barras mapeado
      * @throws SQLException Si hay error al leer datos del ResultSet
      */
     private CodigoBarras mapRow(ResultSet rs) throws SQLException {
-        long id = rs.getLong("id");
-        boolean eliminado = rs.getBoolean("eliminado");
-
-        String tipoStr = rs.getString("tipo");
-        EnumTipo tipo = (tipoStr != null && !tipoStr.trim().isEmpty()) 
-                ? EnumTipo.valueOf(tipoStr.trim().toUpperCase())
-                : null;
-
-        String valor = rs.getString("valor");
-
-        java.sql.Date sqlDate = rs.getDate("fecha_asignacion");
-        LocalDate fecha = (sqlDate != null) ? sqlDate.toLocalDate() : null;
-
-        String observaciones = rs.getString("observaciones");
-
-        return new CodigoBarras(id, eliminado, tipo, valor, fecha, observaciones);
+        CodigoBarras codigo = new CodigoBarras(rs.getLong(COL_ID), rs.getBoolean(COL_ELIMINADO),
+                TIPOS_CODIGO.buscar(rs.getString(COL_TIPO)),
+                rs.getString(COL_VALOR),
+                rs.getObject(COL_FECHA, LocalDate.class),
+                rs.getString(COL_OBSERVACIONES));
+        codigo.setVersion(rs.getLong(COL_VERSION));
+        return codigo;
     }
-}
\ No newline at end of file
+}
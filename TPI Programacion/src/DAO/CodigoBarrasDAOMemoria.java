@@ -0,0 +1,380 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import config.GestorTransacciones;
+import model.CodigoBarras;
+
+import java.sql.Connection;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Implementación en memoria del DAO de códigos de barras, sin base de datos.
+ * Reproduce la semántica de {@link CodigoBarrasDAO}: eliminación lógica, recuperación,
+ * búsqueda por valor y valor único (también entre eliminados), con el mismo error de
+ * integridad (SQLState 23000) ante un valor repetido y control de versión en las actualizaciones.
+ *
+ * Las lecturas no toman bloqueos: los códigos se guardan como copias que nunca se modifican
+ * y cada escritura reemplaza la copia completa. Las escrituras se serializan para mantener
+ * coherente el índice por valor. Las conexiones recibidas se ignoran. Fuera de una
+ * transacción cada operación es atómica por sí sola; dentro de una transacción de
+ * {@link GestorTransacciones}, si se revierte, los códigos escritos vuelven a su estado
+ * anterior, como con {@link CodigoBarrasDAO}. A diferencia de la base, los cambios son
+ * visibles para otros hilos antes del commit.
+ */
+public class CodigoBarrasDAOMemoria extends CodigoBarrasDAO {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    /** Códigos por ID, ordenados para recorridos y paginación */
+    private final ConcurrentSkipListMap<Long, CodigoBarras> porId = new ConcurrentSkipListMap<>();
+
+    /** Índice único por valor, incluye eliminados como la restricción UNIQUE de la tabla */
+    private final ConcurrentHashMap<String, Long> idPorValor = new ConcurrentHashMap<>();
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    // =========================================
+    // MÉTODOS DE INSERCIÓN
+    // =========================================
+
+    @Override
+    public void insertar(CodigoBarras entidad) throws Exception {
+        insertar(entidad, null);
+    }
+
+    @Override
+    public synchronized void insertar(CodigoBarras entidad, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            verificarValorLibre(entidad.getValor(), 0);
+            guardarNuevo(entidad);
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
+            throw e;
+        } finally {
+            METRICA_INSERTAR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public void insertarLote(List<CodigoBarras> entidades) throws Exception {
+        insertarLote(entidades, TAMANIO_LOTE, null);
+    }
+
+    /**
+     * Inserta todos los códigos o ninguno: los valores se verifican antes de guardar.
+     */
+    @Override
+    public synchronized void insertarLote(List<CodigoBarras> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        Set<String> valores = new HashSet<>();
+        for (CodigoBarras entidad : entidades) {
+            verificarValorLibre(entidad.getValor(), 0);
+            if (!valores.add(entidad.getValor())) {
+                throw duplicado(entidad.getValor());
+            }
+        }
+        for (CodigoBarras entidad : entidades) {
+            guardarNuevo(entidad);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE ACTUALIZACIÓN
+    // =========================================
+
+    @Override
+    public void actualizar(CodigoBarras entidad) throws Exception {
+        actualizar(entidad, null);
+    }
+
+    @Override
+    public synchronized void actualizar(CodigoBarras entidad, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            CodigoBarras actual = porId.get(entidad.getId());
+            if (actual == null || actual.isEliminado() || actual.getVersion() != entidad.getVersion()) {
+                throw new ConflictoVersionException("codigo_barras", entidad.getId(), entidad.getVersion());
+            }
+            verificarValorLibre(entidad.getValor(), entidad.getId());
+            CodigoBarras nuevo = new CodigoBarras(actual.getId(), actual.isEliminado(), entidad.getTipo(),
+                    entidad.getValor(), entidad.getFechaAsignacion(), observacionesONull(entidad.getObservaciones()));
+            nuevo.setVersion(actual.getVersion() + 1);
+            if (!actual.getValor().equals(nuevo.getValor())) {
+                idPorValor.remove(actual.getValor());
+                idPorValor.put(nuevo.getValor(), nuevo.getId());
+            }
+            porId.put(nuevo.getId(), nuevo);
+            restaurarSiSeRevierte(actual, nuevo);
+            entidad.setVersion(nuevo.getVersion());
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ACTUALIZAR.registrar(inicio);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE ELIMINACIÓN Y RECUPERACIÓN
+    // =========================================
+
+    @Override
+    public void eliminar(long id) throws Exception {
+        eliminar(id, null);
+    }
+
+    @Override
+    public synchronized void eliminar(long id, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            cambiarEliminado(id, true);
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ELIMINAR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public void recuperar(long id) throws Exception {
+        recuperar(id, null);
+    }
+
+    @Override
+    public synchronized void recuperar(long id, Connection conn) throws Exception {
+        cambiarEliminado(id, false);
+    }
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    @Override
+    public CodigoBarras getById(long id) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return activoPorId(id);
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
+        }
+    }
+
+    @Override
+    public List<CodigoBarras> getAll() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            List<CodigoBarras> lista = new ArrayList<>();
+            for (CodigoBarras codigo : porId.values()) {
+                if (!codigo.isEliminado()) {
+                    lista.add(new CodigoBarras(codigo));
+                }
+            }
+            return lista;
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
+    }
+
+    @Override
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids) throws Exception {
+        return getByIds(ids, null);
+    }
+
+    @Override
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids, Connection conn) throws Exception {
+        List<Long> unicos = DaoUtils.idsSinRepetir(ids);
+        Map<Long, CodigoBarras> resultado = DaoUtils.mapaConFaltantes(unicos);
+        for (Long id : unicos) {
+            resultado.put(id, activoPorId(id));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Pagina<CodigoBarras> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        NavigableMap<Long, CodigoBarras> rango = (orden == Orden.DESC) ? porId.descendingMap() : porId;
+        if (despuesDeId != Pagina.INICIO) {
+            rango = rango.tailMap(despuesDeId, false);
+        }
+        List<CodigoBarras> lista = new ArrayList<>(limite);
+        boolean hayMas = false;
+        for (CodigoBarras codigo : rango.values()) {
+            if (codigo.isEliminado()) {
+                continue;
+            }
+            if (lista.size() == limite) {
+                hayMas = true;
+                break;
+            }
+            lista.add(new CodigoBarras(codigo));
+        }
+        long cursor = lista.isEmpty() ? despuesDeId : lista.get(lista.size() - 1).getId();
+        return new Pagina<>(lista, cursor, hayMas);
+    }
+
+    @Override
+    public CodigoBarras getByValor(String valor) throws Exception {
+        return getByValor(valor, null);
+    }
+
+    @Override
+    public CodigoBarras getByValor(String valor, Connection conn) throws Exception {
+        Long id = (valor != null) ? idPorValor.get(valor) : null;
+        return (id != null) ? copiaSiActivo(porId.get(id)) : null;
+    }
+
+    // =========================================
+    // MÉTODOS DE RECORRIDO
+    // =========================================
+
+    @Override
+    public long forEachActivo(Consumer<CodigoBarras> consumidor) throws Exception {
+        return forEachActivo(consumidor, FETCH_SIZE_STREAMING);
+    }
+
+    @Override
+    public long forEachActivo(Consumer<CodigoBarras> consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        long procesados = 0;
+        for (CodigoBarras codigo : porId.values()) {
+            if (!codigo.isEliminado()) {
+                consumidor.accept(new CodigoBarras(codigo));
+                procesados++;
+            }
+        }
+        return procesados;
+    }
+
+    // =========================================
+    // MÉTODOS AUXILIARES
+    // =========================================
+
+    /**
+     * Copia del código activo con ese ID, o null. Para lecturas internas que no
+     * deben contarse como llamadas a {@link #getById(long)}.
+     */
+    CodigoBarras activoPorId(long id) {
+        return copiaSiActivo(porId.get(id));
+    }
+
+    /**
+     * Guarda una copia del código con un ID nuevo y lo asigna a la entidad.
+     * Debe llamarse con el bloqueo tomado y el valor ya verificado.
+     */
+    private void guardarNuevo(CodigoBarras entidad) {
+        long id = secuencia.incrementAndGet();
+        CodigoBarras nuevo = new CodigoBarras(id, false, entidad.getTipo(), entidad.getValor(),
+                entidad.getFechaAsignacion(), observacionesONull(entidad.getObservaciones()));
+        idPorValor.put(nuevo.getValor(), id);
+        porId.put(id, nuevo);
+        restaurarSiSeRevierte(null, nuevo);
+        entidad.setId(id);
+    }
+
+    /**
+     * Cambia la marca de eliminación si el código existe y está en el estado opuesto.
+     * Debe llamarse con el bloqueo tomado.
+     */
+    private void cambiarEliminado(long id, boolean eliminado) {
+        CodigoBarras actual = porId.get(id);
+        if (actual != null && actual.isEliminado() != eliminado) {
+            CodigoBarras nuevo = new CodigoBarras(actual);
+            nuevo.setEliminado(eliminado);
+            nuevo.setVersion(actual.getVersion() + 1);
+            porId.put(id, nuevo);
+            restaurarSiSeRevierte(actual, nuevo);
+        }
+    }
+
+    /**
+     * Dentro de una transacción de {@link GestorTransacciones}, registra cómo volver al código
+     * anterior si la transacción se revierte. Debe llamarse con el bloqueo tomado.
+     *
+     * @param anterior Código reemplazado, o null si la escritura fue una inserción
+     * @param escrito Código guardado por la escritura
+     */
+    private void restaurarSiSeRevierte(CodigoBarras anterior, CodigoBarras escrito) {
+        GestorTransacciones.siSeRevierte(() -> restaurar(anterior, escrito));
+    }
+
+    /**
+     * Vuelve al código anterior si nadie lo escribió después; si otra transacción lo
+     * modificó, su escritura se conserva.
+     */
+    private synchronized void restaurar(CodigoBarras anterior, CodigoBarras escrito) {
+        long id = escrito.getId();
+        if (porId.get(id) != escrito) {
+            return;
+        }
+        idPorValor.remove(escrito.getValor(), id);
+        if (anterior == null) {
+            porId.remove(id);
+        } else {
+            porId.put(id, anterior);
+            idPorValor.put(anterior.getValor(), id);
+        }
+    }
+
+    /**
+     * Verifica la restricción UNIQUE de valor.
+     *
+     * @param valor Valor a guardar
+     * @param idPropio ID del código que se actualiza, o 0 al insertar
+     * @throws SQLIntegrityConstraintViolationException Si otro código ya tiene ese valor
+     */
+    private void verificarValorLibre(String valor, long idPropio) throws SQLIntegrityConstraintViolationException {
+        if (valor == null) {
+            throw new SQLIntegrityConstraintViolationException("Column 'valor' cannot be null", "23000");
+        }
+        Long existente = idPorValor.get(valor);
+        if (existente != null && existente != idPropio) {
+            throw duplicado(valor);
+        }
+    }
+
+    private static SQLIntegrityConstraintViolationException duplicado(String valor) {
+        return new SQLIntegrityConstraintViolationException("Duplicate entry '" + valor + "' for key 'valor'", "23000");
+    }
+
+    private static String observacionesONull(String observaciones) {
+        return (observaciones != null && !observaciones.trim().isEmpty()) ? observaciones : null;
+    }
+
+    private static CodigoBarras copiaSiActivo(CodigoBarras codigo) {
+        return (codigo != null && !codigo.isEliminado()) ? new CodigoBarras(codigo) : null;
+    }
+}
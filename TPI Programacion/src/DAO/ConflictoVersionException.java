@@ -0,0 +1,57 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Indica que una actualización no se aplicó porque la fila cambió (o fue eliminada)
+ * después de que la entidad fue leída. Quien la recibe debe volver a leer la entidad
+ * y repetir los cambios sobre la versión actual.
+ */
+public class ConflictoVersionException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String tabla;
+    private final long id;
+    private final long versionEsperada;
+
+    /**
+     * Crea la excepción con los datos de la fila en conflicto.
+     * @param tabla Tabla actualizada
+     * @param id ID de la fila
+     * @param versionEsperada Versión que tenía la entidad al leerse
+     */
+    public ConflictoVersionException(String tabla, long id, long versionEsperada) {
+        super("El registro " + id + " de " + tabla + " fue modificado o eliminado por otro usuario "
+                + "(versión leída: " + versionEsperada + "). Vuelva a cargarlo y repita los cambios.");
+        this.tabla = tabla;
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+    }
+
+    /**
+     * @return Tabla actualizada
+     */
+    public String getTabla() {
+        return tabla;
+    }
+
+    /**
+     * @return ID de la fila en conflicto
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return Versión que tenía la entidad al leerse
+     */
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+}
@@ -0,0 +1,29 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.CategoriaProducto;
+
+/**
+ * Recibe las columnas numéricas y de agrupación de cada producto activo durante
+ * {@link ProductoDAO#recorrerCatalogo(ConsumidorCatalogo, int)}, sin armar un {@code Producto}.
+ */
+@FunctionalInterface
+public interface ConsumidorCatalogo {
+
+    /**
+     * Procesa un producto activo.
+     * @param id ID del producto
+     * @param marca Marca, o null si no tiene
+     * @param categoria Categoría, o null si no tiene o es inválida
+     * @param precioCentavos Precio en centavos
+     * @param peso Peso del producto
+     * @param stock Cantidad en stock
+     */
+    void aceptar(long id, String marca, CategoriaProducto categoria, long precioCentavos, double peso, int stock);
+}
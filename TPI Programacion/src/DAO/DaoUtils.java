@@ -0,0 +1,107 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.Base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilidades JDBC compartidas por las implementaciones de DAO del paquete.
+ */
+final class DaoUtils {
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private DaoUtils() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    /**
+     * Asigna los IDs generados por un executeBatch a las entidades del lote, en orden.
+     * 
+     * @param stmt Statement preparado con RETURN_GENERATED_KEYS ya ejecutado
+     * @param entidades Entidades del lote, en el mismo orden en que se agregaron
+     * @throws SQLException Si el driver devuelve menos claves que filas insertadas
+     */
+    static void asignarIdsGenerados(Statement stmt, List<? extends Base> entidades) throws SQLException {
+        int i = 0;
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            while (rs.next() && i < entidades.size()) {
+                entidades.get(i++).setId(rs.getLong(1));
+            }
+        }
+        if (i != entidades.size()) {
+            throw new SQLException("El driver devolvió " + i + " claves generadas para " + entidades.size() + " filas insertadas.");
+        }
+    }
+
+    /**
+     * Prepara los IDs de una búsqueda múltiple: quita repetidos conservando el orden.
+     * 
+     * @param ids IDs pedidos
+     * @return IDs sin repetir, en el orden de la primera aparición
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     */
+    static List<Long> idsSinRepetir(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null.");
+        }
+        LinkedHashSet<Long> unicos = new LinkedHashSet<>(ids.size() * 2);
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("La colección de IDs no puede contener null.");
+            }
+            unicos.add(id);
+        }
+        return new ArrayList<>(unicos);
+    }
+
+    /**
+     * Crea el mapa de resultado de una búsqueda múltiple con todas las claves en null.
+     * Las entidades encontradas reemplazan su valor; las que quedan en null son faltantes.
+     * 
+     * @param <T> Tipo de entidad
+     * @param ids IDs sin repetir, en el orden en que se devolverán
+     * @return Mapa ordenado con una entrada por ID
+     */
+    static <T> Map<Long, T> mapaConFaltantes(List<Long> ids) {
+        Map<Long, T> resultado = new LinkedHashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            resultado.put(id, null);
+        }
+        return resultado;
+    }
+
+    /**
+     * Arma la lista de marcadores de una cláusula IN.
+     * 
+     * @param cantidad Cantidad de parámetros (mayor a 0)
+     * @return Texto como "?, ?, ?"
+     */
+    static String marcadores(int cantidad) {
+        StringBuilder sb = new StringBuilder(cantidad * 3);
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+}
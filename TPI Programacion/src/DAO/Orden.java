@@ -0,0 +1,16 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Sentido de ordenamiento por clave primaria para consultas paginadas.
+ */
+public enum Orden {
+    ASC,
+    DESC;
+}
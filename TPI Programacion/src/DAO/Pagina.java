@@ -0,0 +1,79 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por clave (keyset).
+ * Contiene los elementos de la página y el cursor para pedir la siguiente.
+ * 
+ * @param <T> Tipo de entidad contenida en la página
+ */
+public class Pagina<T> {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    /** Cursor que indica "desde el principio" */
+    public static final long INICIO = 0;
+
+    private final List<T> elementos;
+    private final long siguienteCursor;
+    private final boolean hayMas;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Construye una página de resultados.
+     * @param elementos Elementos de la página, en el orden solicitado
+     * @param siguienteCursor ID del último elemento, a usar como cursor de la siguiente página
+     * @param hayMas true si existen más elementos después de esta página
+     */
+    public Pagina(List<T> elementos, long siguienteCursor, boolean hayMas) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Elementos de la página (lista no modificable)
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @return Cursor para solicitar la página siguiente
+     */
+    public long getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * @return true si existen más elementos después de esta página
+     */
+    public boolean hayMas() {
+        return hayMas;
+    }
+
+    /**
+     * @return true si la página no tiene elementos
+     */
+    public boolean isEmpty() {
+        return elementos.isEmpty();
+    }
+}
@@ -7,23 +7,107 @@ package DAO;
 @author Gaston Alberto Cejas
  */
 
-import config.DatabaseConnection;
+import config.GestorTransacciones;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
 import model.Producto;
 import model.CategoriaProducto;
 import model.CodigoBarras;
-import model.EnumTipo;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * Implementación de DAO para operaciones CRUD de productos.
- * Incluye gestión de códigos de barras y soporte para transacciones.
+ * Incluye gestión de códigos de barras y soporte para transacciones. *
+ * Los métodos que no reciben una conexión usan la de la transacción en curso del hilo
+ * ({@link GestorTransacciones}) si la hay, o una conexión propia si no.
  */
 public class ProductoDAO implements GenericDAO<Producto> {
 
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Filas traídas por bloque en los recorridos por streaming si no se indica otro valor */
+    public static final int FETCH_SIZE_STREAMING = 1000;
+
+    /** Cantidad de filas por executeBatch si no se indica otro valor */
+    public static final int TAMANIO_LOTE = 500;
+
+    /** Máximo de IDs por cláusula IN en las búsquedas múltiples */
+    public static final int TAMANIO_BLOQUE_IN = 500;
+
+    /** Máximo de resultados que devuelve una búsqueda por texto */
+    public static final int LIMITE_BUSQUEDA_MAXIMO = 500;
+
+    /** Métricas de las operaciones CRUD, compartidas con el backend en memoria */
+    static final MetricaOperacion METRICA_INSERTAR = RegistroMetricas.operacion("dao.producto.insertar");
+    static final MetricaOperacion METRICA_ACTUALIZAR = RegistroMetricas.operacion("dao.producto.actualizar");
+    static final MetricaOperacion METRICA_ELIMINAR = RegistroMetricas.operacion("dao.producto.eliminar");
+    static final MetricaOperacion METRICA_GET_BY_ID = RegistroMetricas.operacion("dao.producto.getById");
+    static final MetricaOperacion METRICA_GET_ALL = RegistroMetricas.operacion("dao.producto.getAll");
+
+    /** Largo mínimo de palabra que indexa FULLTEXT (innodb_ft_min_token_size por defecto) */
+    private static final int LONGITUD_MINIMA_PALABRA = 3;
+
+    /** INSERT de producto, compartido por la inserción individual y por lotes */
+    private static final String SQL_INSERT =
+            "INSERT INTO producto (nombre, marca, categoria, precio, peso, stock, codigo_barras_id, nombre_normalizado) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** Ajuste de stock condicional: solo sobre productos activos y sin dejar el stock en negativo */
+    private static final String SQL_AJUSTAR_STOCK =
+            "UPDATE producto SET stock = stock + ?, version = version + 1 " +
+            "WHERE id = ? AND eliminado = false AND stock + ? >= 0";
+
+    /** SELECT de producto con su código de barras activo, sin cláusula WHERE */
+    private static final String SELECT_CON_CODIGO =
+            "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, p.version, " +
+            "p.codigo_barras_id, " +
+            "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
+            "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
+            "c.eliminado AS codigo_eliminado, c.version AS codigo_version " +
+            "FROM producto p " +
+            "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false ";
+
+    // Posiciones de las columnas de SELECT_CON_CODIGO: se leen por índice para no buscar
+    // cada columna por nombre en cada fila. Deben seguir el orden del SELECT.
+    private static final int COL_ID = 1;
+    private static final int COL_NOMBRE = 2;
+    private static final int COL_MARCA = 3;
+    private static final int COL_CATEGORIA = 4;
+    private static final int COL_PRECIO = 5;
+    private static final int COL_PESO = 6;
+    private static final int COL_STOCK = 7;
+    private static final int COL_ELIMINADO = 8;
+    private static final int COL_VERSION = 9;
+    private static final int COL_CODIGO_ID = 11;
+    private static final int COL_CODIGO_TIPO = 12;
+    private static final int COL_CODIGO_VALOR = 13;
+    private static final int COL_CODIGO_FECHA = 14;
+    private static final int COL_CODIGO_OBS = 15;
+    private static final int COL_CODIGO_ELIMINADO = 16;
+    private static final int COL_CODIGO_VERSION = 17;
+
+    /** SELECT de la proyección {@link ProductoResumen}, que recorre los índices de resumen */
+    private static final String SELECT_RESUMEN = "SELECT p.id, p.nombre, p.stock FROM producto p ";
+
+    private static final TablaEnum<CategoriaProducto> CATEGORIAS = new TablaEnum<>(CategoriaProducto.class, "categoría");
+
+    /** Si ft_nombre_normalizado usa el parser ngram; null hasta consultarlo en la primera búsqueda */
+    private static volatile Boolean textoCompletoConNgram;
+
     // =========================================
     // MÉTODOS DE INSERCIÓN
     // =========================================
@@ -47,41 +131,96 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void insertar(Producto entidad, Connection conn) throws Exception {
-        String sql = "INSERT INTO producto (nombre, marca, categoria, precio, peso, stock, codigo_barras_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long inicio = System.nanoTime();
+        try {
+            String sql = SQL_INSERT;
+            boolean usarConexionExterna = (conn != null);
+
+            if (!usarConexionExterna) {
+                conn = GestorTransacciones.getConnection();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                cargarParametrosInsert(stmt, entidad);
+                stmt.executeUpdate();
+
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        entidad.setId(rs.getLong(1));
+                    }
+                }
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
+            }
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
+            throw e;
+        } finally {
+            METRICA_INSERTAR.registrar(inicio);
+        }
+    }
+
+    /**
+     * Inserta varios productos por lotes usando conexión automática.
+     * 
+     * @param entidades Productos a insertar; reciben su ID generado
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public void insertarLote(List<Producto> entidades) throws Exception {
+        insertarLote(entidades, TAMANIO_LOTE, null);
+    }
+
+    /**
+     * Inserta varios productos con addBatch/executeBatch usando conexión existente o nueva.
+     * Envía un executeBatch cada {@code tamanioLote} filas y asigna a cada producto
+     * el ID generado, en el mismo orden de la lista.
+     * Con conexión nueva, el lote completo se confirma o revierte como una unidad.
+     * 
+     * @param entidades Productos a insertar; reciben su ID generado
+     * @param tamanioLote Filas por executeBatch (mayor a 0)
+     * @param conn Conexión existente o null para nueva
+     * @throws IllegalArgumentException Si tamanioLote no es positivo
+     * @throws Exception Si ocurre error en la ejecución SQL
+     */
+    public void insertarLote(List<Producto> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        if (entidades == null || entidades.isEmpty()) {
+            return;
+        }
         boolean usarConexionExterna = (conn != null);
-        
+
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
+            conn.setAutoCommit(false);
         }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, entidad.getNombre());
-            stmt.setString(2, entidad.getMarca());
-            
-            String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
-            stmt.setString(3, categoriaStr);
-            
-            stmt.setDouble(4, entidad.getPrecio());
-            stmt.setDouble(5, entidad.getPeso());
-            stmt.setInt(6, entidad.getStock());
-            
-            if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(7, entidad.getCodigoBarras().getId());
-            } else {
-                stmt.setNull(7, Types.BIGINT);
-            }
-            
-            stmt.executeUpdate();
-            
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    entidad.setId(rs.getLong(1));
+
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<Producto> bloque = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+                for (Producto entidad : bloque) {
+                    cargarParametrosInsert(stmt, entidad);
+                    stmt.addBatch();
                 }
+                stmt.executeBatch();
+                DaoUtils.asignarIdsGenerados(stmt, bloque);
             }
-            
+
             if (!usarConexionExterna) {
                 conn.commit();
             }
+        } catch (Exception e) {
+            if (!usarConexionExterna) {
+                conn.rollback();
+            }
+            throw e;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -106,77 +245,205 @@ public class ProductoDAO implements GenericDAO<Producto> {
     
     /**
      * Actualiza un producto usando conexión existente o nueva.
+     * La fila solo se modifica si conserva la versión leída; al aplicarse, la entidad recibe
+     * la nueva versión, que vuelve a la leída si la transacción en curso se revierte.
      * 
      * @param entidad Producto a actualizar
      * @param conn Conexión existente o null para nueva
+     * @throws ConflictoVersionException Si la fila cambió o fue eliminada desde la lectura
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void actualizar(Producto entidad, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET nombre = ?, marca = ?, categoria = ?, precio = ?, peso = ?, stock = ?, codigo_barras_id = ? WHERE id = ?";
+        long inicio = System.nanoTime();
+        try {
+            String sql = "UPDATE producto SET nombre = ?, marca = ?, categoria = ?, precio = ?, peso = ?, stock = ?, codigo_barras_id = ?, " +
+                         "nombre_normalizado = ?, version = version + 1 WHERE id = ? AND version = ? AND eliminado = false";
+            boolean usarConexionExterna = (conn != null);
+
+            if (!usarConexionExterna) {
+                conn = GestorTransacciones.getConnection();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, entidad.getNombre());
+                stmt.setString(2, entidad.getMarca());
+
+                String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
+                stmt.setString(3, categoriaStr);
+
+                stmt.setDouble(4, entidad.getPrecio());
+                stmt.setDouble(5, entidad.getPeso());
+                stmt.setInt(6, entidad.getStock());
+
+                if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
+                    stmt.setLong(7, entidad.getCodigoBarras().getId());
+                } else {
+                    stmt.setNull(7, Types.BIGINT);
+                }
+
+                stmt.setString(8, Producto.normalizarNombre(entidad.getNombre()));
+                stmt.setLong(9, entidad.getId());
+                stmt.setLong(10, entidad.getVersion());
+                if (stmt.executeUpdate() == 0) {
+                    throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+                }
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+                avanzarVersion(entidad);
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
+            }
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ACTUALIZAR.registrar(inicio);
+        }
+    }
+    
+    /**
+     * Asigna o actualiza código de barras a un producto.
+     * Igual que {@link #actualizar(Producto, Connection)}, exige que el producto esté activo
+     * y conserve la versión leída, y avanza la versión de la entidad.
+     * 
+     * @param entidad Producto con código de barras a asignar
+     * @param conn Conexión existente o null para nueva
+     * @throws ConflictoVersionException Si la fila cambió o fue eliminada desde la lectura
+     * @throws Exception Si ocurre error en la ejecución SQL
+     */
+    public void asignarCodigoDeBarras(Producto entidad, Connection conn) throws Exception {
+        String sql = "UPDATE producto SET codigo_barras_id = ?, version = version + 1 " +
+                     "WHERE id = ? AND version = ? AND eliminado = false";
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
         }
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, entidad.getNombre());
-            stmt.setString(2, entidad.getMarca());
-            
-            String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
-            stmt.setString(3, categoriaStr);
-            
-            stmt.setDouble(4, entidad.getPrecio());
-            stmt.setDouble(5, entidad.getPeso());
-            stmt.setInt(6, entidad.getStock());
-            
             if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(7, entidad.getCodigoBarras().getId());
+                stmt.setLong(1, entidad.getCodigoBarras().getId());
             } else {
-                stmt.setNull(7, Types.BIGINT);
+                stmt.setNull(1, Types.BIGINT);
             }
             
-            stmt.setLong(8, entidad.getId());
-            stmt.executeUpdate();
+            stmt.setLong(2, entidad.getId());
+            stmt.setLong(3, entidad.getVersion());
+            if (stmt.executeUpdate() == 0) {
+                throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+            }
             
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            avanzarVersion(entidad);
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
             }
         }
     }
-    
+
     /**
-     * Asigna o actualiza código de barras a un producto.
+     * Ajusta el stock de un producto usando conexión automática.
      * 
-     * @param entidad Producto con código de barras a asignar
+     * @param id ID del producto
+     * @param delta Unidades a sumar (negativo para restar)
+     * @return true si se aplicó; false si el producto no está activo o el stock quedaría negativo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public boolean ajustarStock(long id, int delta) throws Exception {
+        return ajustarStock(id, delta, null);
+    }
+
+    /**
+     * Ajusta el stock de un producto con un único UPDATE condicional, sin leer la fila antes.
+     * 
+     * @param id ID del producto
+     * @param delta Unidades a sumar (negativo para restar)
      * @param conn Conexión existente o null para nueva
+     * @return true si se aplicó; false si el producto no está activo o el stock quedaría negativo
      * @throws Exception Si ocurre error en la ejecución SQL
      */
-    public void asignarCodigoDeBarras(Producto entidad, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET codigo_barras_id = ? WHERE id = ?";
+    public boolean ajustarStock(long id, int delta, Connection conn) throws Exception {
         boolean usarConexionExterna = (conn != null);
-        
+
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
         }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(1, entidad.getCodigoBarras().getId());
-            } else {
-                stmt.setNull(1, Types.BIGINT);
+
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_AJUSTAR_STOCK)) {
+            stmt.setInt(1, delta);
+            stmt.setLong(2, id);
+            stmt.setInt(3, delta);
+            boolean aplicado = stmt.executeUpdate() > 0;
+
+            if (!usarConexionExterna) {
+                conn.commit();
             }
-            
-            stmt.setLong(2, entidad.getId());
-            stmt.executeUpdate();
-            
+            return aplicado;
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Aplica varios ajustes de stock con addBatch/executeBatch usando conexión existente o nueva.
+     * Cada ajuste se evalúa por separado y en orden: los que dejarían el stock en negativo
+     * no se aplican y no impiden aplicar los demás. Con conexión nueva, se confirman
+     * juntos los ajustes aplicados.
+     * 
+     * @param ajustes Ajustes a aplicar
+     * @param conn Conexión existente o null para nueva
+     * @return Para cada ajuste, en el mismo orden, si se aplicó
+     * @throws Exception Si ocurre error en la ejecución SQL
+     */
+    public boolean[] ajustarStockLote(List<AjusteStock> ajustes, Connection conn) throws Exception {
+        boolean[] aplicados = new boolean[ajustes.size()];
+        if (ajustes.isEmpty()) {
+            return aplicados;
+        }
+        boolean usarConexionExterna = (conn != null);
+
+        if (!usarConexionExterna) {
+            conn = GestorTransacciones.getConnection();
+            conn.setAutoCommit(false);
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_AJUSTAR_STOCK)) {
+            for (int desde = 0; desde < ajustes.size(); desde += TAMANIO_LOTE) {
+                int hasta = Math.min(desde + TAMANIO_LOTE, ajustes.size());
+                for (int i = desde; i < hasta; i++) {
+                    AjusteStock ajuste = ajustes.get(i);
+                    stmt.setInt(1, ajuste.getDelta());
+                    stmt.setLong(2, ajuste.getIdProducto());
+                    stmt.setInt(3, ajuste.getDelta());
+                    stmt.addBatch();
+                }
+                int[] filas = stmt.executeBatch();
+                for (int i = 0; i < filas.length; i++) {
+                    if (filas[i] == Statement.SUCCESS_NO_INFO) {
+                        throw new SQLException("El driver no informó las filas afectadas por el ajuste de stock.");
+                    }
+                    aplicados[desde + i] = filas[i] > 0;
+                }
+            }
+
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return aplicados;
+        } catch (Exception e) {
+            if (!usarConexionExterna) {
+                conn.rollback();
+            }
+            throw e;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -207,24 +474,32 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void eliminar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET eliminado = true WHERE id = ? AND eliminado = false";
-        boolean usarConexionExterna = (conn != null);
-        
-        if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
-        }
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            stmt.executeUpdate();
-            
+        long inicio = System.nanoTime();
+        try {
+            String sql = "UPDATE producto SET eliminado = true, version = version + 1 WHERE id = ? AND eliminado = false";
+            boolean usarConexionExterna = (conn != null);
+
             if (!usarConexionExterna) {
-                conn.commit();
+                conn = GestorTransacciones.getConnection();
             }
-        } finally {
-            if (!usarConexionExterna && conn != null) {
-                conn.close();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, id);
+                stmt.executeUpdate();
+
+                if (!usarConexionExterna) {
+                    conn.commit();
+                }
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
             }
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ELIMINAR.registrar(inicio);
         }
     }
     
@@ -246,11 +521,11 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * @throws Exception Si ocurre error en la ejecución SQL
      */
     public void recuperar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET eliminado = false WHERE id = ? AND eliminado = true";
+        String sql = "UPDATE producto SET eliminado = false, version = version + 1 WHERE id = ? AND eliminado = true";
         boolean usarConexionExterna = (conn != null);
 
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnection();
         }
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -280,24 +555,26 @@ public class ProductoDAO implements GenericDAO<Producto> {
      */
     @Override
     public Producto getById(long id) throws Exception {
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
-                     "WHERE p.id = ? AND p.eliminado = false";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowWithJoin(rs);
+        long inicio = System.nanoTime();
+        try {
+            String sql = SELECT_CON_CODIGO +
+                         "WHERE p.id = ? AND p.eliminado = false";
+            try (Connection conn = GestorTransacciones.getConnectionLectura();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapRowWithJoin(rs);
+                    }
                 }
             }
+            return null;
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
         }
-        return null;
     }
     
     /**
@@ -308,25 +585,296 @@ public class ProductoDAO implements GenericDAO<Producto> {
      */
     @Override
     public List<Producto> getAll() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            List<Producto> lista = new ArrayList<>();
+            String sql = SELECT_CON_CODIGO +
+                         "WHERE p.eliminado = false";
+            try (Connection conn = GestorTransacciones.getConnectionLectura();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapRowWithJoin(rs));
+                }
+            }
+            return lista;
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
+    }
+
+    /**
+     * Obtiene varios productos activos por ID usando conexión automática.
+     * 
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Map<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        return getByIds(ids, null);
+    }
+
+    /**
+     * Obtiene varios productos activos por ID usando conexión existente o nueva.
+     * Divide los IDs en bloques de {@link #TAMANIO_BLOQUE_IN} y ejecuta todas las consultas
+     * sobre la misma conexión: N búsquedas cuestan ceil(N / bloque) viajes a la base.
+     * 
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @param conn Conexión existente o null para nueva
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error en la consulta SQL
+     */
+    public Map<Long, Producto> getByIds(Collection<Long> ids, Connection conn) throws Exception {
+        List<Long> unicos = DaoUtils.idsSinRepetir(ids);
+        Map<Long, Producto> resultado = DaoUtils.mapaConFaltantes(unicos);
+        if (unicos.isEmpty()) {
+            return resultado;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = GestorTransacciones.getConnectionLectura();
+        }
+        
+        try {
+            for (int desde = 0; desde < unicos.size(); desde += TAMANIO_BLOQUE_IN) {
+                List<Long> bloque = unicos.subList(desde, Math.min(unicos.size(), desde + TAMANIO_BLOQUE_IN));
+                String sql = SELECT_CON_CODIGO +
+                     "WHERE p.eliminado = false AND p.id IN (" + DaoUtils.marcadores(bloque.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < bloque.size(); i++) {
+                        stmt.setLong(i + 1, bloque.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Producto entidad = mapRowWithJoin(rs);
+                            resultado.put(entidad.getId(), entidad);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene una página de productos activos usando paginación por clave (keyset).
+     * Filtra por ID en lugar de usar OFFSET, por lo que el costo no crece con la página.
+     * 
+     * @param despuesDeId Cursor: ID del último producto de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de productos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página con los productos y el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Pagina<Producto> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(SELECT_CON_CODIGO, this::mapRowWithJoin, Producto::getId, null, null, despuesDeId, limite, orden);
+    }
+
+    /**
+     * Obtiene todos los productos activos de una categoría.
+     * Usa el índice idx_categoria en lugar de filtrar el catálogo completo.
+     * 
+     * @param categoria Categoría a buscar
+     * @return Lista de productos activos de la categoría
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public List<Producto> getByCategoria(CategoriaProducto categoria) throws Exception {
         List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
-                     "WHERE p.eliminado = false";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                lista.add(mapRowWithJoin(rs));
+        String sql = SELECT_CON_CODIGO +
+                     "WHERE p.categoria = ? AND p.eliminado = false " +
+                     "ORDER BY p.id";
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, categoria.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapRowWithJoin(rs));
+                }
             }
         }
         return lista;
     }
 
+    /**
+     * Obtiene una página de productos activos de una categoría con paginación por clave.
+     * El índice idx_categoria incluye la clave primaria, por lo que la consulta recorre
+     * solo el rango de la categoría ya ordenado por ID.
+     * 
+     * @param categoria Categoría a buscar
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de productos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página con los productos de la categoría y el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Pagina<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(SELECT_CON_CODIGO, this::mapRowWithJoin, Producto::getId,
+                "p.categoria = ?", categoria.name(), despuesDeId, limite, orden);
+    }
+
+    /**
+     * Consulta una página de filas activas de producto con un filtro opcional de un parámetro.
+     * 
+     * @param select SELECT sin cláusula WHERE, con la tabla producto como alias p
+     * @param mapeo Conversión de cada fila
+     * @param idDe ID de un elemento mapeado, para el cursor
+     * @param condicion Condición SQL adicional con un único parámetro, o null
+     * @param parametro Valor del parámetro de la condición
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de productos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de elementos y cursor de la siguiente
+     * @throws Exception Si ocurre error de base de datos
+     */
+    private <T> Pagina<T> paginar(String select, MapeoFila<T> mapeo, ToLongFunction<T> idDe, String condicion,
+                                  String parametro, long despuesDeId, int limite, Orden orden) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        boolean desc = (orden == Orden.DESC);
+        boolean conCursor = (despuesDeId != Pagina.INICIO);
+        String sql = select +
+                     "WHERE p.eliminado = false " +
+                     (condicion != null ? "AND " + condicion + " " : "") +
+                     (conCursor ? (desc ? "AND p.id < ? " : "AND p.id > ? ") : "") +
+                     "ORDER BY p.id " + (desc ? "DESC " : "ASC ") +
+                     "LIMIT ?";
+        List<T> lista = new ArrayList<>(limite);
+        boolean hayMas = false;
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (condicion != null) {
+                stmt.setString(i++, parametro);
+            }
+            if (conCursor) {
+                stmt.setLong(i++, despuesDeId);
+            }
+            stmt.setInt(i, limite + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (lista.size() == limite) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(mapeo.mapear(rs));
+                }
+            }
+        }
+        long cursor = lista.isEmpty() ? despuesDeId : idDe.applyAsLong(lista.get(lista.size() - 1));
+        return new Pagina<>(lista, cursor, hayMas);
+    }
+
+    // =========================================
+    // PROYECCIONES
+    // =========================================
+
+    /**
+     * Verifica si existe un producto activo con ese ID sin leer sus datos.
+     * Dentro de una transacción usa su conexión.
+     * 
+     * @param id ID del producto
+     * @return true si existe y no está eliminado
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public boolean existsActivo(long id) throws Exception {
+        String sql = "SELECT 1 FROM producto WHERE id = ? AND eliminado = false";
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Cuenta los productos activos, en total o de una categoría.
+     * El conteo se resuelve recorriendo solo un índice (idx_resumen o idx_resumen_categoria).
+     * 
+     * @param categoria Categoría a contar, o null para todas
+     * @return Cantidad de productos activos
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public long countActivos(CategoriaProducto categoria) throws Exception {
+        String sql = "SELECT COUNT(*) FROM producto WHERE eliminado = false" +
+                     (categoria != null ? " AND categoria = ?" : "");
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (categoria != null) {
+                stmt.setString(1, categoria.name());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Obtiene ID, nombre y stock de un producto activo.
+     * 
+     * @param id ID del producto
+     * @return Resumen del producto, o null si no existe o está eliminado
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public ProductoResumen getResumenById(long id) throws Exception {
+        String sql = SELECT_RESUMEN + "WHERE p.id = ? AND p.eliminado = false";
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResumen(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Obtiene una página de resúmenes de productos activos con paginación por clave.
+     * La consulta recorre el índice idx_resumen (eliminado, id, nombre) y lee el stock de la
+     * fila solo para los elementos de la página.
+     * 
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de elementos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de resúmenes y cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Pagina<ProductoResumen> getPaginaResumen(long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(SELECT_RESUMEN, ProductoDAO::mapResumen, ProductoResumen::getId,
+                null, null, despuesDeId, limite, orden);
+    }
+
+    /**
+     * Obtiene una página de resúmenes de productos activos de una categoría.
+     * La consulta recorre el índice idx_resumen_categoria (categoria, eliminado, id, nombre).
+     * 
+     * @param categoria Categoría a buscar
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO}
+     * @param limite Cantidad máxima de elementos a devolver (mayor a 0)
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de resúmenes de la categoría y cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Pagina<ProductoResumen> getResumenPorCategoria(CategoriaProducto categoria, long despuesDeId, int limite,
+                                                          Orden orden) throws Exception {
+        return paginar(SELECT_RESUMEN, ProductoDAO::mapResumen, ProductoResumen::getId,
+                "p.categoria = ?", categoria.name(), despuesDeId, limite, orden);
+    }
+
     /**
      * Busca producto por nombre usando conexión automática.
      * 
@@ -347,18 +895,12 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * @throws Exception Si ocurre error en la consulta SQL
      */
     public Producto getByNombre(String nombre, Connection conn) throws Exception {
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
+        String sql = SELECT_CON_CODIGO +
                      "WHERE p.nombre = ? AND p.eliminado = false";
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
-            conn = DatabaseConnection.getConnection();
+            conn = GestorTransacciones.getConnectionLectura();
         }
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -376,62 +918,405 @@ public class ProductoDAO implements GenericDAO<Producto> {
         return null;
     }
 
+    // =========================================
+    // MÉTODOS DE AGREGACIÓN
+    // =========================================
+
+    /**
+     * Calcula los totales de inventario de los productos activos agrupados por categoría.
+     * La suma se resuelve en la base con GROUP BY: solo viaja una fila por categoría.
+     * Las categorías inválidas se suman a "sin categoría" (clave null).
+     * 
+     * @return Totales por categoría, ordenados por nombre con "sin categoría" primero
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Map<CategoriaProducto, TotalesInventario> getTotalesPorCategoria() throws Exception {
+        return agrupar("categoria", CATEGORIAS::buscar, TotalesInventario.ORDEN_CATEGORIA);
+    }
+
+    /**
+     * Calcula los totales de inventario de los productos activos agrupados por marca.
+     * Las marcas se distinguen exactamente, incluidas mayúsculas y acentos, igual que en
+     * el resto de las agregaciones de inventario.
+     * 
+     * @return Totales por marca, ordenados alfabéticamente con "sin marca" (null) primero
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public Map<String, TotalesInventario> getTotalesPorMarca() throws Exception {
+        return agrupar("marca", marca -> marca, TotalesInventario.ORDEN_MARCA);
+    }
+
+    /**
+     * Ejecuta la agregación de inventario agrupando por una columna.
+     * precio × stock es DECIMAL exacto en la base y se convierte a centavos sin redondeo.
+     * Se agrupa por los bytes del valor y no por la intercalación de la columna, que juntaría
+     * variantes en mayúsculas o con acentos; dentro de cada grupo MIN devuelve ese mismo valor.
+     * 
+     * @param columna Columna de agrupación (constante interna, nunca dato del usuario)
+     * @param clave Conversión del valor de la columna a la clave del mapa
+     * @param orden Orden de las claves
+     * @return Totales por clave
+     * @throws ArithmeticException Si el valor de un grupo excede el rango de long en centavos
+     * @throws Exception Si ocurre error de base de datos
+     */
+    private <K> Map<K, TotalesInventario> agrupar(String columna, Function<String, K> clave,
+                                                   Comparator<K> orden) throws Exception {
+        String sql = "SELECT MIN(" + columna + "), COUNT(*), COALESCE(SUM(stock), 0), " +
+                     "COALESCE(SUM(precio * stock), 0), COALESCE(SUM(peso * stock), 0) " +
+                     "FROM producto WHERE eliminado = false GROUP BY CAST(" + columna + " AS BINARY)";
+        Map<K, TotalesInventario> totales = new TreeMap<>(orden);
+        try (Connection conn = GestorTransacciones.getConnectionLectura();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                TotalesInventario grupo = new TotalesInventario(rs.getLong(2), rs.getLong(3),
+                        rs.getBigDecimal(4).movePointRight(2).longValueExact(), rs.getDouble(5));
+                totales.merge(clave.apply(rs.getString(1)), grupo, TotalesInventario::sumar);
+            }
+        }
+        return totales;
+    }
+
+    // =========================================
+    // MÉTODOS DE BÚSQUEDA POR TEXTO
+    // =========================================
+
+    /**
+     * Busca productos activos cuyo nombre comienza con el texto indicado.
+     * La comparación es sin acentos ni mayúsculas y recorre un rango de idx_nombre_normalizado.
+     * 
+     * @param prefijo Comienzo del nombre a buscar
+     * @param limite Cantidad máxima de resultados (entre 1 y {@link #LIMITE_BUSQUEDA_MAXIMO})
+     * @return Productos encontrados ordenados por nombre
+     * @throws IllegalArgumentException Si el límite está fuera de rango
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public List<Producto> buscarPorPrefijo(String prefijo, int limite) throws Exception {
+        validarLimiteBusqueda(limite);
+        String normalizado = Producto.normalizarNombre(prefijo);
+        List<Producto> lista = new ArrayList<>();
+        try (Connection conn = GestorTransacciones.getConnectionLectura()) {
+            agregarPorPrefijo(conn, normalizado, limite, new HashMap<>(), lista);
+        }
+        return lista;
+    }
+
+    /**
+     * Busca productos activos cuyo nombre contiene el texto indicado, sin acentos ni mayúsculas.
+     * Primero devuelve las coincidencias por prefijo (rango de índice) y completa con las que
+     * contienen el texto en otra posición. Si el índice FULLTEXT ft_nombre_normalizado usa el
+     * parser ngram (MySQL), que indexa fragmentos dentro de cualquier palabra, esas se resuelven
+     * con el índice. Con el parser estándar (MariaDB) el índice solo encuentra comienzos de
+     * palabra, así que, igual que con textos sin palabras indexables (menos de 3 letras), la
+     * búsqueda interna recorre el índice del nombre normalizado y se detiene al alcanzar el límite.
+     * 
+     * @param texto Texto a buscar dentro del nombre
+     * @param limite Cantidad máxima de resultados (entre 1 y {@link #LIMITE_BUSQUEDA_MAXIMO})
+     * @return Productos encontrados, primero los que comienzan con el texto
+     * @throws IllegalArgumentException Si el límite está fuera de rango
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public List<Producto> buscarPorNombre(String texto, int limite) throws Exception {
+        validarLimiteBusqueda(limite);
+        String normalizado = Producto.normalizarNombre(texto);
+        List<Producto> lista = new ArrayList<>();
+        Map<Long, Producto> vistos = new HashMap<>();
+
+        try (Connection conn = GestorTransacciones.getConnectionLectura()) {
+            agregarPorPrefijo(conn, normalizado, limite, vistos, lista);
+            if (lista.size() >= limite || normalizado.isEmpty()) {
+                return lista;
+            }
+
+            String expresion = usaNgram(conn) ? expresionTextoCompleto(normalizado) : "";
+            String sql = SELECT_CON_CODIGO +
+                         "WHERE " + (expresion.isEmpty() ? "" : "MATCH(p.nombre_normalizado) AGAINST (? IN BOOLEAN MODE) AND ") +
+                         "p.nombre_normalizado LIKE ? ESCAPE '!' AND p.eliminado = false " +
+                         "ORDER BY p.nombre_normalizado " +
+                         "LIMIT ?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                if (!expresion.isEmpty()) {
+                    stmt.setString(i++, expresion);
+                }
+                stmt.setString(i++, "%" + escaparLike(normalizado) + "%");
+                // Las coincidencias por prefijo vuelven a aparecer aquí y se descartan
+                stmt.setInt(i, limite + lista.size());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next() && lista.size() < limite) {
+                        Producto producto = mapRowWithJoin(rs);
+                        if (vistos.putIfAbsent(producto.getId(), producto) == null) {
+                            lista.add(producto);
+                        }
+                    }
+                }
+            }
+        }
+        return lista;
+    }
+
+    // =========================================
+    // MÉTODOS DE RECORRIDO (STREAMING)
+    // =========================================
+
+    /**
+     * Recorre todos los productos activos con el tamaño de bloque por defecto.
+     * 
+     * @param consumidor Acción a ejecutar por cada fila mapeada
+     * @return Cantidad de filas procesadas
+     * @throws Exception Si ocurre error de base de datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<Producto> consumidor) throws Exception {
+        return forEachActivo(consumidor, FETCH_SIZE_STREAMING);
+    }
+
+    /**
+     * Recorre todos los productos activos sin materializarlos en una lista.
+     * Usa un ResultSet de solo avance y solo lectura que el driver trae en bloques
+     * de {@code fetchSize} filas, por lo que la memoria usada no depende del total.
+     * La conexión queda ocupada hasta terminar el recorrido: el consumidor no debe
+     * usar la misma conexión para otras consultas.
+     * 
+     * @param consumidor Acción a ejecutar por cada fila mapeada
+     * @param fetchSize Cantidad de filas que el driver trae por bloque (mayor a 0)
+     * @return Cantidad de filas procesadas
+     * @throws IllegalArgumentException Si fetchSize no es positivo
+     * @throws Exception Si ocurre error de base de datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<Producto> consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        String sql = SELECT_CON_CODIGO +
+                     "WHERE p.eliminado = false";
+        long procesados = 0;
+        try (Connection conn = GestorTransacciones.getConnectionLectura()) {
+            conn.setReadOnly(true);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.accept(mapRowWithJoin(rs));
+                        procesados++;
+                    }
+                }
+            }
+        }
+        return procesados;
+    }
+
+    /**
+     * Recorre las columnas de catálogo de los productos activos en orden de ID, sin armar
+     * entidades ni unir el código de barras: por fila solo se crea el texto de la marca.
+     * Pensado para construir instantáneas columnares (ver {@code analitica.CatalogoColumnar}).
+     * 
+     * @param consumidor Receptor de cada fila
+     * @param fetchSize Cantidad de filas que el driver trae por bloque (mayor a 0)
+     * @return Cantidad de filas procesadas
+     * @throws IllegalArgumentException Si fetchSize no es positivo
+     * @throws Exception Si ocurre error de base de datos o el consumidor falla
+     */
+    public long recorrerCatalogo(ConsumidorCatalogo consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        String sql = "SELECT id, marca, categoria, precio, peso, stock FROM producto " +
+                     "WHERE eliminado = false ORDER BY id";
+        long procesados = 0;
+        try (Connection conn = GestorTransacciones.getConnectionLectura()) {
+            conn.setReadOnly(true);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        // precio es DECIMAL(10,2): el double redondeado recupera los centavos exactos
+                        consumidor.aceptar(rs.getLong(1), rs.getString(2), CATEGORIAS.buscar(rs.getString(3)),
+                                Math.round(rs.getDouble(4) * 100), rs.getDouble(5), rs.getInt(6));
+                        procesados++;
+                    }
+                }
+            }
+        }
+        return procesados;
+    }
+
     // =========================================
     // MÉTODOS AUXILIARES
     // =========================================
 
+    /**
+     * Pasa la entidad a la versión que acaba de escribirse. Si la transacción en curso se
+     * revierte, la fila conserva la versión leída y la entidad vuelve a ella.
+     * 
+     * @param entidad Producto actualizado
+     */
+    private static void avanzarVersion(Producto entidad) {
+        long versionLeida = entidad.getVersion();
+        entidad.setVersion(versionLeida + 1);
+        GestorTransacciones.siSeRevierte(() -> entidad.setVersion(versionLeida));
+    }
+
+    /**
+     * Carga los parámetros del INSERT de producto en el statement.
+     * 
+     * @param stmt Statement preparado con {@link #SQL_INSERT}
+     * @param entidad Producto cuyos datos se cargan
+     * @throws SQLException Si hay error al asignar parámetros
+     */
+    private void cargarParametrosInsert(PreparedStatement stmt, Producto entidad) throws SQLException {
+        stmt.setString(1, entidad.getNombre());
+        stmt.setString(2, entidad.getMarca());
+        
+        String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
+        stmt.setString(3, categoriaStr);
+        
+        stmt.setDouble(4, entidad.getPrecio());
+        stmt.setDouble(5, entidad.getPeso());
+        stmt.setInt(6, entidad.getStock());
+        
+        if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
+            stmt.setLong(7, entidad.getCodigoBarras().getId());
+        } else {
+            stmt.setNull(7, Types.BIGINT);
+        }
+        stmt.setString(8, Producto.normalizarNombre(entidad.getNombre()));
+    }
+
+    /**
+     * Agrega a la lista los productos cuyo nombre normalizado comienza con el texto.
+     * 
+     * @param conn Conexión abierta
+     * @param normalizado Prefijo ya normalizado
+     * @param limite Cantidad máxima de resultados
+     * @param vistos Productos ya agregados, indexados por ID
+     * @param lista Lista de resultados a completar
+     * @throws SQLException Si ocurre error en la consulta
+     */
+    private void agregarPorPrefijo(Connection conn, String normalizado, int limite,
+                                   Map<Long, Producto> vistos, List<Producto> lista) throws SQLException {
+        String sql = SELECT_CON_CODIGO +
+                     "WHERE p.nombre_normalizado LIKE ? ESCAPE '!' AND p.eliminado = false " +
+                     "ORDER BY p.nombre_normalizado " +
+                     "LIMIT ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, escaparLike(normalizado) + "%");
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Producto producto = mapRowWithJoin(rs);
+                    vistos.put(producto.getId(), producto);
+                    lista.add(producto);
+                }
+            }
+        }
+    }
+
+    /**
+     * Arma la expresión booleana FULLTEXT exigiendo cada palabra indexable como prefijo.
+     * Los signos se descartan porque son operadores en modo booleano.
+     * 
+     * @param normalizado Texto ya normalizado
+     * @return Expresión como "+pala* +otra*", o cadena vacía si no hay palabras indexables
+     */
+    private static String expresionTextoCompleto(String normalizado) {
+        StringBuilder sb = new StringBuilder();
+        for (String palabra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (palabra.length() >= LONGITUD_MINIMA_PALABRA) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append('+').append(palabra).append('*');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Indica si el índice FULLTEXT del nombre usa el parser ngram. Se consulta una sola vez:
+     * el índice se crea al inicializar la base y no cambia mientras la aplicación está abierta.
+     * 
+     * @param conn Conexión a la base de datos
+     * @return true si MATCH encuentra fragmentos dentro de las palabras
+     * @throws SQLException Si ocurre error en la consulta
+     */
+    private static boolean usaNgram(Connection conn) throws SQLException {
+        Boolean ngram = textoCompletoConNgram;
+        if (ngram == null) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SHOW CREATE TABLE producto")) {
+                ngram = rs.next() && rs.getString(2).contains("ngram");
+            }
+            textoCompletoConNgram = ngram;
+        }
+        return ngram;
+    }
+
+    /**
+     * Escapa los comodines de LIKE usando '!' como carácter de escape.
+     * 
+     * @param texto Texto literal
+     * @return Texto seguro para usar dentro de un patrón LIKE ... ESCAPE '!'
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Valida el límite de una búsqueda por texto.
+     * 
+     * @param limite Límite solicitado
+     * @throws IllegalArgumentException Si está fuera de 1..{@link #LIMITE_BUSQUEDA_MAXIMO}
+     */
+    private static void validarLimiteBusqueda(int limite) {
+        if (limite <= 0 || limite > LIMITE_BUSQUEDA_MAXIMO) {
+            throw new IllegalArgumentException("El límite de búsqueda debe estar entre 1 y " + LIMITE_BUSQUEDA_MAXIMO + ".");
+        }
+    }
+
     /**
      * Mapea ResultSet a objeto Producto con código de barras.
+     * Lee las columnas por posición y las categorías y tipos con tablas precalculadas:
+     * por fila solo se crean el producto, su código y sus valores.
      * 
-     * @param rs ResultSet posicionado en fila válida
+     * @param rs ResultSet de una consulta con {@link #SELECT_CON_CODIGO}, posicionado en fila válida
      * @return Producto mapeado con código de barras si existe
      * @throws SQLException Si hay error al leer datos del ResultSet
      */
     private Producto mapRowWithJoin(ResultSet rs) throws SQLException {
-        long id = rs.getLong("id");
-        String nombre = rs.getString("nombre");
-        String marca = rs.getString("marca");
-        double precio = rs.getDouble("precio");
-        double peso = rs.getDouble("peso");
-        int stock = rs.getInt("stock");
-        boolean eliminado = rs.getBoolean("eliminado");
-        
-        CategoriaProducto categoria = null;
-        String categoriaStr = rs.getString("categoria");
-        if (categoriaStr != null && !categoriaStr.trim().isEmpty()) {
-            try {
-                categoria = CategoriaProducto.valueOf(categoriaStr.trim().toUpperCase());
-            } catch (IllegalArgumentException e) {
-                System.err.println("Advertencia: Categoría inválida en BD: " + categoriaStr);
-            }
-        }
+        Producto producto = new Producto(rs.getString(COL_NOMBRE), rs.getString(COL_MARCA),
+                rs.getDouble(COL_PRECIO), rs.getDouble(COL_PESO), rs.getInt(COL_STOCK), rs.getLong(COL_ID));
+        producto.setCategoria(CATEGORIAS.buscar(rs.getString(COL_CATEGORIA)));
+        producto.setEliminado(rs.getBoolean(COL_ELIMINADO));
+        producto.setVersion(rs.getLong(COL_VERSION));
         
-        Producto producto = new Producto(nombre, marca, precio, peso, stock, id);
-        producto.setCategoria(categoria);
-        producto.setEliminado(eliminado);
-        
-        long codigoId = rs.getLong("codigo_id");
+        long codigoId = rs.getLong(COL_CODIGO_ID);
         if (!rs.wasNull() && codigoId > 0) {
-            String tipoStr = rs.getString("codigo_tipo");
-            EnumTipo tipo = null;
-            if (tipoStr != null && !tipoStr.trim().isEmpty()) {
-                try {
-                    tipo = EnumTipo.valueOf(tipoStr.trim().toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Advertencia: Tipo de código inválido en BD: " + tipoStr);
-                }
-            }
-            
-            String valor = rs.getString("codigo_valor");
-            java.sql.Date sqlDate = rs.getDate("codigo_fecha");
-            LocalDate fecha = (sqlDate != null) ? sqlDate.toLocalDate() : null;
-            String observaciones = rs.getString("codigo_obs");
-            boolean codigoEliminado = rs.getBoolean("codigo_eliminado");
-            
-            CodigoBarras codigo = new CodigoBarras(codigoId, codigoEliminado, tipo, valor, fecha, observaciones);
+            CodigoBarras codigo = new CodigoBarras(codigoId, rs.getBoolean(COL_CODIGO_ELIMINADO),
+                    CodigoBarrasDAO.TIPOS_CODIGO.buscar(rs.getString(COL_CODIGO_TIPO)),
+                    rs.getString(COL_CODIGO_VALOR),
+                    rs.getObject(COL_CODIGO_FECHA, LocalDate.class),
+                    rs.getString(COL_CODIGO_OBS));
+            codigo.setVersion(rs.getLong(COL_CODIGO_VERSION));
             producto.setCodigoBarras(codigo);
         }
         
         return producto;
     }
-}
\ No newline at end of file
+
+    /**
+     * Mapea una fila de {@link #SELECT_RESUMEN}.
+     */
+    private static ProductoResumen mapResumen(ResultSet rs) throws SQLException {
+        return new ProductoResumen(rs.getLong(1), rs.getString(2), rs.getInt(3));
+    }
+
+    /**
+     * Conversión de la fila actual de un ResultSet.
+     */
+    @FunctionalInterface
+    private interface MapeoFila<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,762 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import config.GestorTransacciones;
+import model.CategoriaProducto;
+import model.Producto;
+
+import java.sql.Connection;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Implementación en memoria del DAO de productos, sin base de datos.
+ * Reproduce la semántica de {@link ProductoDAO}: eliminación lógica, recuperación,
+ * búsqueda por nombre sin acentos ni mayúsculas, código de barras único por producto
+ * unión con el código activo (un código eliminado se ve como null) y control de versión
+ * en las actualizaciones.
+ *
+ * Mantiene índices secundarios por código, nombre normalizado y categoría. Igual que las
+ * tablas, los índices incluyen filas eliminadas y el filtro se aplica al leer. Las lecturas
+ * no toman bloqueos; las escrituras se serializan. Las conexiones recibidas se ignoran.
+ * Fuera de una transacción cada operación es atómica por sí sola; dentro de una transacción
+ * de {@link GestorTransacciones} cada escritura registra cómo deshacerse, y si la transacción
+ * se revierte las filas vuelven a su estado anterior, como con {@link ProductoDAO}. A
+ * diferencia de la base, los cambios son visibles para otros hilos antes del commit.
+ */
+public class ProductoDAOMemoria extends ProductoDAO {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    /** DAO de códigos usado para resolver el código activo de cada producto */
+    private final CodigoBarrasDAOMemoria codigos;
+
+    /** Filas por ID, ordenadas para recorridos y paginación */
+    private final ConcurrentSkipListMap<Long, Fila> porId = new ConcurrentSkipListMap<>();
+
+    /** Índice único por código de barras asignado */
+    private final ConcurrentHashMap<Long, Long> productoPorCodigo = new ConcurrentHashMap<>();
+
+    /** Índice por nombre normalizado, ordenado para búsquedas por prefijo */
+    private final ConcurrentSkipListMap<String, Set<Long>> idsPorNombre = new ConcurrentSkipListMap<>();
+
+    /** Índice por categoría, con IDs ordenados para paginar */
+    private final ConcurrentHashMap<CategoriaProducto, NavigableSet<Long>> idsPorCategoria = new ConcurrentHashMap<>();
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea el DAO asociado al almacén de códigos de barras en memoria.
+     * @param codigos DAO en memoria de códigos de barras
+     * @throws IllegalArgumentException Si codigos es null
+     */
+    public ProductoDAOMemoria(CodigoBarrasDAOMemoria codigos) {
+        if (codigos == null) {
+            throw new IllegalArgumentException("CodigoBarrasDAOMemoria no puede ser null");
+        }
+        this.codigos = codigos;
+    }
+
+    // =========================================
+    // MÉTODOS DE INSERCIÓN
+    // =========================================
+
+    @Override
+    public void insertar(Producto entidad) throws Exception {
+        insertar(entidad, null);
+    }
+
+    @Override
+    public synchronized void insertar(Producto entidad, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            verificarCodigoLibre(idCodigo(entidad), 0);
+            guardarNuevo(entidad);
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
+            throw e;
+        } finally {
+            METRICA_INSERTAR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public void insertarLote(List<Producto> entidades) throws Exception {
+        insertarLote(entidades, TAMANIO_LOTE, null);
+    }
+
+    /**
+     * Inserta todos los productos o ninguno: los códigos se verifican antes de guardar.
+     */
+    @Override
+    public synchronized void insertarLote(List<Producto> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        Set<Long> codigosLote = new HashSet<>();
+        for (Producto entidad : entidades) {
+            long idCodigo = idCodigo(entidad);
+            verificarCodigoLibre(idCodigo, 0);
+            if (idCodigo > 0 && !codigosLote.add(idCodigo)) {
+                throw duplicado(idCodigo);
+            }
+        }
+        for (Producto entidad : entidades) {
+            guardarNuevo(entidad);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE ACTUALIZACIÓN
+    // =========================================
+
+    @Override
+    public void actualizar(Producto entidad) throws Exception {
+        actualizar(entidad, null);
+    }
+
+    @Override
+    public synchronized void actualizar(Producto entidad, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            Fila actual = porId.get(entidad.getId());
+            if (actual == null || actual.datos.isEliminado() || actual.datos.getVersion() != entidad.getVersion()) {
+                throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+            }
+            long idCodigo = idCodigo(entidad);
+            verificarCodigoLibre(idCodigo, entidad.getId());
+            Producto datos = new Producto(entidad);
+            datos.setVersion(entidad.getVersion() + 1);
+            reemplazar(actual, new Fila(datos, idCodigo));
+            entidad.setVersion(datos.getVersion());
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ACTUALIZAR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public synchronized void asignarCodigoDeBarras(Producto entidad, Connection conn) throws Exception {
+        Fila actual = porId.get(entidad.getId());
+        if (actual == null || actual.datos.isEliminado() || actual.datos.getVersion() != entidad.getVersion()) {
+            throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+        }
+        long idCodigo = idCodigo(entidad);
+        verificarCodigoLibre(idCodigo, entidad.getId());
+        Producto datos = new Producto(actual.datos);
+        datos.setVersion(entidad.getVersion() + 1);
+        reemplazar(actual, new Fila(datos, idCodigo));
+        entidad.setVersion(datos.getVersion());
+    }
+
+    @Override
+    public boolean ajustarStock(long id, int delta) throws Exception {
+        return ajustarStock(id, delta, null);
+    }
+
+    @Override
+    public synchronized boolean ajustarStock(long id, int delta, Connection conn) throws Exception {
+        Fila actual = porId.get(id);
+        if (actual == null || actual.datos.isEliminado() || (long) actual.datos.getStock() + delta < 0) {
+            return false;
+        }
+        Fila escrita = sumarStock(actual, delta);
+        GestorTransacciones.siSeRevierte(() -> deshacerAjuste(actual, escrita, delta));
+        return true;
+    }
+
+    /**
+     * Aplica un lote de ajustes. Dentro de una transacción que se revierte, incluso por un
+     * ajuste rechazado del mismo lote, los ajustes aplicados se deshacen.
+     */
+    @Override
+    public synchronized boolean[] ajustarStockLote(List<AjusteStock> ajustes, Connection conn) throws Exception {
+        boolean[] aplicados = new boolean[ajustes.size()];
+        for (int i = 0; i < aplicados.length; i++) {
+            AjusteStock ajuste = ajustes.get(i);
+            aplicados[i] = ajustarStock(ajuste.getIdProducto(), ajuste.getDelta(), conn);
+        }
+        return aplicados;
+    }
+
+    // =========================================
+    // MÉTODOS DE ELIMINACIÓN Y RECUPERACIÓN
+    // =========================================
+
+    @Override
+    public void eliminar(long id) throws Exception {
+        eliminar(id, null);
+    }
+
+    @Override
+    public synchronized void eliminar(long id, Connection conn) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            cambiarEliminado(id, true);
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
+            throw e;
+        } finally {
+            METRICA_ELIMINAR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public void recuperar(long id) throws Exception {
+        recuperar(id, null);
+    }
+
+    @Override
+    public synchronized void recuperar(long id, Connection conn) throws Exception {
+        cambiarEliminado(id, false);
+    }
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    @Override
+    public Producto getById(long id) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return activoPorId(id);
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
+        }
+    }
+
+    @Override
+    public List<Producto> getAll() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            List<Producto> lista = new ArrayList<>();
+            for (Fila fila : porId.values()) {
+                if (!fila.datos.isEliminado()) {
+                    lista.add(aProducto(fila));
+                }
+            }
+            return lista;
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
+    }
+
+    @Override
+    public Map<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        return getByIds(ids, null);
+    }
+
+    @Override
+    public Map<Long, Producto> getByIds(Collection<Long> ids, Connection conn) throws Exception {
+        List<Long> unicos = DaoUtils.idsSinRepetir(ids);
+        Map<Long, Producto> resultado = DaoUtils.mapaConFaltantes(unicos);
+        for (Long id : unicos) {
+            resultado.put(id, activoPorId(id));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Pagina<Producto> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(porId.navigableKeySet(), despuesDeId, limite, orden, this::aProducto);
+    }
+
+    @Override
+    public List<Producto> getByCategoria(CategoriaProducto categoria) throws Exception {
+        List<Producto> lista = new ArrayList<>();
+        NavigableSet<Long> ids = idsPorCategoria.get(categoria);
+        if (ids != null) {
+            for (Long id : ids) {
+                Producto producto = activoPorId(id);
+                if (producto != null) {
+                    lista.add(producto);
+                }
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public Pagina<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(idsDeCategoria(categoria), despuesDeId, limite, orden, this::aProducto);
+    }
+
+    @Override
+    public Producto getByNombre(String nombre) throws Exception {
+        return getByNombre(nombre, null);
+    }
+
+    /**
+     * Compara sin acentos ni mayúsculas, como la intercalación utf8mb4_unicode_ci de la tabla.
+     */
+    @Override
+    public Producto getByNombre(String nombre, Connection conn) throws Exception {
+        Set<Long> ids = idsPorNombre.get(Producto.normalizarNombre(nombre));
+        if (ids != null) {
+            for (Long id : ids) {
+                Producto producto = activoPorId(id);
+                if (producto != null) {
+                    return producto;
+                }
+            }
+        }
+        return null;
+    }
+
+    // =========================================
+    // PROYECCIONES
+    // =========================================
+
+    @Override
+    public boolean existsActivo(long id) throws Exception {
+        Fila fila = porId.get(id);
+        return fila != null && !fila.datos.isEliminado();
+    }
+
+    @Override
+    public long countActivos(CategoriaProducto categoria) throws Exception {
+        Collection<Long> ids = (categoria != null) ? idsDeCategoria(categoria) : porId.keySet();
+        long activos = 0;
+        for (Long id : ids) {
+            if (existsActivo(id)) {
+                activos++;
+            }
+        }
+        return activos;
+    }
+
+    @Override
+    public ProductoResumen getResumenById(long id) throws Exception {
+        Fila fila = porId.get(id);
+        return (fila != null && !fila.datos.isEliminado()) ? aResumen(fila) : null;
+    }
+
+    @Override
+    public Pagina<ProductoResumen> getPaginaResumen(long despuesDeId, int limite, Orden orden) throws Exception {
+        return paginar(porId.navigableKeySet(), despuesDeId, limite, orden, ProductoDAOMemoria::aResumen);
+    }
+
+    @Override
+    public Pagina<ProductoResumen> getResumenPorCategoria(CategoriaProducto categoria, long despuesDeId, int limite,
+                                                          Orden orden) throws Exception {
+        return paginar(idsDeCategoria(categoria), despuesDeId, limite, orden, ProductoDAOMemoria::aResumen);
+    }
+
+    // =========================================
+    // MÉTODOS DE AGREGACIÓN
+    // =========================================
+
+    @Override
+    public Map<CategoriaProducto, TotalesInventario> getTotalesPorCategoria() throws Exception {
+        Map<CategoriaProducto, TotalesInventario> totales = new TreeMap<>(TotalesInventario.ORDEN_CATEGORIA);
+        for (Fila fila : porId.values()) {
+            if (!fila.datos.isEliminado()) {
+                totales.merge(fila.datos.getCategoria(), totalesDe(fila.datos), TotalesInventario::sumar);
+            }
+        }
+        return totales;
+    }
+
+    @Override
+    public Map<String, TotalesInventario> getTotalesPorMarca() throws Exception {
+        Map<String, TotalesInventario> totales = new TreeMap<>(TotalesInventario.ORDEN_MARCA);
+        for (Fila fila : porId.values()) {
+            if (!fila.datos.isEliminado()) {
+                totales.merge(fila.datos.getMarca(), totalesDe(fila.datos), TotalesInventario::sumar);
+            }
+        }
+        return totales;
+    }
+
+    // =========================================
+    // MÉTODOS DE BÚSQUEDA POR TEXTO
+    // =========================================
+
+    @Override
+    public List<Producto> buscarPorPrefijo(String prefijo, int limite) throws Exception {
+        validarLimite(limite);
+        List<Producto> lista = new ArrayList<>();
+        agregarPorPrefijo(Producto.normalizarNombre(prefijo), limite, lista);
+        return lista;
+    }
+
+    /**
+     * A diferencia del índice FULLTEXT, encuentra el texto en cualquier posición de las palabras.
+     */
+    @Override
+    public List<Producto> buscarPorNombre(String texto, int limite) throws Exception {
+        validarLimite(limite);
+        String normalizado = Producto.normalizarNombre(texto);
+        List<Producto> lista = new ArrayList<>();
+        agregarPorPrefijo(normalizado, limite, lista);
+        if (normalizado.isEmpty()) {
+            return lista;
+        }
+        for (Map.Entry<String, Set<Long>> entrada : idsPorNombre.entrySet()) {
+            if (lista.size() >= limite) {
+                break;
+            }
+            String nombre = entrada.getKey();
+            if (!nombre.startsWith(normalizado) && nombre.contains(normalizado)) {
+                agregarActivos(entrada.getValue(), limite, lista);
+            }
+        }
+        return lista;
+    }
+
+    // =========================================
+    // MÉTODOS DE RECORRIDO
+    // =========================================
+
+    @Override
+    public long forEachActivo(Consumer<Producto> consumidor) throws Exception {
+        return forEachActivo(consumidor, FETCH_SIZE_STREAMING);
+    }
+
+    @Override
+    public long forEachActivo(Consumer<Producto> consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        long procesados = 0;
+        for (Fila fila : porId.values()) {
+            if (!fila.datos.isEliminado()) {
+                consumidor.accept(aProducto(fila));
+                procesados++;
+            }
+        }
+        return procesados;
+    }
+
+    @Override
+    public long recorrerCatalogo(ConsumidorCatalogo consumidor, int fetchSize) throws Exception {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch size debe ser mayor a 0.");
+        }
+        long procesados = 0;
+        for (Fila fila : porId.values()) {
+            Producto datos = fila.datos;
+            if (!datos.isEliminado()) {
+                consumidor.aceptar(datos.getId(), datos.getMarca(), datos.getCategoria(),
+                        Math.round(datos.getPrecio() * 100), datos.getPeso(), datos.getStock());
+                procesados++;
+            }
+        }
+        return procesados;
+    }
+
+    // =========================================
+    // MÉTODOS AUXILIARES
+    // =========================================
+
+    /**
+     * Producto activo con ese ID, o null. Para lecturas internas que no
+     * deben contarse como llamadas a {@link #getById(long)}.
+     */
+    private Producto activoPorId(long id) throws Exception {
+        Fila fila = porId.get(id);
+        return (fila != null && !fila.datos.isEliminado()) ? aProducto(fila) : null;
+    }
+
+    /**
+     * Arma el producto a devolver: copia de los datos más el código activo, si lo hay.
+     */
+    private Producto aProducto(Fila fila) throws Exception {
+        Producto producto = new Producto(fila.datos);
+        producto.setCodigoBarras(fila.idCodigo > 0 ? codigos.activoPorId(fila.idCodigo) : null);
+        return producto;
+    }
+
+    private static ProductoResumen aResumen(Fila fila) {
+        return new ProductoResumen(fila.datos.getId(), fila.datos.getNombre(), fila.datos.getStock());
+    }
+
+    private NavigableSet<Long> idsDeCategoria(CategoriaProducto categoria) {
+        NavigableSet<Long> ids = idsPorCategoria.get(categoria);
+        return (ids != null) ? ids : new ConcurrentSkipListSet<>();
+    }
+
+    /**
+     * Recorre IDs ordenados con paginación por clave, salteando eliminados.
+     */
+    private <T> Pagina<T> paginar(NavigableSet<Long> ids, long despuesDeId, int limite, Orden orden,
+                                  Conversion<T> conversion) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        NavigableSet<Long> rango = (orden == Orden.DESC) ? ids.descendingSet() : ids;
+        if (despuesDeId != Pagina.INICIO) {
+            rango = rango.tailSet(despuesDeId, false);
+        }
+        List<T> lista = new ArrayList<>(limite);
+        boolean hayMas = false;
+        long cursor = despuesDeId;
+        for (Long id : rango) {
+            Fila fila = porId.get(id);
+            if (fila == null || fila.datos.isEliminado()) {
+                continue;
+            }
+            if (lista.size() == limite) {
+                hayMas = true;
+                break;
+            }
+            lista.add(conversion.convertir(fila));
+            cursor = id;
+        }
+        return new Pagina<>(lista, cursor, hayMas);
+    }
+
+    private void agregarPorPrefijo(String normalizado, int limite, List<Producto> lista) throws Exception {
+        Map<String, Set<Long>> rango = idsPorNombre.subMap(normalizado, true, normalizado + Character.MAX_VALUE, false);
+        for (Set<Long> ids : rango.values()) {
+            if (lista.size() >= limite) {
+                break;
+            }
+            agregarActivos(ids, limite, lista);
+        }
+    }
+
+    private void agregarActivos(Set<Long> ids, int limite, List<Producto> lista) throws Exception {
+        for (Long id : ids) {
+            if (lista.size() >= limite) {
+                return;
+            }
+            Producto producto = activoPorId(id);
+            if (producto != null) {
+                lista.add(producto);
+            }
+        }
+    }
+
+    /**
+     * Guarda una copia del producto con un ID nuevo y lo asigna a la entidad.
+     * Debe llamarse con el bloqueo tomado y el código ya verificado.
+     */
+    private void guardarNuevo(Producto entidad) {
+        long id = secuencia.incrementAndGet();
+        Producto datos = new Producto(entidad);
+        datos.setId(id);
+        datos.setEliminado(false);
+        datos.setVersion(0);
+        Fila fila = new Fila(datos, idCodigo(entidad));
+        porId.put(id, fila);
+        indexar(fila);
+        restaurarSiSeRevierte(null, fila);
+        entidad.setId(id);
+    }
+
+    /**
+     * Guarda la fila con el stock ajustado y la versión siguiente.
+     * Debe llamarse con el bloqueo tomado.
+     *
+     * @return Fila guardada
+     */
+    private Fila sumarStock(Fila actual, int delta) {
+        Producto datos = new Producto(actual.datos);
+        datos.setStock(Math.addExact(datos.getStock(), delta));
+        datos.setVersion(datos.getVersion() + 1);
+        Fila nueva = new Fila(datos, actual.idCodigo);
+        porId.put(datos.getId(), nueva);
+        return nueva;
+    }
+
+    /**
+     * Reemplaza una fila actualizando los índices que cambian.
+     * Debe llamarse con el bloqueo tomado.
+     */
+    private void reemplazar(Fila actual, Fila nueva) {
+        desindexar(actual);
+        porId.put(nueva.datos.getId(), nueva);
+        indexar(nueva);
+        restaurarSiSeRevierte(actual, nueva);
+    }
+
+    private void cambiarEliminado(long id, boolean eliminado) {
+        Fila actual = porId.get(id);
+        if (actual != null && actual.datos.isEliminado() != eliminado) {
+            Producto datos = new Producto(actual.datos);
+            datos.setEliminado(eliminado);
+            datos.setVersion(datos.getVersion() + 1);
+            Fila nueva = new Fila(datos, actual.idCodigo);
+            porId.put(id, nueva);
+            restaurarSiSeRevierte(actual, nueva);
+        }
+    }
+
+    // =========================================
+    // REVERSIÓN DE TRANSACCIONES
+    // =========================================
+
+    /**
+     * Dentro de una transacción de {@link GestorTransacciones}, registra cómo volver a la fila
+     * anterior si la transacción se revierte. Debe llamarse con el bloqueo tomado.
+     *
+     * @param anterior Fila reemplazada, o null si la escritura fue una inserción
+     * @param escrita Fila guardada por la escritura
+     */
+    private void restaurarSiSeRevierte(Fila anterior, Fila escrita) {
+        GestorTransacciones.siSeRevierte(() -> restaurar(anterior, escrita));
+    }
+
+    /**
+     * Vuelve a la fila anterior si nadie escribió el producto después. Si otra transacción lo
+     * modificó (en memoria no hay bloqueos de fila que lo impidan), su escritura se conserva.
+     */
+    private synchronized void restaurar(Fila anterior, Fila escrita) {
+        long id = escrita.datos.getId();
+        if (porId.get(id) != escrita) {
+            return;
+        }
+        desindexar(escrita);
+        if (anterior == null) {
+            porId.remove(id);
+        } else {
+            porId.put(id, anterior);
+            indexar(anterior);
+        }
+    }
+
+    /**
+     * Deshace un ajuste de stock. Si el producto no cambió después vuelve a la fila anterior;
+     * si no, descuenta el ajuste del stock vigente, que conserva los ajustes de otros hilos, y
+     * avanza la versión para que nadie actualice con la que vio el ajuste deshecho.
+     */
+    private synchronized void deshacerAjuste(Fila anterior, Fila escrita, int delta) {
+        long id = escrita.datos.getId();
+        Fila actual = porId.get(id);
+        if (actual == escrita) {
+            porId.put(id, anterior);
+        } else if (actual != null) {
+            sumarStock(actual, -delta);
+        }
+    }
+
+    private void indexar(Fila fila) {
+        long id = fila.datos.getId();
+        if (fila.idCodigo > 0) {
+            productoPorCodigo.put(fila.idCodigo, id);
+        }
+        idsPorNombre.computeIfAbsent(fila.nombreNormalizado, k -> new ConcurrentSkipListSet<>()).add(id);
+        if (fila.datos.getCategoria() != null) {
+            idsPorCategoria.computeIfAbsent(fila.datos.getCategoria(), k -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+
+    private void desindexar(Fila fila) {
+        long id = fila.datos.getId();
+        if (fila.idCodigo > 0) {
+            productoPorCodigo.remove(fila.idCodigo, id);
+        }
+        Set<Long> mismoNombre = idsPorNombre.get(fila.nombreNormalizado);
+        if (mismoNombre != null) {
+            mismoNombre.remove(id);
+            if (mismoNombre.isEmpty()) {
+                idsPorNombre.remove(fila.nombreNormalizado, mismoNombre);
+            }
+        }
+        if (fila.datos.getCategoria() != null) {
+            idsPorCategoria.get(fila.datos.getCategoria()).remove(id);
+        }
+    }
+
+    /**
+     * Verifica la restricción UNIQUE de codigo_barras_id.
+     *
+     * @param idCodigo Código a asignar, o 0 si no tiene
+     * @param idPropio ID del producto que se actualiza, o 0 al insertar
+     * @throws SQLIntegrityConstraintViolationException Si otro producto ya tiene ese código
+     */
+    private void verificarCodigoLibre(long idCodigo, long idPropio) throws SQLIntegrityConstraintViolationException {
+        if (idCodigo <= 0) {
+            return;
+        }
+        Long existente = productoPorCodigo.get(idCodigo);
+        if (existente != null && existente != idPropio) {
+            throw duplicado(idCodigo);
+        }
+    }
+
+    private static SQLIntegrityConstraintViolationException duplicado(long idCodigo) {
+        return new SQLIntegrityConstraintViolationException(
+                "Duplicate entry '" + idCodigo + "' for key 'codigo_barras_id'", "23000");
+    }
+
+    private static long idCodigo(Producto entidad) {
+        return (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0)
+                ? entidad.getCodigoBarras().getId()
+                : 0;
+    }
+
+    private static TotalesInventario totalesDe(Producto datos) {
+        return new TotalesInventario(1, datos.getStock(), Math.multiplyExact(Math.round(datos.getPrecio() * 100), datos.getStock()),
+                datos.getPeso() * datos.getStock());
+    }
+
+    private static void validarLimite(int limite) {
+        if (limite <= 0 || limite > LIMITE_BUSQUEDA_MAXIMO) {
+            throw new IllegalArgumentException("El límite de búsqueda debe estar entre 1 y " + LIMITE_BUSQUEDA_MAXIMO + ".");
+        }
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Fila guardada: datos del producto sin código y el ID del código asignado (0 si no tiene).
+     * Nunca se modifica; cada escritura guarda una fila nueva.
+     */
+    private static final class Fila {
+
+        private final Producto datos;
+        private final long idCodigo;
+        private final String nombreNormalizado;
+
+        private Fila(Producto datos, long idCodigo) {
+            datos.setCodigoBarras(null);
+            this.datos = datos;
+            this.idCodigo = idCodigo;
+            this.nombreNormalizado = Producto.normalizarNombre(datos.getNombre());
+        }
+    }
+
+    /**
+     * Conversión de una fila activa al tipo devuelto por una consulta.
+     */
+    @FunctionalInterface
+    private interface Conversion<T> {
+        T convertir(Fila fila) throws Exception;
+    }
+}
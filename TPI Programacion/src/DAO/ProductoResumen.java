@@ -0,0 +1,78 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Locale;
+
+/**
+ * Proyección liviana de un producto activo para listados: ID, nombre y stock.
+ * Se lee sin el JOIN al código de barras y desde un índice que contiene las tres columnas.
+ */
+public class ProductoResumen {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long id;
+    private final String nombre;
+    private final int stock;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea el resumen.
+     * @param id ID del producto
+     * @param nombre Nombre del producto
+     * @param stock Cantidad en stock
+     */
+    public ProductoResumen(long id, String nombre, int stock) {
+        this.id = id;
+        this.nombre = nombre;
+        this.stock = stock;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return ID del producto
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return Nombre del producto
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return Cantidad en stock
+     */
+    public int getStock() {
+        return stock;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Línea de listado con ID, nombre y stock
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, " - ID: %-8d %-50s Stock: %d", id, nombre, stock);
+    }
+}
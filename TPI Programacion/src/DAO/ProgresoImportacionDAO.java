@@ -0,0 +1,84 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import config.GestorTransacciones;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Acceso a datos del progreso de las importaciones de archivos (tabla importacion_progreso).
+ *
+ * Guarda por archivo la última línea cuyas filas ya están confirmadas. Llamado dentro de una
+ * transacción de {@link GestorTransacciones}, el progreso se confirma o revierte junto con
+ * las filas importadas, así una importación interrumpida se reanuda exactamente donde quedó.
+ */
+public class ProgresoImportacionDAO {
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    /**
+     * Obtiene el progreso de un archivo. Se lee siempre de la primaria: una réplica atrasada
+     * haría reimportar filas ya confirmadas.
+     *
+     * @param archivo Identificador del archivo (su ruta absoluta)
+     * @return Última línea confirmada, o 0 si no hay una importación en curso
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public long getUltimaLinea(String archivo) throws Exception {
+        String sql = "SELECT ultima_linea FROM importacion_progreso WHERE archivo = ?";
+        try (Connection conn = GestorTransacciones.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, archivo);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE ESCRITURA
+    // =========================================
+
+    /**
+     * Registra la última línea confirmada de un archivo, en la transacción en curso si la hay.
+     *
+     * @param archivo Identificador del archivo (su ruta absoluta)
+     * @param ultimaLinea Última línea cuyas filas quedan confirmadas con esta escritura
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public void guardar(String archivo, long ultimaLinea) throws Exception {
+        String sql = "INSERT INTO importacion_progreso (archivo, ultima_linea) VALUES (?, ?) " +
+                     "ON DUPLICATE KEY UPDATE ultima_linea = VALUES(ultima_linea)";
+        try (Connection conn = GestorTransacciones.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, archivo);
+            stmt.setLong(2, ultimaLinea);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Borra el progreso de un archivo cuya importación terminó.
+     *
+     * @param archivo Identificador del archivo (su ruta absoluta)
+     * @throws Exception Si ocurre error de base de datos
+     */
+    public void eliminar(String archivo) throws Exception {
+        String sql = "DELETE FROM importacion_progreso WHERE archivo = ?";
+        try (Connection conn = GestorTransacciones.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, archivo);
+            stmt.executeUpdate();
+        }
+    }
+}
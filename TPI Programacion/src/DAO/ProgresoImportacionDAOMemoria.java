@@ -0,0 +1,66 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import config.GestorTransacciones;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación en memoria del progreso de importaciones, sin base de datos.
+ * Como los productos en memoria, el progreso dura lo que el proceso: una importación
+ * interrumpida se reanuda mientras la aplicación siga abierta. Dentro de una transacción
+ * que se revierte, el progreso vuelve al valor anterior junto con las filas importadas.
+ */
+public class ProgresoImportacionDAOMemoria extends ProgresoImportacionDAO {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final Map<String, Long> ultimaLineaPorArchivo = new ConcurrentHashMap<>();
+
+    // =========================================
+    // MÉTODOS
+    // =========================================
+
+    @Override
+    public long getUltimaLinea(String archivo) throws Exception {
+        return ultimaLineaPorArchivo.getOrDefault(archivo, 0L);
+    }
+
+    @Override
+    public void guardar(String archivo, long ultimaLinea) throws Exception {
+        restaurarSiSeRevierte(archivo, ultimaLineaPorArchivo.put(archivo, ultimaLinea));
+    }
+
+    @Override
+    public void eliminar(String archivo) throws Exception {
+        restaurarSiSeRevierte(archivo, ultimaLineaPorArchivo.remove(archivo));
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Dentro de una transacción, registra cómo volver al progreso anterior si se revierte.
+     * @param archivo Identificador del archivo
+     * @param anterior Progreso anterior, o null si no había
+     */
+    private void restaurarSiSeRevierte(String archivo, Long anterior) {
+        GestorTransacciones.siSeRevierte(() -> {
+            if (anterior == null) {
+                ultimaLineaPorArchivo.remove(archivo);
+            } else {
+                ultimaLineaPorArchivo.put(archivo, anterior);
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package DAO;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla precalculada para convertir el texto de una columna en una constante de enum.
+ *
+ * El caso normal (el nombre exacto de la constante, como lo guardan los DAOs) se resuelve con
+ * una búsqueda en un mapa armado una sola vez, sin crear objetos. Solo los valores con espacios
+ * o en minúsculas pasan por trim/toUpperCase, y un valor desconocido se informa una única vez
+ * por valor distinto en lugar de una vez por fila.
+ *
+ * @param <E> Tipo del enum
+ */
+final class TablaEnum<E extends Enum<E>> {
+
+    private final String descripcion;
+    private final Map<String, E> porNombre;
+
+    /** Valores inválidos ya informados */
+    private final Set<String> informados = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param tipo Clase del enum
+     * @param descripcion Nombre del dato para los mensajes, por ejemplo "categoría"
+     */
+    TablaEnum(Class<E> tipo, String descripcion) {
+        this.descripcion = descripcion;
+        E[] constantes = tipo.getEnumConstants();
+        this.porNombre = new HashMap<>(constantes.length * 2);
+        for (E constante : constantes) {
+            porNombre.put(constante.name(), constante);
+        }
+    }
+
+    /**
+     * Busca la constante que corresponde a un texto leído de la base de datos.
+     * @param texto Valor de la columna
+     * @return Constante encontrada, o null si el texto es null, vacío o no corresponde a ninguna
+     */
+    E buscar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        E constante = porNombre.get(texto);
+        return (constante != null) ? constante : buscarNormalizado(texto);
+    }
+
+    private E buscarNormalizado(String texto) {
+        String normalizado = texto.trim().toUpperCase(Locale.ROOT);
+        if (normalizado.isEmpty()) {
+            return null;
+        }
+        E constante = porNombre.get(normalizado);
+        if (constante == null && informados.add(texto)) {
+            System.err.println("Advertencia: valor de " + descripcion + " inválido en BD: " + texto);
+        }
+        return constante;
+    }
+}
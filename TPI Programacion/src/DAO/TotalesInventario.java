@@ -0,0 +1,143 @@
+package DAO;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.CategoriaProducto;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Totales de inventario de un grupo de productos activos (una categoría, una marca o todo el
+ * catálogo): cantidad de productos, unidades en stock, valorización (precio × stock) y peso
+ * total (peso × stock).
+ *
+ * La valorización se guarda en centavos para sumar sin errores de redondeo.
+ */
+public class TotalesInventario {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Totales de un grupo sin productos */
+    public static final TotalesInventario VACIO = new TotalesInventario(0, 0, 0, 0);
+
+    /** Orden de los totales por categoría: por nombre, con "sin categoría" (null) primero */
+    public static final Comparator<CategoriaProducto> ORDEN_CATEGORIA =
+            Comparator.nullsFirst(Comparator.comparing(CategoriaProducto::name));
+
+    /** Orden de los totales por marca: alfabético, con "sin marca" (null) primero */
+    public static final Comparator<String> ORDEN_MARCA = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long productos;
+    private final long unidades;
+    private final long valorCentavos;
+    private final double peso;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea los totales.
+     * @param productos Cantidad de productos del grupo
+     * @param unidades Suma del stock
+     * @param valorCentavos Suma de precio × stock, en centavos
+     * @param peso Suma de peso × stock
+     */
+    public TotalesInventario(long productos, long unidades, long valorCentavos, double peso) {
+        this.productos = productos;
+        this.unidades = unidades;
+        this.valorCentavos = valorCentavos;
+        this.peso = peso;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Cantidad de productos del grupo
+     */
+    public long getProductos() {
+        return productos;
+    }
+
+    /**
+     * @return Unidades en stock
+     */
+    public long getUnidades() {
+        return unidades;
+    }
+
+    /**
+     * @return Valorización del stock en centavos
+     */
+    public long getValorCentavos() {
+        return valorCentavos;
+    }
+
+    /**
+     * @return Valorización del stock
+     */
+    public double getValor() {
+        return valorCentavos / 100.0;
+    }
+
+    /**
+     * @return Peso total del stock
+     */
+    public double getPeso() {
+        return peso;
+    }
+
+    // =========================================
+    // MÉTODOS DE COMBINACIÓN
+    // =========================================
+
+    /**
+     * @param otro Totales de otro grupo
+     * @return Totales de ambos grupos juntos
+     * @throws ArithmeticException Si algún total excede el rango de long
+     */
+    public TotalesInventario sumar(TotalesInventario otro) {
+        return new TotalesInventario(Math.addExact(productos, otro.productos), Math.addExact(unidades, otro.unidades),
+                Math.addExact(valorCentavos, otro.valorCentavos), peso + otro.peso);
+    }
+
+    /**
+     * @param grupos Totales por grupo
+     * @return Totales de todos los grupos juntos
+     */
+    public static TotalesInventario total(Collection<TotalesInventario> grupos) {
+        TotalesInventario total = VACIO;
+        for (TotalesInventario grupo : grupos) {
+            total = total.sumar(grupo);
+        }
+        return total;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Línea con productos, unidades, valorización y peso
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Productos: %-8d Unidades: %-10d Valor: $%,.2f   Peso: %,.3f",
+                productos, unidades, getValor(), peso);
+    }
+}
@@ -0,0 +1,195 @@
+package analitica;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.TotalesInventario;
+import model.CategoriaProducto;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Totales de inventario por categoría o por marca calculados sobre una {@link CatalogoColumnar}.
+ *
+ * El catálogo se divide en tramos que se suman en paralelo en el pool común de fork-join.
+ * Cada tramo acumula en sus propios arreglos indexados por código de grupo (ordinal de la
+ * categoría o código de marca), sin mapas ni objetos por fila y sin compartir memoria
+ * escrita entre hilos; al final los arreglos de los tramos se suman de a pares.
+ *
+ * Las marcas se agrupan por su texto exacto, igual que en las agregaciones del DAO. Los
+ * valores en centavos se suman controlando el desbordamiento.
+ */
+public final class AgregadorInventario {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Filas mínimas de un tramo: por debajo, dividir cuesta más que sumar */
+    private static final int TRAMO_MINIMO = 1 << 14;
+
+    /** Tramos por hilo del pool, para repartir la carga si algún hilo se demora */
+    private static final int TRAMOS_POR_HILO = 4;
+
+    private static final CategoriaProducto[] CATEGORIAS = CategoriaProducto.values();
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private AgregadorInventario() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Calcula los totales de inventario agrupados por categoría.
+     * @param catalogo Instantánea del catálogo
+     * @return Totales por categoría, ordenados por nombre con "sin categoría" (null) primero
+     * @throws ArithmeticException Si el valor de un grupo excede el rango de long en centavos
+     */
+    public static Map<CategoriaProducto, TotalesInventario> porCategoria(CatalogoColumnar catalogo) {
+        Acumulado acumulado = agregar(catalogo, false, CATEGORIAS.length);
+        Map<CategoriaProducto, TotalesInventario> totales = new TreeMap<>(TotalesInventario.ORDEN_CATEGORIA);
+        for (int g = 0; g < acumulado.productos.length; g++) {
+            if (acumulado.productos[g] > 0) {
+                totales.put(g < CATEGORIAS.length ? CATEGORIAS[g] : null, acumulado.totales(g));
+            }
+        }
+        return totales;
+    }
+
+    /**
+     * Calcula los totales de inventario agrupados por marca.
+     * @param catalogo Instantánea del catálogo
+     * @return Totales por marca, ordenados alfabéticamente con "sin marca" (null) primero
+     * @throws ArithmeticException Si el valor de un grupo excede el rango de long en centavos
+     */
+    public static Map<String, TotalesInventario> porMarca(CatalogoColumnar catalogo) {
+        int marcas = catalogo.cantidadMarcas();
+        Acumulado acumulado = agregar(catalogo, true, marcas);
+        Map<String, TotalesInventario> totales = new TreeMap<>(TotalesInventario.ORDEN_MARCA);
+        for (int g = 0; g < acumulado.productos.length; g++) {
+            if (acumulado.productos[g] > 0) {
+                totales.put(g < marcas ? catalogo.marca(g) : null, acumulado.totales(g));
+            }
+        }
+        return totales;
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Suma todo el catálogo. El último casillero de los arreglos es el de los productos
+     * sin categoría o sin marca.
+     */
+    private static Acumulado agregar(CatalogoColumnar catalogo, boolean porMarca, int grupos) {
+        int filas = catalogo.tamanio();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int tramo = Math.max(TRAMO_MINIMO, filas / (pool.getParallelism() * TRAMOS_POR_HILO));
+        return pool.invoke(new Tarea(catalogo, porMarca, grupos + 1, 0, filas, tramo));
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Suma de un tramo del catálogo, dividiéndolo en mitades mientras supere el tamaño de tramo.
+     */
+    private static final class Tarea extends RecursiveTask<Acumulado> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient CatalogoColumnar catalogo;
+        private final boolean porMarca;
+        private final int casilleros;
+        private final int desde;
+        private final int hasta;
+        private final int tramo;
+
+        private Tarea(CatalogoColumnar catalogo, boolean porMarca, int casilleros, int desde, int hasta, int tramo) {
+            this.catalogo = catalogo;
+            this.porMarca = porMarca;
+            this.casilleros = casilleros;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.tramo = tramo;
+        }
+
+        @Override
+        protected Acumulado compute() {
+            if (hasta - desde <= tramo) {
+                return sumarTramo();
+            }
+            int medio = (desde + hasta) >>> 1;
+            Tarea izquierda = new Tarea(catalogo, porMarca, casilleros, desde, medio, tramo);
+            Tarea derecha = new Tarea(catalogo, porMarca, casilleros, medio, hasta, tramo);
+            izquierda.fork();
+            Acumulado resultado = derecha.compute();
+            resultado.sumar(izquierda.join());
+            return resultado;
+        }
+
+        private Acumulado sumarTramo() {
+            Acumulado acumulado = new Acumulado(casilleros);
+            int sinGrupo = casilleros - 1;
+            for (int i = desde; i < hasta; i++) {
+                int g = porMarca ? catalogo.getCodigoMarca(i) : catalogo.getOrdinalCategoria(i);
+                if (g < 0) {
+                    g = sinGrupo;
+                }
+                int stock = catalogo.getStock(i);
+                acumulado.productos[g]++;
+                acumulado.unidades[g] += stock;
+                acumulado.valorCentavos[g] = Math.addExact(acumulado.valorCentavos[g],
+                        Math.multiplyExact(catalogo.getPrecioCentavos(i), stock));
+                acumulado.peso[g] += catalogo.getPeso(i) * stock;
+            }
+            return acumulado;
+        }
+    }
+
+    /**
+     * Totales parciales por casillero de grupo.
+     */
+    private static final class Acumulado {
+
+        private final long[] productos;
+        private final long[] unidades;
+        private final long[] valorCentavos;
+        private final double[] peso;
+
+        private Acumulado(int casilleros) {
+            productos = new long[casilleros];
+            unidades = new long[casilleros];
+            valorCentavos = new long[casilleros];
+            peso = new double[casilleros];
+        }
+
+        private void sumar(Acumulado otro) {
+            for (int g = 0; g < productos.length; g++) {
+                productos[g] += otro.productos[g];
+                unidades[g] += otro.unidades[g];
+                valorCentavos[g] = Math.addExact(valorCentavos[g], otro.valorCentavos[g]);
+                peso[g] += otro.peso[g];
+            }
+        }
+
+        private TotalesInventario totales(int g) {
+            return new TotalesInventario(productos[g], unidades[g], valorCentavos[g], peso[g]);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package analitica;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.ConsumidorCatalogo;
+import DAO.ProductoDAO;
+import model.CategoriaProducto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Instantánea inmutable del catálogo activo guardada por columnas en arreglos primitivos.
+ *
+ * Cada producto ocupa una posición {@code i} en todos los arreglos, ordenados por ID. La marca
+ * se guarda codificada con un diccionario (un int por producto y cada texto distinto una sola
+ * vez) y la categoría como su ordinal en un byte. Un producto ocupa unos 33 bytes, contra
+ * varios cientos como {@code Producto} con sus cadenas y su código de barras, y los recorridos
+ * leen memoria contigua, sin seguir referencias.
+ *
+ * Los recorridos y filtros reciben la posición de cada producto y se ejecutan en paralelo
+ * sobre catálogos grandes. Para datos actualizados, construir una instantánea nueva (ver
+ * {@code service.CatalogoService}).
+ */
+public final class CatalogoColumnar {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Código de las filas sin marca y ordinal de las filas sin categoría */
+    public static final int SIN_VALOR = -1;
+
+    /** Filas desde las que los recorridos se reparten entre núcleos */
+    private static final int UMBRAL_PARALELO = 50_000;
+
+    private static final CategoriaProducto[] CATEGORIAS = CategoriaProducto.values();
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long[] ids;
+    private final long[] preciosCentavos;
+    private final double[] pesos;
+    private final int[] stocks;
+    private final byte[] categorias;
+    private final int[] marcas;
+
+    private final String[] diccionarioMarcas;
+    private final Map<String, Integer> codigosMarca;
+
+    private final long creadoEnMs;
+
+    // =========================================
+    // CONSTRUCCIÓN
+    // =========================================
+
+    private CatalogoColumnar(Acumulador datos) {
+        datos.recortar();
+        this.ids = datos.ids;
+        this.preciosCentavos = datos.preciosCentavos;
+        this.pesos = datos.pesos;
+        this.stocks = datos.stocks;
+        this.categorias = datos.categorias;
+        this.marcas = datos.marcas;
+        this.diccionarioMarcas = datos.diccionario.toArray(new String[0]);
+        this.codigosMarca = datos.codigosMarca;
+        this.creadoEnMs = System.currentTimeMillis();
+    }
+
+    /**
+     * Construye la instantánea con un recorrido por bloques de los productos activos.
+     * Los arreglos se dimensionan con un conteo previo, por lo que durante la construcción
+     * no se mantiene ningún producto como objeto.
+     * @param dao DAO de productos del que se leen las filas
+     * @return Instantánea del catálogo activo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public static CatalogoColumnar construir(ProductoDAO dao) throws Exception {
+        long estimado = dao.countActivos(null);
+        Acumulador datos = new Acumulador((int) Math.min(Math.max(estimado, 16), Integer.MAX_VALUE - 8));
+        dao.recorrerCatalogo(datos, ProductoDAO.FETCH_SIZE_STREAMING);
+        return new CatalogoColumnar(datos);
+    }
+
+    // =========================================
+    // ACCESO POR POSICIÓN
+    // =========================================
+
+    /**
+     * @return Cantidad de productos de la instantánea
+     */
+    public int tamanio() {
+        return ids.length;
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    public long getPrecioCentavos(int i) {
+        return preciosCentavos[i];
+    }
+
+    public double getPeso(int i) {
+        return pesos[i];
+    }
+
+    public int getStock(int i) {
+        return stocks[i];
+    }
+
+    /**
+     * @return Ordinal de la categoría, o {@link #SIN_VALOR}
+     */
+    public int getOrdinalCategoria(int i) {
+        return categorias[i];
+    }
+
+    /**
+     * @return Categoría, o null si el producto no tiene
+     */
+    public CategoriaProducto getCategoria(int i) {
+        int ordinal = categorias[i];
+        return (ordinal == SIN_VALOR) ? null : CATEGORIAS[ordinal];
+    }
+
+    /**
+     * @return Código de la marca en el diccionario, o {@link #SIN_VALOR}
+     */
+    public int getCodigoMarca(int i) {
+        return marcas[i];
+    }
+
+    /**
+     * @return Marca, o null si el producto no tiene
+     */
+    public String getMarca(int i) {
+        return marca(marcas[i]);
+    }
+
+    /**
+     * Busca la posición de un producto.
+     * @param id ID del producto
+     * @return Posición, o -1 si no está en la instantánea
+     */
+    public int indiceDe(long id) {
+        int i = Arrays.binarySearch(ids, id);
+        return (i >= 0) ? i : -1;
+    }
+
+    // =========================================
+    // DICCIONARIO DE MARCAS
+    // =========================================
+
+    /**
+     * @return Cantidad de marcas distintas
+     */
+    public int cantidadMarcas() {
+        return diccionarioMarcas.length;
+    }
+
+    /**
+     * @param codigo Código del diccionario
+     * @return Marca, o null si el código es {@link #SIN_VALOR}
+     */
+    public String marca(int codigo) {
+        return (codigo == SIN_VALOR) ? null : diccionarioMarcas[codigo];
+    }
+
+    /**
+     * @param marca Marca a buscar (exacta)
+     * @return Código de la marca, o {@link #SIN_VALOR} si ningún producto la tiene
+     */
+    public int codigoMarca(String marca) {
+        Integer codigo = codigosMarca.get(marca);
+        return (codigo != null) ? codigo : SIN_VALOR;
+    }
+
+    // =========================================
+    // RECORRIDOS Y FILTROS
+    // =========================================
+
+    /**
+     * @return Posiciones de todos los productos, en paralelo si el catálogo es grande
+     */
+    public IntStream indices() {
+        IntStream indices = IntStream.range(0, ids.length);
+        return (ids.length >= UMBRAL_PARALELO) ? indices.parallel() : indices;
+    }
+
+    /**
+     * Cuenta los productos que cumplen un filtro.
+     * @param filtro Condición sobre la posición del producto
+     * @return Cantidad de productos que la cumplen
+     */
+    public long contar(IntPredicate filtro) {
+        return indices().filter(filtro).count();
+    }
+
+    /**
+     * Obtiene las posiciones de los productos que cumplen un filtro.
+     * @param filtro Condición sobre la posición del producto
+     * @return Posiciones en orden creciente (orden de ID)
+     */
+    public int[] filtrar(IntPredicate filtro) {
+        return indices().filter(filtro).toArray();
+    }
+
+    /**
+     * @param categoria Categoría buscada, o null para los productos sin categoría
+     * @return Filtro de los productos de la categoría
+     */
+    public IntPredicate deCategoria(CategoriaProducto categoria) {
+        byte ordinal = (byte) ((categoria != null) ? categoria.ordinal() : SIN_VALOR);
+        return i -> categorias[i] == ordinal;
+    }
+
+    /**
+     * @param marca Marca buscada (exacta)
+     * @return Filtro de los productos de la marca; no acepta ninguno si la marca no existe
+     */
+    public IntPredicate deMarca(String marca) {
+        int codigo = codigoMarca(marca);
+        if (codigo == SIN_VALOR) {
+            return i -> false;
+        }
+        return i -> marcas[i] == codigo;
+    }
+
+    /**
+     * @param limite Stock a partir del cual el producto no se incluye
+     * @return Filtro de los productos con stock menor al límite
+     */
+    public IntPredicate conStockMenorA(int limite) {
+        return i -> stocks[i] < limite;
+    }
+
+    // =========================================
+    // INFORMACIÓN
+    // =========================================
+
+    /**
+     * @return Momento de construcción en milisegundos desde la época
+     */
+    public long getCreadoEnMs() {
+        return creadoEnMs;
+    }
+
+    /**
+     * Estima la memoria de los arreglos y el diccionario, sin contar los encabezados de objeto.
+     * @return Bytes aproximados ocupados por la instantánea
+     */
+    public long memoriaEstimadaBytes() {
+        long porFila = Long.BYTES * 2 + Double.BYTES + Integer.BYTES * 2 + Byte.BYTES;
+        long diccionario = 0;
+        for (String marca : diccionarioMarcas) {
+            diccionario += 56 + marca.length();
+        }
+        return porFila * ids.length + diccionario;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogoColumnar[productos=" + ids.length + ", marcas=" + diccionarioMarcas.length
+                + ", memoria≈" + (memoriaEstimadaBytes() / 1024) + " KB]";
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Columnas en construcción. Crecen si llegan más filas que las estimadas; la instantánea
+     * se queda con los arreglos, que se recortan solo si sobra lugar.
+     */
+    private static final class Acumulador implements ConsumidorCatalogo {
+
+        private long[] ids;
+        private long[] preciosCentavos;
+        private double[] pesos;
+        private int[] stocks;
+        private byte[] categorias;
+        private int[] marcas;
+        private int tamanio;
+
+        private final List<String> diccionario = new ArrayList<>();
+        private final Map<String, Integer> codigosMarca = new HashMap<>();
+
+        private Acumulador(int capacidad) {
+            ids = new long[capacidad];
+            preciosCentavos = new long[capacidad];
+            pesos = new double[capacidad];
+            stocks = new int[capacidad];
+            categorias = new byte[capacidad];
+            marcas = new int[capacidad];
+        }
+
+        @Override
+        public void aceptar(long id, String marca, CategoriaProducto categoria, long precioCentavos, double peso, int stock) {
+            if (tamanio == ids.length) {
+                crecer();
+            }
+            int i = tamanio++;
+            ids[i] = id;
+            preciosCentavos[i] = precioCentavos;
+            pesos[i] = peso;
+            stocks[i] = stock;
+            categorias[i] = (byte) ((categoria != null) ? categoria.ordinal() : SIN_VALOR);
+            marcas[i] = codificar(marca);
+        }
+
+        private int codificar(String marca) {
+            if (marca == null) {
+                return SIN_VALOR;
+            }
+            Integer codigo = codigosMarca.get(marca);
+            if (codigo == null) {
+                codigo = diccionario.size();
+                diccionario.add(marca);
+                codigosMarca.put(marca, codigo);
+            }
+            return codigo;
+        }
+
+        /**
+         * Ajusta las columnas a la cantidad de filas. Con el conteo previo exacto no copia nada;
+         * si no, copia de a una columna para no duplicar todas a la vez.
+         */
+        private void recortar() {
+            if (tamanio == ids.length) {
+                return;
+            }
+            ids = Arrays.copyOf(ids, tamanio);
+            preciosCentavos = Arrays.copyOf(preciosCentavos, tamanio);
+            pesos = Arrays.copyOf(pesos, tamanio);
+            stocks = Arrays.copyOf(stocks, tamanio);
+            categorias = Arrays.copyOf(categorias, tamanio);
+            marcas = Arrays.copyOf(marcas, tamanio);
+        }
+
+        private void crecer() {
+            int capacidad = (int) Math.min((long) ids.length + (ids.length >> 1) + 16, Integer.MAX_VALUE - 8);
+            ids = Arrays.copyOf(ids, capacidad);
+            preciosCentavos = Arrays.copyOf(preciosCentavos, capacidad);
+            pesos = Arrays.copyOf(pesos, capacidad);
+            stocks = Arrays.copyOf(stocks, capacidad);
+            categorias = Arrays.copyOf(categorias, capacidad);
+            marcas = Arrays.copyOf(marcas, capacidad);
+        }
+    }
+}
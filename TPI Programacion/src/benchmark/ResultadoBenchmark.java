@@ -0,0 +1,163 @@
+package benchmark;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Locale;
+
+/**
+ * Resultado inmutable de medir un escenario con una cantidad de hilos.
+ * Las latencias se expresan en microsegundos y la memoria asignada en bytes.
+ */
+public class ResultadoBenchmark {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final String escenario;
+    private final int hilos;
+    private final long operaciones;
+    private final long errores;
+    private final double operacionesPorSegundo;
+    private final double p50Us;
+    private final double p99Us;
+    private final double p999Us;
+    private final double maximoUs;
+    private final double bytesPorOperacion;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Constructor completo del resultado.
+     * @param escenario Nombre del escenario medido
+     * @param hilos Hilos concurrentes usados
+     * @param operaciones Operaciones completadas sin error durante la medición
+     * @param errores Operaciones que lanzaron excepción
+     * @param operacionesPorSegundo Throughput sumado entre hilos
+     * @param p50Us Mediana de latencia
+     * @param p99Us Percentil 99 de latencia
+     * @param p999Us Percentil 99.9 de latencia
+     * @param maximoUs Latencia máxima observada
+     * @param bytesPorOperacion Memoria asignada por operación, o -1 si no se pudo medir
+     */
+    public ResultadoBenchmark(String escenario, int hilos, long operaciones, long errores, double operacionesPorSegundo,
+                              double p50Us, double p99Us, double p999Us, double maximoUs, double bytesPorOperacion) {
+        this.escenario = escenario;
+        this.hilos = hilos;
+        this.operaciones = operaciones;
+        this.errores = errores;
+        this.operacionesPorSegundo = operacionesPorSegundo;
+        this.p50Us = p50Us;
+        this.p99Us = p99Us;
+        this.p999Us = p999Us;
+        this.maximoUs = maximoUs;
+        this.bytesPorOperacion = bytesPorOperacion;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Nombre del escenario medido
+     */
+    public String getEscenario() {
+        return escenario;
+    }
+
+    /**
+     * @return Hilos concurrentes usados
+     */
+    public int getHilos() {
+        return hilos;
+    }
+
+    /**
+     * @return Operaciones completadas sin error
+     */
+    public long getOperaciones() {
+        return operaciones;
+    }
+
+    /**
+     * @return Operaciones que lanzaron excepción
+     */
+    public long getErrores() {
+        return errores;
+    }
+
+    /**
+     * @return Throughput sumado entre hilos
+     */
+    public double getOperacionesPorSegundo() {
+        return operacionesPorSegundo;
+    }
+
+    /**
+     * @return Mediana de latencia en microsegundos
+     */
+    public double getP50Us() {
+        return p50Us;
+    }
+
+    /**
+     * @return Percentil 99 de latencia en microsegundos
+     */
+    public double getP99Us() {
+        return p99Us;
+    }
+
+    /**
+     * @return Percentil 99.9 de latencia en microsegundos
+     */
+    public double getP999Us() {
+        return p999Us;
+    }
+
+    /**
+     * @return Latencia máxima en microsegundos
+     */
+    public double getMaximoUs() {
+        return maximoUs;
+    }
+
+    /**
+     * @return Bytes asignados por operación, o -1 si no se pudo medir
+     */
+    public double getBytesPorOperacion() {
+        return bytesPorOperacion;
+    }
+
+    // =========================================
+    // MÉTODOS DE FORMATO
+    // =========================================
+
+    /**
+     * @return Objeto JSON de una línea con todos los campos
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"escenario\":\"%s\",\"hilos\":%d,\"operaciones\":%d,\"errores\":%d,"
+                + "\"opsPorSegundo\":%.2f,\"p50Us\":%.1f,\"p99Us\":%.1f,\"p999Us\":%.1f,\"maximoUs\":%.1f,"
+                + "\"bytesPorOperacion\":%.0f}",
+                escenario, hilos, operaciones, errores, operacionesPorSegundo, p50Us, p99Us, p999Us, maximoUs,
+                bytesPorOperacion);
+    }
+
+    /**
+     * @return Fila de tabla legible con el resultado
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-42s %5d %12.1f %10.1f %10.1f %10.1f %10.1f %7d %12.1f",
+                escenario, hilos, operacionesPorSegundo, p50Us, p99Us, p999Us, maximoUs, errores,
+                bytesPorOperacion < 0 ? -1 : bytesPorOperacion / 1024);
+    }
+}
@@ -0,0 +1,631 @@
+package benchmark;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.CodigoBarrasDAO;
+import DAO.CodigoBarrasDAOMemoria;
+import DAO.ProductoDAO;
+import DAO.ProductoDAOMemoria;
+import analitica.AgregadorInventario;
+import analitica.CatalogoColumnar;
+import config.Backend;
+import config.DatabaseConnection;
+import model.CategoriaProducto;
+import model.CodigoBarras;
+import model.EnumTipo;
+import model.Producto;
+import service.CoalescedorStock;
+import service.CodigoBarrasService;
+import service.CodigoBarrasServiceAsync;
+import service.EjecutorAsync;
+import service.ProductoService;
+import service.ValidadorCodigoBarras;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suite de benchmarks de las capas DAO y service contra una base MySQL/MariaDB local
+ * o contra el backend en memoria.
+ *
+ * Con JDBC usa una base separada (por defecto depositotpi_bench, creada si no existe), la completa
+ * con la cantidad de productos pedida y mide cada escenario con distintas cantidades de
+ * hilos: calentamiento, medición por tiempo, throughput, percentiles de latencia y memoria
+ * asignada por operación (la basura que genera, medida por hilo con ThreadMXBean).
+ * Los resultados se imprimen en tabla y, si se indica --salida, se guardan en JSON para
+ * comparar entre versiones.
+ *
+ * Opciones (todas opcionales):
+ * <pre>
+ *   --backend=jdbc             jdbc (base de datos) o memoria
+ *   --base=depositotpi_bench   base de datos a usar
+ *   --filas=10000              productos de prueba a mantener cargados
+ *   --hilos=1,4,16             cantidades de hilos a medir
+ *   --calentamiento=5          segundos de calentamiento por escenario
+ *   --medicion=10              segundos de medición por escenario
+ *   --escenarios=a,b           prefijos de escenarios a ejecutar (todos por defecto)
+ *   --salida=resultados.json   archivo JSON de resultados
+ *   --etiqueta=v1.2            texto libre para identificar la corrida
+ * </pre>
+ */
+public class SuiteBenchmark {
+
+    // =========================================
+    // TIPOS
+    // =========================================
+
+    /**
+     * Operación medida. Debe poder ejecutarse concurrentemente desde varios hilos.
+     */
+    @FunctionalInterface
+    interface Operacion {
+        /**
+         * @param aleatorio Generador del hilo actual
+         * @throws Exception Si la operación falla; se cuenta como error
+         */
+        void ejecutar(ThreadLocalRandom aleatorio) throws Exception;
+    }
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Prefijo de nombre de los productos de prueba precargados */
+    private static final String PREFIJO_SEMILLA = "Bench semilla ";
+
+    /** Prefijo de nombre de los productos creados durante la medición (se borran al terminar) */
+    private static final String PREFIJO_ALTA = "Bench alta ";
+
+    /** Latencias que guarda cada hilo para calcular percentiles (muestreo por reservorio) */
+    private static final int MUESTRAS_POR_HILO = 100_000;
+
+    /** Productos por lote al precargar la base */
+    private static final int LOTE_SEMILLA = 1000;
+
+    /** Valores por lectura en el escenario de búsquedas asíncronas en paralelo */
+    private static final int LECTURA_ASYNC = 32;
+
+    /** Códigos por operación del escenario de validación por lotes */
+    private static final int VALIDACION_LOTE = 10_000;
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final int filas;
+    private final int[] hilos;
+    private final long calentamientoNanos;
+    private final long medicionNanos;
+    private final List<String> filtros;
+
+    private final boolean enMemoria;
+    private final ProductoDAO productoDAO;
+    private final CodigoBarrasDAO codigoBarrasDAO;
+    private final CodigoBarrasService codigoBarrasService;
+    private final ProductoService productoService;
+
+    /** Etapa de group commit para los ajustes de stock; vive durante {@link #ejecutar()} */
+    private CoalescedorStock coalescedorStock;
+
+    /** Ejecutor de las consultas asíncronas; vive durante {@link #ejecutar()} */
+    private EjecutorAsync ejecutorAsync;
+
+    /** Instantánea columnar de los datos precargados para los recorridos analíticos */
+    private CatalogoColumnar catalogo;
+
+    /** IDs y valores de código de los productos de prueba, en el mismo orden */
+    private long[] ids;
+    private String[] valores;
+
+    /** Secuencia para los códigos de los productos creados durante la medición */
+    private final AtomicLong secuenciaAltas = new AtomicLong();
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea la suite con la configuración indicada.
+     * @param filas Productos de prueba a mantener cargados
+     * @param hilos Cantidades de hilos a medir
+     * @param calentamientoSeg Segundos de calentamiento por escenario
+     * @param medicionSeg Segundos de medición por escenario
+     * @param filtros Prefijos de escenarios a ejecutar; vacío para todos
+     */
+    public SuiteBenchmark(int filas, int[] hilos, int calentamientoSeg, int medicionSeg, List<String> filtros) {
+        if (filas <= 0 || hilos.length == 0 || calentamientoSeg < 0 || medicionSeg <= 0) {
+            throw new IllegalArgumentException("Configuración de benchmark inválida.");
+        }
+        this.filas = filas;
+        this.hilos = hilos;
+        this.calentamientoNanos = calentamientoSeg * 1_000_000_000L;
+        this.medicionNanos = medicionSeg * 1_000_000_000L;
+        this.filtros = filtros;
+
+        this.enMemoria = (DatabaseConnection.getBackend() == Backend.MEMORIA);
+        if (enMemoria) {
+            CodigoBarrasDAOMemoria codigosMemoria = new CodigoBarrasDAOMemoria();
+            this.codigoBarrasDAO = codigosMemoria;
+            this.productoDAO = new ProductoDAOMemoria(codigosMemoria);
+        } else {
+            this.codigoBarrasDAO = new CodigoBarrasDAO();
+            this.productoDAO = new ProductoDAO();
+        }
+        this.codigoBarrasService = new CodigoBarrasService(codigoBarrasDAO);
+        this.productoService = new ProductoService(productoDAO, codigoBarrasService);
+    }
+
+    // =========================================
+    // PUNTO DE ENTRADA
+    // =========================================
+
+    /**
+     * Ejecuta la suite desde la línea de comandos.
+     * @param args Opciones --clave=valor descriptas en la documentación de la clase
+     */
+    public static void main(String[] args) {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Opción inválida: " + arg + " (formato --clave=valor)");
+                return;
+            }
+            opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        // Deben fijarse antes del primer uso de DatabaseConnection
+        if (opciones.containsKey("backend")) {
+            System.setProperty("tpi.backend", opciones.get("backend"));
+        }
+        if (System.getProperty("tpi.db.nombre") == null) {
+            System.setProperty("tpi.db.nombre", opciones.getOrDefault("base", "depositotpi_bench"));
+        }
+
+        try {
+            int[] hilos = Arrays.stream(opciones.getOrDefault("hilos", "1,4,16").split(","))
+                    .map(String::trim).mapToInt(Integer::parseInt).toArray();
+            List<String> filtros = opciones.containsKey("escenarios")
+                    ? Arrays.asList(opciones.get("escenarios").split(","))
+                    : List.of();
+            SuiteBenchmark suite = new SuiteBenchmark(
+                    Integer.parseInt(opciones.getOrDefault("filas", "10000")),
+                    hilos,
+                    Integer.parseInt(opciones.getOrDefault("calentamiento", "5")),
+                    Integer.parseInt(opciones.getOrDefault("medicion", "10")),
+                    filtros);
+
+            DatabaseConnection.inicializarBaseDatos();
+            List<ResultadoBenchmark> resultados = suite.ejecutar();
+
+            String salida = opciones.get("salida");
+            if (salida != null) {
+                suite.escribirJson(Paths.get(salida), opciones.getOrDefault("etiqueta", ""), resultados);
+                System.out.println("\n✓ Resultados guardados en " + salida);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error: valor numérico inválido en las opciones: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error al ejecutar benchmarks: " + e.getMessage());
+        } finally {
+            DatabaseConnection.cerrarPool();
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Prepara los datos, mide todos los escenarios seleccionados y limpia las altas.
+     * @return Un resultado por escenario y cantidad de hilos
+     * @throws Exception Si falla la preparación de datos
+     */
+    public List<ResultadoBenchmark> ejecutar() throws Exception {
+        borrarAltas();
+        precargar();
+
+        coalescedorStock = CoalescedorStock.crear(productoService);
+        ejecutorAsync = new EjecutorAsync();
+        catalogo = CatalogoColumnar.construir(productoDAO);
+        Map<String, Operacion> escenarios = escenarios();
+        List<ResultadoBenchmark> resultados = new ArrayList<>();
+
+        System.out.println(String.format(Locale.ROOT, "%n%-42s %5s %12s %10s %10s %10s %10s %7s %12s",
+                "ESCENARIO", "HILOS", "OPS/S", "P50 us", "P99 us", "P99.9 us", "MAX us", "ERRORES", "KB/OP"));
+        try {
+            for (Map.Entry<String, Operacion> escenario : escenarios.entrySet()) {
+                if (!seleccionado(escenario.getKey())) {
+                    continue;
+                }
+                for (int cantidadHilos : hilos) {
+                    ResultadoBenchmark resultado = medir(escenario.getKey(), escenario.getValue(), cantidadHilos);
+                    System.out.println(resultado);
+                    resultados.add(resultado);
+                }
+            }
+        } finally {
+            coalescedorStock.close();
+            ejecutorAsync.close();
+            borrarAltas();
+        }
+        return resultados;
+    }
+
+    // =========================================
+    // ESCENARIOS
+    // =========================================
+
+    /**
+     * Define los escenarios medidos, en orden de ejecución.
+     * Los de DAO van directo a la base; los de analitica recorren la instantánea columnar;
+     * los de validacion no tocan la base (comparar con insertarConCodigoBarras);
+     * los de service incluyen cachés y transacciones.
+     * @return Escenarios por nombre
+     */
+    private Map<String, Operacion> escenarios() {
+        Map<String, Operacion> escenarios = new LinkedHashMap<>();
+
+        escenarios.put("dao.producto.getById", r -> productoDAO.getById(ids[r.nextInt(ids.length)]));
+        escenarios.put("dao.producto.getAll", r -> productoDAO.getAll());
+        escenarios.put("dao.producto.getTotalesPorCategoria", r -> productoDAO.getTotalesPorCategoria());
+        escenarios.put("dao.codigo.getAll", r -> codigoBarrasDAO.getAll());
+        escenarios.put("dao.codigo.getByValor", r -> codigoBarrasDAO.getByValor(valores[r.nextInt(valores.length)]));
+
+        escenarios.put("analitica.catalogo.construir", r -> CatalogoColumnar.construir(productoDAO));
+        escenarios.put("analitica.catalogo.contarStockBajo", r -> catalogo.contar(catalogo.conStockMenorA(r.nextInt(1_000))));
+        escenarios.put("analitica.inventario.porCategoria", r -> AgregadorInventario.porCategoria(catalogo));
+        escenarios.put("analitica.inventario.porMarca", r -> AgregadorInventario.porMarca(catalogo));
+
+        escenarios.put("validacion.codigo.esValido", r -> {
+            if (!ValidadorCodigoBarras.esValido(EnumTipo.EAN13, valores[r.nextInt(valores.length)])) {
+                throw new IllegalStateException("Código de prueba inválido");
+            }
+        });
+        EnumTipo[] tiposLote = new EnumTipo[VALIDACION_LOTE];
+        String[] valoresLote = new String[VALIDACION_LOTE];
+        Arrays.fill(tiposLote, EnumTipo.EAN13);
+        for (int i = 0; i < VALIDACION_LOTE; i++) {
+            valoresLote[i] = valores[i % valores.length];
+        }
+        escenarios.put("validacion.codigo.validarLote", r -> ValidadorCodigoBarras.validarLote(tiposLote, valoresLote));
+
+        escenarios.put("service.producto.getById", r -> productoService.getById(ids[r.nextInt(ids.length)]));
+        escenarios.put("service.codigo.getByValor", r -> codigoBarrasService.getByValor(valores[r.nextInt(valores.length)]));
+
+        CodigoBarrasServiceAsync codigoAsync = new CodigoBarrasServiceAsync(codigoBarrasService, ejecutorAsync);
+        escenarios.put("service.codigo.getByValoresAsync", r -> {
+            List<String> lectura = new ArrayList<>(LECTURA_ASYNC);
+            for (int i = 0; i < LECTURA_ASYNC; i++) {
+                lectura.add(valores[r.nextInt(valores.length)]);
+            }
+            codigoAsync.getByValores(lectura).get();
+        });
+
+        escenarios.put("service.producto.actualizar", r -> {
+            Producto producto = productoDAO.getById(ids[r.nextInt(ids.length)]);
+            if (producto != null) {
+                producto.setStock(r.nextInt(1_000));
+                productoService.actualizar(producto);
+            }
+        });
+
+        escenarios.put("service.producto.ajustarStock", r ->
+                productoService.ajustarStock(ids[r.nextInt(ids.length)], r.nextBoolean() ? 1 : -1));
+        escenarios.put("service.producto.ajustarStockCoalescido", r ->
+                coalescedorStock.ajustarStock(ids[r.nextInt(ids.length)], r.nextBoolean() ? 1 : -1).get());
+
+        escenarios.put("service.producto.insertarConCodigoBarras", r -> {
+            long n = secuenciaAltas.incrementAndGet();
+            Producto producto = nuevoProducto(PREFIJO_ALTA + n, r);
+            CodigoBarras codigo = nuevoCodigo("22", n);
+            productoService.insertarConCodigoBarras(producto, codigo);
+        });
+
+        return escenarios;
+    }
+
+    // =========================================
+    // MÉTODOS DE MEDICIÓN
+    // =========================================
+
+    /**
+     * Ejecuta un escenario con N hilos: calentamiento y luego medición por tiempo.
+     * @param nombre Nombre del escenario
+     * @param operacion Operación a medir
+     * @param cantidadHilos Hilos concurrentes
+     * @return Throughput y percentiles de latencia de la medición
+     * @throws InterruptedException Si se interrumpe la espera de los hilos
+     */
+    private ResultadoBenchmark medir(String nombre, Operacion operacion, int cantidadHilos) throws InterruptedException {
+        if (calentamientoNanos > 0) {
+            correr(operacion, cantidadHilos, calentamientoNanos);
+        }
+        Medicion[] mediciones = correr(operacion, cantidadHilos, medicionNanos);
+
+        long operaciones = 0;
+        long errores = 0;
+        long bytesAsignados = 0;
+        int totalMuestras = 0;
+        for (Medicion m : mediciones) {
+            operaciones += m.operaciones;
+            errores += m.errores;
+            bytesAsignados = (bytesAsignados < 0 || m.bytesAsignados < 0) ? -1 : bytesAsignados + m.bytesAsignados;
+            totalMuestras += m.cantidadMuestras();
+        }
+        long intentos = operaciones + errores;
+
+        long[] muestras = new long[totalMuestras];
+        int pos = 0;
+        for (Medicion m : mediciones) {
+            System.arraycopy(m.muestras, 0, muestras, pos, m.cantidadMuestras());
+            pos += m.cantidadMuestras();
+        }
+        Arrays.sort(muestras);
+
+        double segundos = medicionNanos / 1_000_000_000.0;
+        return new ResultadoBenchmark(nombre, cantidadHilos, operaciones, errores, operaciones / segundos,
+                percentilUs(muestras, 0.50), percentilUs(muestras, 0.99), percentilUs(muestras, 0.999),
+                muestras.length == 0 ? 0 : muestras[muestras.length - 1] / 1_000.0,
+                (bytesAsignados < 0 || intentos == 0) ? -1 : (double) bytesAsignados / intentos);
+    }
+
+    /**
+     * Lanza los hilos, los libera juntos y los deja operar durante el tiempo indicado.
+     * @param operacion Operación a ejecutar en bucle
+     * @param cantidadHilos Hilos concurrentes
+     * @param duracionNanos Duración de la corrida
+     * @return Mediciones de cada hilo
+     * @throws InterruptedException Si se interrumpe la espera de los hilos
+     */
+    private Medicion[] correr(Operacion operacion, int cantidadHilos, long duracionNanos) throws InterruptedException {
+        Medicion[] mediciones = new Medicion[cantidadHilos];
+        Thread[] trabajadores = new Thread[cantidadHilos];
+        CountDownLatch largada = new CountDownLatch(1);
+        long[] fin = new long[1];
+
+        for (int i = 0; i < cantidadHilos; i++) {
+            Medicion medicion = new Medicion();
+            mediciones[i] = medicion;
+            trabajadores[i] = new Thread(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long limite = fin[0];
+                long asignadosInicio = bytesAsignadosHilo();
+                while (System.nanoTime() - limite < 0) {
+                    long inicio = System.nanoTime();
+                    try {
+                        operacion.ejecutar(aleatorio);
+                        medicion.registrar(System.nanoTime() - inicio, aleatorio);
+                    } catch (Exception e) {
+                        medicion.errores++;
+                    }
+                }
+                long asignadosFin = bytesAsignadosHilo();
+                medicion.bytesAsignados = (asignadosInicio < 0) ? -1 : asignadosFin - asignadosInicio;
+            }, "benchmark-" + i);
+            trabajadores[i].start();
+        }
+
+        fin[0] = System.nanoTime() + duracionNanos;
+        largada.countDown();
+        for (Thread t : trabajadores) {
+            t.join();
+        }
+        return mediciones;
+    }
+
+    /**
+     * @return Bytes asignados hasta ahora por el hilo actual, o -1 si la JVM no lo informa
+     */
+    private static long bytesAsignadosHilo() {
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        if (hilos instanceof com.sun.management.ThreadMXBean medidor
+                && medidor.isThreadAllocatedMemorySupported() && medidor.isThreadAllocatedMemoryEnabled()) {
+            return medidor.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * @param ordenadas Latencias en nanosegundos ordenadas
+     * @param percentil Percentil entre 0 y 1
+     * @return Latencia del percentil en microsegundos
+     */
+    private static double percentilUs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1_000.0;
+    }
+
+    private boolean seleccionado(String escenario) {
+        if (filtros.isEmpty()) {
+            return true;
+        }
+        for (String filtro : filtros) {
+            if (escenario.startsWith(filtro.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =========================================
+    // MÉTODOS DE DATOS
+    // =========================================
+
+    /**
+     * Completa los productos de prueba hasta la cantidad pedida y carga sus IDs y códigos.
+     * @throws Exception Si ocurre error de base de datos
+     */
+    private void precargar() throws Exception {
+        List<Long> listaIds = new ArrayList<>();
+        List<String> listaValores = new ArrayList<>();
+        productoService.forEachActivo(p -> {
+            if (p.getNombre().startsWith(PREFIJO_SEMILLA) && p.getCodigoBarras() != null) {
+                listaIds.add(p.getId());
+                listaValores.add(p.getCodigoBarras().getValor());
+            }
+        }, ProductoDAO.FETCH_SIZE_STREAMING);
+
+        long existentes = listaIds.size();
+        if (existentes < filas) {
+            System.out.println("✓ Cargando " + (filas - existentes) + " productos de prueba...");
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (long desde = existentes; desde < filas; desde += LOTE_SEMILLA) {
+                long hasta = Math.min(filas, desde + LOTE_SEMILLA);
+                List<Producto> productos = new ArrayList<>();
+                List<CodigoBarras> codigos = new ArrayList<>();
+                for (long n = desde; n < hasta; n++) {
+                    productos.add(nuevoProducto(PREFIJO_SEMILLA + n, aleatorio));
+                    codigos.add(nuevoCodigo("20", n));
+                }
+                productoService.insertarConCodigoBarrasLote(productos, codigos);
+                for (int i = 0; i < productos.size(); i++) {
+                    listaIds.add(productos.get(i).getId());
+                    listaValores.add(codigos.get(i).getValor());
+                }
+            }
+        }
+
+        if (listaIds.isEmpty()) {
+            throw new IllegalStateException("No hay productos de prueba cargados.");
+        }
+        ids = listaIds.stream().mapToLong(Long::longValue).toArray();
+        valores = listaValores.toArray(new String[0]);
+        System.out.println("✓ " + ids.length + " productos de prueba disponibles.");
+    }
+
+    /**
+     * Borra físicamente los productos y códigos creados por el escenario de altas.
+     * En memoria no hace falta: los datos no sobreviven a la corrida.
+     * @throws Exception Si ocurre error de base de datos
+     */
+    private void borrarAltas() throws Exception {
+        if (enMemoria) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE c FROM codigo_barras c JOIN producto p ON p.codigo_barras_id = c.id " +
+                               "WHERE p.nombre LIKE '" + PREFIJO_ALTA + "%'");
+            stmt.executeUpdate("DELETE FROM producto WHERE nombre LIKE '" + PREFIJO_ALTA + "%'");
+        }
+    }
+
+    private static Producto nuevoProducto(String nombre, ThreadLocalRandom aleatorio) {
+        Producto producto = new Producto(nombre, "Marca " + aleatorio.nextInt(100),
+                aleatorio.nextInt(100, 100_000) / 100.0, aleatorio.nextInt(1, 5_000) / 1_000.0,
+                aleatorio.nextInt(1_000), 0);
+        CategoriaProducto[] categorias = CategoriaProducto.values();
+        producto.setCategoria(categorias[aleatorio.nextInt(categorias.length)]);
+        return producto;
+    }
+
+    /**
+     * Crea un EAN-13 de circulación interna (prefijo 2x) con dígito verificador válido.
+     * @param prefijo Dos dígitos que separan semillas de altas
+     * @param numero Número de secuencia (hasta 10 dígitos)
+     * @return Código de barras listo para insertar
+     */
+    private static CodigoBarras nuevoCodigo(String prefijo, long numero) {
+        String base = prefijo + String.format("%010d", numero);
+        int verificador = ValidadorCodigoBarras.digitoVerificador(base);
+        return new CodigoBarras(0, false, EnumTipo.EAN13, base + verificador, LocalDate.now(), "Benchmark");
+    }
+
+    // =========================================
+    // SALIDA
+    // =========================================
+
+    /**
+     * Escribe los resultados como JSON con datos del entorno para comparar corridas.
+     * @param archivo Archivo de salida (se sobrescribe)
+     * @param etiqueta Texto libre que identifica la corrida
+     * @param resultados Resultados a guardar
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    private void escribirJson(Path archivo, String etiqueta, List<ResultadoBenchmark> resultados) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"etiqueta\": \"").append(etiqueta.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        sb.append("  \"fecha\": \"").append(Instant.now()).append("\",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"procesadores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"filas\": ").append(ids.length).append(",\n");
+        sb.append("  \"medicionSeg\": ").append(medicionNanos / 1_000_000_000L).append(",\n");
+        sb.append("  \"resultados\": [\n");
+        for (int i = 0; i < resultados.size(); i++) {
+            sb.append("    ").append(resultados.get(i).toJson());
+            sb.append(i < resultados.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.write(archivo, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Contadores y muestras de latencia de un hilo. Solo la escribe su propio hilo.
+     */
+    private static final class Medicion {
+
+        private final long[] muestras = new long[MUESTRAS_POR_HILO];
+        private long operaciones;
+        private long errores;
+
+        /** Bytes asignados por el hilo durante la corrida, o -1 si no se pudo medir */
+        private long bytesAsignados;
+
+        /**
+         * Registra una latencia; pasado el cupo, reemplaza muestras al azar
+         * para que todas las operaciones tengan la misma probabilidad de quedar.
+         */
+        private void registrar(long nanos, ThreadLocalRandom aleatorio) {
+            if (operaciones < MUESTRAS_POR_HILO) {
+                muestras[(int) operaciones] = nanos;
+            } else {
+                long j = aleatorio.nextLong(operaciones + 1);
+                if (j < MUESTRAS_POR_HILO) {
+                    muestras[(int) j] = nanos;
+                }
+            }
+            operaciones++;
+        }
+
+        private int cantidadMuestras() {
+            return (int) Math.min(operaciones, MUESTRAS_POR_HILO);
+        }
+    }
+}
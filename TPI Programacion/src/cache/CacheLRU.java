@@ -0,0 +1,320 @@
+package cache;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import metricas.RegistroMetricas;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché en memoria de lectura directa (read-through) con capacidad acotada y desalojo LRU.
+ * Admite expiración opcional por tiempo y caché de ausencias (claves que no existen en la fuente).
+ *
+ * Las cargas se ejecutan fuera del bloqueo. Si ocurre una invalidación mientras una carga
+ * está en curso, el valor cargado se devuelve pero no se guarda, para no cachear datos viejos.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor cacheado
+ */
+public class CacheLRU<K, V> {
+
+    // =========================================
+    // TIPOS
+    // =========================================
+
+    /**
+     * Función que obtiene un valor desde la fuente de datos ante un fallo de caché.
+     *
+     * @param <K> Tipo de la clave
+     * @param <V> Tipo del valor
+     */
+    @FunctionalInterface
+    public interface Cargador<K, V> {
+        /**
+         * @param clave Clave a cargar
+         * @return Valor encontrado o null si no existe
+         * @throws Exception Si ocurre error al acceder a la fuente
+         */
+        V cargar(K clave) throws Exception;
+    }
+
+    /**
+     * Función que obtiene varios valores desde la fuente en una sola operación.
+     *
+     * @param <K> Tipo de la clave
+     * @param <V> Tipo del valor
+     */
+    @FunctionalInterface
+    public interface CargadorMultiple<K, V> {
+        /**
+         * @param claves Claves a cargar, sin repetir
+         * @return Valores encontrados por clave; las claves ausentes pueden faltar o tener null
+         * @throws Exception Si ocurre error al acceder a la fuente
+         */
+        Map<K, V> cargar(List<K> claves) throws Exception;
+    }
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final int capacidad;
+    private final long ttlNanos;
+    private final long ttlAusentesNanos;
+    private final UnaryOperator<V> copiador;
+
+    /** Mapa en orden de acceso: el primero es el menos usado recientemente */
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    /** Se incrementa en cada invalidación para descartar cargas concurrentes */
+    private long generacion;
+
+    private long aciertos;
+    private long fallos;
+    private long aciertosAusentes;
+    private long desalojos;
+    private long expiraciones;
+    private long invalidaciones;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea la caché.
+     *
+     * @param capacidad Cantidad máxima de entradas; 0 desactiva la caché
+     * @param ttlMs Vida de una entrada en milisegundos; 0 para no expirar
+     * @param ttlAusentesMs Vida de una entrada de ausencia; 0 para no cachear ausencias
+     * @param copiador Copia aplicada al guardar y al devolver, o null para compartir instancias
+     * @throws IllegalArgumentException Si algún valor es negativo
+     */
+    public CacheLRU(int capacidad, long ttlMs, long ttlAusentesMs, UnaryOperator<V> copiador) {
+        if (capacidad < 0 || ttlMs < 0 || ttlAusentesMs < 0) {
+            throw new IllegalArgumentException("Capacidad y tiempos de vida no pueden ser negativos");
+        }
+        this.capacidad = capacidad;
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.ttlAusentesNanos = ttlAusentesMs * 1_000_000;
+        this.copiador = copiador;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Obtiene el valor de la clave, cargándolo desde la fuente si no está en caché.
+     *
+     * @param clave Clave a buscar
+     * @param cargador Acceso a la fuente usado ante un fallo
+     * @return Valor encontrado o null si no existe
+     * @throws Exception Si el cargador falla
+     */
+    public V obtener(K clave, Cargador<K, V> cargador) throws Exception {
+        if (capacidad == 0) {
+            return cargador.cargar(clave);
+        }
+
+        long generacionInicial;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (entrada.expiraEn != 0 && System.nanoTime() - entrada.expiraEn > 0) {
+                    entradas.remove(clave);
+                    expiraciones++;
+                } else {
+                    aciertos++;
+                    if (entrada.valor == null) {
+                        aciertosAusentes++;
+                        return null;
+                    }
+                    return copiar(entrada.valor);
+                }
+            }
+            fallos++;
+            generacionInicial = generacion;
+        }
+
+        V cargado = cargador.cargar(clave);
+
+        synchronized (this) {
+            if (generacion == generacionInicial && (cargado != null || ttlAusentesNanos > 0)) {
+                long ttl = (cargado != null) ? ttlNanos : ttlAusentesNanos;
+                long expiraEn = (ttl == 0) ? 0 : (System.nanoTime() + ttl) | 1;
+                entradas.put(clave, new Entrada<>(copiar(cargado), expiraEn));
+                desalojarExcedente();
+            }
+        }
+        return copiar(cargado);
+    }
+
+    /**
+     * Obtiene los valores de varias claves, cargando todas las que falten en una sola llamada.
+     *
+     * @param claves Claves a buscar
+     * @param cargador Acceso a la fuente usado para el conjunto de fallos
+     * @return Mapa por clave en el orden pedido; las claves inexistentes quedan con valor null
+     * @throws Exception Si el cargador falla
+     */
+    public Map<K, V> obtenerTodos(Collection<K> claves, CargadorMultiple<K, V> cargador) throws Exception {
+        Map<K, V> resultado = new LinkedHashMap<>(claves.size() * 2);
+        List<K> faltantes = new ArrayList<>();
+        long generacionInicial;
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            for (K clave : claves) {
+                if (resultado.containsKey(clave)) {
+                    continue;
+                }
+                Entrada<V> entrada = (capacidad == 0) ? null : entradas.get(clave);
+                if (entrada != null && entrada.expiraEn != 0 && ahora - entrada.expiraEn > 0) {
+                    entradas.remove(clave);
+                    expiraciones++;
+                    entrada = null;
+                }
+                if (entrada != null) {
+                    aciertos++;
+                    if (entrada.valor == null) {
+                        aciertosAusentes++;
+                    }
+                    resultado.put(clave, copiar(entrada.valor));
+                } else {
+                    fallos++;
+                    resultado.put(clave, null);
+                    faltantes.add(clave);
+                }
+            }
+            generacionInicial = generacion;
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+
+        Map<K, V> cargados = cargador.cargar(faltantes);
+
+        synchronized (this) {
+            boolean guardar = (capacidad > 0 && generacion == generacionInicial);
+            for (K clave : faltantes) {
+                V cargado = cargados.get(clave);
+                if (guardar && (cargado != null || ttlAusentesNanos > 0)) {
+                    long ttl = (cargado != null) ? ttlNanos : ttlAusentesNanos;
+                    long expiraEn = (ttl == 0) ? 0 : (System.nanoTime() + ttl) | 1;
+                    entradas.put(clave, new Entrada<>(copiar(cargado), expiraEn));
+                }
+                resultado.put(clave, copiar(cargado));
+            }
+            if (guardar) {
+                desalojarExcedente();
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Elimina la entrada de una clave (presente o ausente).
+     *
+     * @param clave Clave a invalidar
+     */
+    public synchronized void invalidar(K clave) {
+        generacion++;
+        invalidaciones++;
+        entradas.remove(clave);
+    }
+
+    /**
+     * Elimina las entradas cuyo valor cumple la condición. Recorre toda la caché.
+     *
+     * @param condicion Condición evaluada sobre valores no nulos
+     */
+    public synchronized void invalidarSi(Predicate<V> condicion) {
+        generacion++;
+        invalidaciones++;
+        entradas.values().removeIf(e -> e.valor != null && condicion.test(e.valor));
+    }
+
+    /**
+     * Vacía la caché por completo.
+     */
+    public synchronized void limpiar() {
+        generacion++;
+        invalidaciones++;
+        entradas.clear();
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de uso.
+     *
+     * @return Aciertos, fallos, desalojos y tamaño actual
+     */
+    public synchronized CacheStats estadisticas() {
+        return new CacheStats(entradas.size(), capacidad, aciertos, fallos, aciertosAusentes,
+                desalojos, expiraciones, invalidaciones);
+    }
+
+    /**
+     * Publica el tamaño, los aciertos, los fallos y los desalojos de la caché como
+     * indicadores de {@link RegistroMetricas}.
+     *
+     * @param prefijo Prefijo de los nombres, por ejemplo "cache.producto"
+     */
+    public void publicarIndicadores(String prefijo) {
+        RegistroMetricas.registrarIndicador(prefijo + ".tamanio", () -> estadisticas().getTamanio());
+        RegistroMetricas.registrarIndicador(prefijo + ".aciertos", () -> estadisticas().getAciertos());
+        RegistroMetricas.registrarIndicador(prefijo + ".fallos", () -> estadisticas().getFallos());
+        RegistroMetricas.registrarIndicador(prefijo + ".tasaAciertos", () -> estadisticas().getTasaAciertos());
+        RegistroMetricas.registrarIndicador(prefijo + ".desalojos", () -> estadisticas().getDesalojos());
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Desaloja las entradas menos usadas recientemente hasta respetar la capacidad.
+     * Debe llamarse con el bloqueo tomado.
+     */
+    private void desalojarExcedente() {
+        Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+        while (entradas.size() > capacidad && it.hasNext()) {
+            it.next();
+            it.remove();
+            desalojos++;
+        }
+    }
+
+    private V copiar(V valor) {
+        return (valor == null || copiador == null) ? valor : copiador.apply(valor);
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Valor cacheado (null representa ausencia) y su instante de expiración (0 = nunca).
+     */
+    private static final class Entrada<V> {
+
+        private final V valor;
+        private final long expiraEn;
+
+        private Entrada(V valor, long expiraEn) {
+            this.valor = valor;
+            this.expiraEn = expiraEn;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package cache;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Instantánea inmutable de las estadísticas de una {@link CacheLRU}.
+ */
+public class CacheStats {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final int tamanio;
+    private final int capacidad;
+    private final long aciertos;
+    private final long fallos;
+    private final long aciertosAusentes;
+    private final long desalojos;
+    private final long expiraciones;
+    private final long invalidaciones;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Constructor completo de la instantánea.
+     * @param tamanio Entradas actuales
+     * @param capacidad Capacidad máxima configurada
+     * @param aciertos Búsquedas resueltas desde la caché (incluye ausencias)
+     * @param fallos Búsquedas que requirieron ir a la fuente
+     * @param aciertosAusentes Aciertos sobre claves cacheadas como inexistentes
+     * @param desalojos Entradas descartadas por capacidad
+     * @param expiraciones Entradas descartadas por tiempo de vida
+     * @param invalidaciones Invalidaciones recibidas por escrituras
+     */
+    public CacheStats(int tamanio, int capacidad, long aciertos, long fallos, long aciertosAusentes,
+                      long desalojos, long expiraciones, long invalidaciones) {
+        this.tamanio = tamanio;
+        this.capacidad = capacidad;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.aciertosAusentes = aciertosAusentes;
+        this.desalojos = desalojos;
+        this.expiraciones = expiraciones;
+        this.invalidaciones = invalidaciones;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Entradas actuales
+     */
+    public int getTamanio() {
+        return tamanio;
+    }
+
+    /**
+     * @return Capacidad máxima configurada
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * @return Búsquedas resueltas desde la caché
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * @return Búsquedas que requirieron ir a la fuente
+     */
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * @return Aciertos sobre claves cacheadas como inexistentes
+     */
+    public long getAciertosAusentes() {
+        return aciertosAusentes;
+    }
+
+    /**
+     * @return Entradas descartadas por capacidad
+     */
+    public long getDesalojos() {
+        return desalojos;
+    }
+
+    /**
+     * @return Entradas descartadas por tiempo de vida
+     */
+    public long getExpiraciones() {
+        return expiraciones;
+    }
+
+    /**
+     * @return Invalidaciones recibidas
+     */
+    public long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    /**
+     * @return Proporción de aciertos sobre el total de búsquedas (0 a 1)
+     */
+    public double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : aciertos / (double) total;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Representación en texto de las estadísticas
+     */
+    @Override
+    public String toString() {
+        return String.format("Cache[tamaño=%d/%d, aciertos=%d (ausentes=%d), fallos=%d, tasa=%.1f%%, "
+                + "desalojos=%d, expiraciones=%d, invalidaciones=%d]",
+                tamanio, capacidad, aciertos, aciertosAusentes, fallos, getTasaAciertos() * 100,
+                desalojos, expiraciones, invalidaciones);
+    }
+}
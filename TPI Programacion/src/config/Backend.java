@@ -0,0 +1,34 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.util.Locale;
+
+/**
+ * Almacenamiento de datos de la aplicación, elegido al iniciar con -Dtpi.backend=jdbc|memoria.
+ */
+public enum Backend {
+    /** Base de datos MySQL/MariaDB mediante JDBC (por defecto) */
+    JDBC,
+    /** Datos en memoria del proceso, sin base de datos; se pierden al salir */
+    MEMORIA;
+
+    /**
+     * Lee el backend configurado en la propiedad del sistema tpi.backend.
+     * @return Backend configurado, JDBC si no se indicó
+     * @throws IllegalArgumentException Si el valor no corresponde a ningún backend
+     */
+    public static Backend configurado() {
+        String valor = System.getProperty("tpi.backend", "jdbc").trim();
+        try {
+            return Backend.valueOf(valor.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Backend desconocido: " + valor + " (usar jdbc o memoria)");
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Envoltorios de conexión y sentencias que miden cada ejecución.
+ *
+ * Las sentencias creadas por la conexión envuelta registran en {@link RegistroConsultasLentas}
+ * el SQL, los parámetros enlazados, el tamaño del lote, las filas y la duración de cada
+ * ejecución. En las consultas la duración incluye el tiempo dentro de {@code ResultSet.next()}
+ * (la lectura de filas desde el servidor) pero no el del código que procesa cada fila;
+ * se registran al cerrar el ResultSet o la sentencia.
+ */
+final class ConexionInstrumentada {
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private ConexionInstrumentada() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    /**
+     * Envuelve una conexión. Cerrar el envoltorio cierra (o devuelve al pool) la conexión real.
+     * @param conexion Conexión a envolver
+     * @param registro Destino de las mediciones
+     * @return Conexión que crea sentencias instrumentadas
+     */
+    static Connection envolver(Connection conexion, RegistroConsultasLentas registro) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "ConexionInstrumentada[" + conexion + "]";
+                        }
+                        default -> {
+                            Object resultado = invocar(conexion, method, args);
+                            if (resultado instanceof Statement sentencia) {
+                                String sql = (args != null && args.length > 0 && args[0] instanceof String texto) ? texto : null;
+                                return envolverSentencia(sentencia, method.getReturnType(), sql, registro);
+                            }
+                            return resultado;
+                        }
+                    }
+                });
+    }
+
+    private static Object envolverSentencia(Statement sentencia, Class<?> tipo, String sql, RegistroConsultasLentas registro) {
+        Class<?> interfaz = CallableStatement.class.isAssignableFrom(tipo) ? CallableStatement.class
+                : PreparedStatement.class.isAssignableFrom(tipo) ? PreparedStatement.class
+                : Statement.class;
+        return Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{interfaz},
+                new ManejadorSentencia(sentencia, sql, registro));
+    }
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Mide las ejecuciones de una sentencia. Una consulta queda pendiente hasta que se
+     * cierra su ResultSet, la sentencia o se ejecuta otra vez la sentencia.
+     */
+    private static final class ManejadorSentencia implements InvocationHandler {
+
+        private final Statement sentencia;
+        private final RegistroConsultasLentas registro;
+
+        /** SQL preparado; en sentencias simples, el de la última ejecución */
+        private String sql;
+
+        /** Mayor índice de parámetro enlazado desde el último clearParameters */
+        private int parametros;
+
+        /** Ejecuciones agregadas al lote en curso */
+        private int lote;
+
+        /** Consulta cuyo ResultSet sigue abierto */
+        private boolean consultaPendiente;
+        private long nanosConsulta;
+        private long filasConsulta;
+
+        private ManejadorSentencia(Statement sentencia, String sql, RegistroConsultasLentas registro) {
+            this.sentencia = sentencia;
+            this.sql = sql;
+            this.registro = registro;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            switch (nombre) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "SentenciaInstrumentada[" + sentencia + "]";
+                }
+                case "close" -> {
+                    terminarConsulta();
+                    return invocar(sentencia, method, args);
+                }
+                case "clearParameters" -> parametros = 0;
+                case "addBatch" -> {
+                    lote++;
+                    if (args != null && args.length == 1 && sql == null) {
+                        sql = (String) args[0];
+                    }
+                }
+                case "clearBatch" -> lote = 0;
+                default -> {
+                    if (nombre.startsWith("execute")) {
+                        return ejecutar(method, args);
+                    }
+                    if (nombre.startsWith("set") && method.getDeclaringClass() != Statement.class
+                            && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                        parametros = Math.max(parametros, indice);
+                    }
+                }
+            }
+            return invocar(sentencia, method, args);
+        }
+
+        private Object ejecutar(Method method, Object[] args) throws Throwable {
+            terminarConsulta();
+            String sqlEjecutado = (args != null && args.length > 0 && args[0] instanceof String texto) ? texto : sql;
+            if (sqlEjecutado != null) {
+                sql = sqlEjecutado;
+            }
+            boolean esLote = method.getName().endsWith("Batch");
+            int ejecuciones = esLote ? lote : 1;
+
+            long inicio = System.nanoTime();
+            Object resultado;
+            try {
+                resultado = invocar(sentencia, method, args);
+            } catch (Throwable e) {
+                registro.contarError();
+                registro.registrar(String.valueOf(sql), parametros, ejecuciones, -1, System.nanoTime() - inicio);
+                throw e;
+            } finally {
+                if (esLote) {
+                    lote = 0;
+                }
+            }
+            long nanos = System.nanoTime() - inicio;
+
+            if (resultado instanceof ResultSet filas) {
+                consultaPendiente = true;
+                nanosConsulta = nanos;
+                filasConsulta = 0;
+                return envolverResultado(filas);
+            }
+            registro.registrar(String.valueOf(sql), parametros, ejecuciones, filasAfectadas(resultado), nanos);
+            return resultado;
+        }
+
+        private Object envolverResultado(ResultSet filas) {
+            return Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next" -> {
+                                long inicio = System.nanoTime();
+                                boolean hay = (Boolean) invocar(filas, method, args);
+                                nanosConsulta += System.nanoTime() - inicio;
+                                if (hay) {
+                                    filasConsulta++;
+                                }
+                                return hay;
+                            }
+                            case "close" -> {
+                                Object resultado = invocar(filas, method, args);
+                                terminarConsulta();
+                                return resultado;
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            default -> {
+                                return invocar(filas, method, args);
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Registra la consulta pendiente, si la hay.
+         */
+        private void terminarConsulta() {
+            if (consultaPendiente) {
+                consultaPendiente = false;
+                registro.registrar(String.valueOf(sql), parametros, 1, filasConsulta, nanosConsulta);
+            }
+        }
+
+        /**
+         * @return Filas afectadas según el resultado de un execute; -1 si no se conocen
+         */
+        private static long filasAfectadas(Object resultado) {
+            if (resultado instanceof Integer n) {
+                return n;
+            }
+            if (resultado instanceof Long n) {
+                return n;
+            }
+            long total = 0;
+            if (resultado instanceof int[] cuentas) {
+                for (int cuenta : cuentas) {
+                    if (cuenta < 0) {
+                        return -1;
+                    }
+                    total += cuenta;
+                }
+                return total;
+            }
+            if (resultado instanceof long[] cuentas) {
+                for (long cuenta : cuentas) {
+                    if (cuenta < 0) {
+                        return -1;
+                    }
+                    total += cuenta;
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+}
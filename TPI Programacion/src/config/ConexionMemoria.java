@@ -0,0 +1,84 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conexión sin base de datos para el backend en memoria.
+ * Acepta el control de transacciones que hacen los servicios (autocommit, commit, rollback,
+ * close) sin efecto; cualquier intento de ejecutar SQL falla, lo que detecta código que
+ * quedó atado a JDBC cuando se usa el backend en memoria.
+ */
+final class ConexionMemoria {
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private ConexionMemoria() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    /**
+     * Crea una conexión en memoria nueva.
+     * @return Conexión que solo admite operaciones de control de transacción
+     */
+    static Connection crear() {
+        AtomicBoolean cerrada = new AtomicBoolean(false);
+        boolean[] autoCommit = {true};
+        boolean[] soloLectura = {false};
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> invocar(proxy, method, args, cerrada, autoCommit, soloLectura));
+    }
+
+    private static Object invocar(Object proxy, Method method, Object[] args, AtomicBoolean cerrada,
+                                  boolean[] autoCommit, boolean[] soloLectura) throws SQLFeatureNotSupportedException {
+        switch (method.getName()) {
+            case "close" -> cerrada.set(true);
+            case "isClosed" -> {
+                return cerrada.get();
+            }
+            case "isValid" -> {
+                return !cerrada.get();
+            }
+            case "setAutoCommit" -> autoCommit[0] = (Boolean) args[0];
+            case "getAutoCommit" -> {
+                return autoCommit[0];
+            }
+            case "setReadOnly" -> soloLectura[0] = (Boolean) args[0];
+            case "isReadOnly" -> {
+                return soloLectura[0];
+            }
+            case "commit", "rollback", "setTransactionIsolation", "clearWarnings" -> {
+                // Sin efecto: cada operación del backend en memoria ya es atómica
+            }
+            case "getWarnings" -> {
+                return null;
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "toString" -> {
+                return "ConexionMemoria";
+            }
+            default -> throw new SQLFeatureNotSupportedException(
+                    "Operación JDBC no disponible con el backend en memoria: " + method.getName());
+        }
+        return null;
+    }
+}
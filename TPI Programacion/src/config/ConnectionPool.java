@@ -0,0 +1,448 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * Reutiliza conexiones físicas, las valida al prestarlas, descarta las inactivas
+ * y detecta conexiones que no fueron devueltas (fugas).
+ *
+ * Una conexión que tuvo un error de comunicación (SQLState 08) o que se devuelve desde un
+ * hilo interrumpido se descarta en lugar de volver al pool: en un hilo virtual, interrumpir
+ * una tarea bloqueada en el socket (por ejemplo al cancelar su futuro) cierra ese socket.
+ */
+public class ConnectionPool {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minimo;
+    private final int maximo;
+    private final long timeoutPrestamoMs;
+    private final long tiempoInactividadMs;
+    private final long umbralFugaMs;
+
+    /** Captura la pila de cada préstamo para mostrar dónde se obtuvo una conexión fugada */
+    private final boolean rastrearOrigen;
+
+    /** Conexiones físicas libres, se reutiliza primero la más reciente (LIFO) */
+    private final LinkedBlockingDeque<Entrada> inactivas = new LinkedBlockingDeque<>();
+
+    /** Conexiones actualmente prestadas */
+    private final Set<Entrada> prestadas = ConcurrentHashMap.newKeySet();
+
+    /** Limita la cantidad total de conexiones físicas abiertas */
+    private final Semaphore permisos;
+
+    private final AtomicInteger totales = new AtomicInteger();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder nanosPrestamo = new LongAdder();
+    private final AtomicLong maxNanosPrestamo = new AtomicLong();
+    private final LongAdder fugasDetectadas = new LongAdder();
+
+    private final ScheduledExecutorService mantenimiento;
+    private final AtomicBoolean cerrado = new AtomicBoolean(false);
+
+    // =========================================
+    // CREACIÓN
+    // =========================================
+
+    /**
+     * Crea el pool sin abrir conexiones y programa su mantenimiento periódico;
+     * usar {@link #precargar()} para llenarlo.
+     *
+     * @param url URL JDBC de la base de datos
+     * @param user Usuario de la base de datos
+     * @param password Contraseña del usuario
+     * @param minimo Cantidad mínima de conexiones a mantener abiertas
+     * @param maximo Cantidad máxima de conexiones abiertas simultáneamente
+     * @param timeoutPrestamoMs Espera máxima para obtener una conexión
+     * @param tiempoInactividadMs Tiempo tras el cual una conexión libre se cierra (si sobra)
+     * @param umbralFugaMs Tiempo prestada tras el cual se reporta posible fuga (0 = desactivado)
+     * @param rastrearOrigen true para capturar la pila de cada préstamo y mostrarla al reportar
+     *        una fuga; cuesta una pila por préstamo, por eso sin activarlo solo se guarda la hora
+     * @return Pool creado
+     * @throws IllegalArgumentException Si los tamaños son inválidos
+     */
+    public static ConnectionPool crear(String url, String user, String password, int minimo, int maximo,
+                                       long timeoutPrestamoMs, long tiempoInactividadMs, long umbralFugaMs,
+                                       boolean rastrearOrigen) {
+        ConnectionPool pool = new ConnectionPool(url, user, password, minimo, maximo,
+                timeoutPrestamoMs, tiempoInactividadMs, umbralFugaMs, rastrearOrigen);
+        // El mantenimiento se programa con el pool ya construido, no desde el constructor
+        long periodoMs = Math.max(1000, Math.min(tiempoInactividadMs, 30000) / 2);
+        pool.mantenimiento.scheduleWithFixedDelay(pool::mantener, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+        return pool;
+    }
+
+    private ConnectionPool(String url, String user, String password, int minimo, int maximo,
+                           long timeoutPrestamoMs, long tiempoInactividadMs, long umbralFugaMs,
+                           boolean rastrearOrigen) {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: minimo=" + minimo + ", maximo=" + maximo);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.timeoutPrestamoMs = timeoutPrestamoMs;
+        this.tiempoInactividadMs = tiempoInactividadMs;
+        this.umbralFugaMs = umbralFugaMs;
+        this.rastrearOrigen = rastrearOrigen && umbralFugaMs > 0;
+        this.permisos = new Semaphore(maximo, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Abre conexiones hasta alcanzar el mínimo configurado.
+     *
+     * @throws SQLException Si no se puede abrir alguna conexión
+     */
+    public void precargar() throws SQLException {
+        while (totales.get() < minimo && totales.get() < maximo && !cerrado.get()) {
+            inactivas.offerLast(crearEntrada());
+        }
+    }
+
+    /**
+     * Presta una conexión validada. Cerrarla la devuelve al pool.
+     *
+     * @return Conexión lista para usar
+     * @throws SQLException Si se agota el tiempo de espera o la conexión falla
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(null);
+    }
+
+    /**
+     * Presta una conexión validada y avisa cuando se devuelve.
+     *
+     * @param alDevolver Acción a ejecutar una sola vez al cerrar la conexión prestada, o null
+     * @return Conexión lista para usar
+     * @throws SQLException Si se agota el tiempo de espera o la conexión falla
+     */
+    public Connection getConnection(Runnable alDevolver) throws SQLException {
+        if (cerrado.get()) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+        long inicio = System.nanoTime();
+
+        esperando.incrementAndGet();
+        boolean adquirido;
+        try {
+            adquirido = permisos.tryAcquire(timeoutPrestamoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool.", e);
+        } finally {
+            esperando.decrementAndGet();
+        }
+        if (!adquirido) {
+            throw new SQLException("Tiempo de espera agotado (" + timeoutPrestamoMs + " ms) para obtener una conexión. "
+                    + estadisticas());
+        }
+
+        try {
+            Entrada entrada = obtenerEntradaValida();
+            entrada.prestar(rastrearOrigen);
+            prestadas.add(entrada);
+
+            long nanos = System.nanoTime() - inicio;
+            prestamos.increment();
+            nanosPrestamo.add(nanos);
+            maxNanosPrestamo.accumulateAndGet(nanos, Math::max);
+
+            return entrada.crearProxy(alDevolver);
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas del pool.
+     *
+     * @return Estadísticas actuales
+     */
+    public PoolStats estadisticas() {
+        long cantidad = prestamos.sum();
+        double promedioMs = cantidad == 0 ? 0 : (nanosPrestamo.sum() / (double) cantidad) / 1_000_000.0;
+        return new PoolStats(prestadas.size(), inactivas.size(), esperando.get(), totales.get(), maximo,
+                cantidad, promedioMs, maxNanosPrestamo.get() / 1_000_000.0, fugasDetectadas.sum());
+    }
+
+    /**
+     * Cierra todas las conexiones libres y detiene el mantenimiento.
+     * Las conexiones prestadas se cierran físicamente al devolverse.
+     */
+    public void cerrar() {
+        if (!cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        mantenimiento.shutdownNow();
+        Entrada entrada;
+        while ((entrada = inactivas.pollFirst()) != null) {
+            descartar(entrada);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Toma una conexión libre válida o abre una nueva si no hay.
+     */
+    private Entrada obtenerEntradaValida() throws SQLException {
+        Entrada entrada;
+        while ((entrada = inactivas.pollFirst()) != null) {
+            if (entrada.esValida()) {
+                return entrada;
+            }
+            descartar(entrada);
+        }
+        return crearEntrada();
+    }
+
+    private Entrada crearEntrada() throws SQLException {
+        Connection fisica = DriverManager.getConnection(url, user, password);
+        totales.incrementAndGet();
+        return new Entrada(fisica);
+    }
+
+    /**
+     * Devuelve una conexión al pool restaurando su estado por defecto.
+     */
+    private void devolver(Entrada entrada) {
+        if (!prestadas.remove(entrada)) {
+            return;
+        }
+        try {
+            boolean reutilizable = !cerrado.get() && !entrada.rota && entrada.restablecer();
+            if (reutilizable) {
+                entrada.ultimoUso = System.nanoTime();
+                inactivas.offerFirst(entrada);
+            } else {
+                descartar(entrada);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void descartar(Entrada entrada) {
+        totales.decrementAndGet();
+        try {
+            entrada.fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión del pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tarea periódica: desaloja inactivas, repone el mínimo y reporta fugas.
+     */
+    private void mantener() {
+        try {
+            long ahora = System.nanoTime();
+            long limiteInactividad = TimeUnit.MILLISECONDS.toNanos(tiempoInactividadMs);
+            Iterator<Entrada> it = inactivas.descendingIterator();
+            while (it.hasNext() && totales.get() > minimo) {
+                Entrada entrada = it.next();
+                if (ahora - entrada.ultimoUso > limiteInactividad && inactivas.remove(entrada)) {
+                    descartar(entrada);
+                }
+            }
+
+            precargar();
+
+            if (umbralFugaMs > 0) {
+                long limiteFuga = TimeUnit.MILLISECONDS.toNanos(umbralFugaMs);
+                for (Entrada entrada : prestadas) {
+                    if (!entrada.fugaReportada && ahora - entrada.prestadaDesde > limiteFuga) {
+                        entrada.fugaReportada = true;
+                        fugasDetectadas.increment();
+                        System.err.println("⚠ Posible fuga: conexión prestada hace más de " + umbralFugaMs + " ms sin devolverse.");
+                        if (entrada.origen != null) {
+                            entrada.origen.printStackTrace();
+                        } else {
+                            System.err.println("  Origen no registrado: activar el rastreo de origen del pool para verlo.");
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error en mantenimiento del pool: " + e.getMessage());
+        }
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Conexión física administrada por el pool junto a su estado de préstamo.
+     */
+    private final class Entrada {
+
+        private final Connection fisica;
+        private volatile long ultimoUso = System.nanoTime();
+        private volatile long prestadaDesde;
+        private volatile boolean fugaReportada;
+        private volatile Throwable origen;
+
+        /** Tuvo un error de comunicación o se usó desde un hilo interrumpido: no se reutiliza */
+        private volatile boolean rota;
+
+        private Entrada(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        private void prestar(boolean registrarOrigen) {
+            prestadaDesde = System.nanoTime();
+            fugaReportada = false;
+            origen = registrarOrigen ? new Throwable("Conexión obtenida aquí") : null;
+        }
+
+        private boolean esValida() {
+            try {
+                return !fisica.isClosed() && fisica.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Deshace transacciones pendientes y vuelve a autocommit.
+         * @return false si la conexión quedó inutilizable
+         */
+        private boolean restablecer() {
+            try {
+                if (fisica.isClosed()) {
+                    return false;
+                }
+                if (!fisica.getAutoCommit()) {
+                    fisica.rollback();
+                    fisica.setAutoCommit(true);
+                }
+                if (fisica.isReadOnly()) {
+                    fisica.setReadOnly(false);
+                }
+                fisica.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private Connection crearProxy(Runnable alDevolver) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Manejador(this, alDevolver));
+        }
+    }
+
+    /**
+     * Intercepta close() para devolver la conexión en lugar de cerrarla.
+     * Cada préstamo tiene su propio manejador, por lo que un proxy ya cerrado
+     * no puede afectar a un préstamo posterior de la misma conexión física.
+     */
+    private final class Manejador implements InvocationHandler {
+
+        private final Entrada entrada;
+        private final Runnable alDevolver;
+        private final AtomicBoolean devuelta = new AtomicBoolean(false);
+
+        private Manejador(Entrada entrada, Runnable alDevolver) {
+            this.entrada = entrada;
+            this.alDevolver = alDevolver;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (Thread.currentThread().isInterrupted()) {
+                        entrada.rota = true;
+                    }
+                    if (devuelta.compareAndSet(false, true)) {
+                        devolver(entrada);
+                        if (alDevolver != null) {
+                            alDevolver.run();
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return devuelta.get() || entrada.fisica.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "ConexionPool[" + entrada.fisica + "]";
+                }
+                default -> {
+                    if (devuelta.get()) {
+                        throw new SQLException("La conexión ya fue devuelta al pool.");
+                    }
+                }
+            }
+            try {
+                return method.invoke(entrada.fisica, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof SQLException sql && (Thread.currentThread().isInterrupted()
+                        || (sql.getSQLState() != null && sql.getSQLState().startsWith("08")))) {
+                    entrada.rota = true;
+                }
+                throw causa;
+            }
+        }
+    }
+}
@@ -7,14 +7,32 @@ package config;
  * @author Gaston Alberto Cejas
  */
 
+import metricas.RegistroMetricas;
+import model.Producto;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Maneja conexión y configuración de base de datos MySQL/MariaDB.
  * Proporciona inicialización automática de base de datos y tablas.
+ *
+ * Con réplicas de lectura configuradas (-Dtpi.db.replicas=host:puerto,...) las escrituras
+ * usan la base primaria ({@link #getConnection()}) y las lecturas fuera de una transacción
+ * se reparten entre las réplicas sanas ({@link #getConnectionLectura()}).
  */
 public class DatabaseConnection {
 
@@ -22,11 +40,75 @@ public class DatabaseConnection {
     // CONFIGURACIÓN DE CONEXIÓN
     // =========================================
     
-    private static final String DB_NAME = "depositotpi";
-    private static final String HOST = "localhost";
-    private static final String PORT = "3306";
-    private static final String USER = "root";
-    private static final String PASSWORD = ""; // ← CONFIGURAR AQUÍ CONTRASEÑA LOCAL
+    // Cada valor puede reemplazarse con una propiedad del sistema (-Dtpi.db.nombre=...),
+    // por ejemplo para que los benchmarks trabajen sobre una base separada.
+    private static final String DB_NAME = System.getProperty("tpi.db.nombre", "depositotpi");
+    private static final String HOST = System.getProperty("tpi.db.host", "localhost");
+    private static final String PORT = System.getProperty("tpi.db.puerto", "3306");
+    private static final String USER = System.getProperty("tpi.db.usuario", "root");
+    private static final String PASSWORD = System.getProperty("tpi.db.clave", ""); // ← CONFIGURAR AQUÍ CONTRASEÑA LOCAL
+
+    /** Backend elegido al iniciar (-Dtpi.backend); con MEMORIA no se usa la base de datos */
+    private static final Backend BACKEND = Backend.configurado();
+
+    // =========================================
+    // CONFIGURACIÓN DEL POOL DE CONEXIONES
+    // =========================================
+
+    private static final int POOL_MINIMO = 2;
+    private static final int POOL_MAXIMO = 10;
+    private static final long POOL_TIMEOUT_MS = 30_000;
+    private static final long POOL_INACTIVIDAD_MS = 300_000;
+    private static final long POOL_UMBRAL_FUGA_MS = 60_000;
+
+    /** Registra dónde se obtuvo cada conexión para los reportes de fuga; cuesta una pila por préstamo */
+    private static final boolean POOL_RASTREAR_FUGAS = Boolean.getBoolean("tpi.db.pool.rastrearFugas");
+
+    // =========================================
+    // CONFIGURACIÓN DE RÉPLICAS DE LECTURA
+    // =========================================
+
+    // Las réplicas usan la misma base, usuario y clave que la primaria.
+    private static final String[] DIRECCIONES_REPLICAS = leerDireccionesReplicas();
+
+    /**
+     * Tiempo desde la última escritura de un hilo en el que sus lecturas siguen yendo a la
+     * primaria, para leer lo recién escrito aunque las réplicas tengan retraso. Debe superar
+     * el retraso máximo tolerado.
+     */
+    private static final long VENTANA_LECTURA_PROPIA_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("tpi.db.ventanaLecturaPropiaMs", 2000));
+
+    /** Retraso de replicación desde el que una réplica deja de recibir lecturas */
+    private static final long RETRASO_MAXIMO_REPLICA_SEG = Long.getLong("tpi.db.replicas.retrasoMaximoSeg", 1);
+
+    private static final long VERIFICACION_REPLICAS_MS = Long.getLong("tpi.db.replicas.verificacionMs", 5000);
+
+    /** Espera máxima por una conexión de réplica antes de leer de la primaria */
+    private static final long REPLICA_TIMEOUT_MS = 2_000;
+
+    /** Filas por bloque al completar nombre_normalizado en bases existentes */
+    private static final int LOTE_MIGRACION = 1000;
+
+    /** Pool compartido, se crea en el primer uso o al inicializar la base de datos */
+    private static volatile ConnectionPool pool;
+
+    /** Réplicas de lectura, se crean en el primer uso; vacío si no hay configuradas */
+    private static volatile List<Replica> replicas;
+
+    private static ScheduledExecutorService verificadorReplicas;
+
+    private static final AtomicInteger SIGUIENTE_REPLICA = new AtomicInteger();
+
+    /** Escrituras de cada hilo: las de un hilo no desvían a la primaria las lecturas de los demás */
+    private static final ThreadLocal<EscriturasHilo> ESCRITURAS = ThreadLocal.withInitial(EscriturasHilo::new);
+
+    private static final LongAdder LECTURAS_REPLICA = new LongAdder();
+    private static final LongAdder LECTURAS_PRIMARIA = new LongAdder();
+
+    /** Registro de las conexiones instrumentadas (-Dtpi.jdbc.instrumentar=true), o null */
+    private static final RegistroConsultasLentas CONSULTAS_LENTAS =
+            (BACKEND == Backend.MEMORIA) ? null : RegistroConsultasLentas.desdePropiedades();
     
     private static final String JDBC_PROTOCOL;
     private static final String URL_WITH_DB;
@@ -43,16 +125,32 @@ public class DatabaseConnection {
                 Class.forName("org.mariadb.jdbc.Driver");
                 protocol = "mariadb";
             } catch (ClassNotFoundException e2) {
-                throw new RuntimeException(
-                    "Error: No se encontró el driver JDBC. " +
-                    "Asegúrate de tener el driver MySQL Connector/J o MariaDB Connector/J en el classpath."
-                );
+                // El backend en memoria no necesita driver
+                if (BACKEND != Backend.MEMORIA) {
+                    throw new RuntimeException(
+                        "Error: No se encontró el driver JDBC. " +
+                        "Asegúrate de tener el driver MySQL Connector/J o MariaDB Connector/J en el classpath."
+                    );
+                }
             }
         }
         
         JDBC_PROTOCOL = protocol;
-        URL_WITH_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT + "/" + DB_NAME;
+        // MySQL necesita useCursorFetch para respetar setFetchSize con cursores del servidor
+        // y rewriteBatchedStatements para enviar cada executeBatch como un INSERT multi-fila;
+        // MariaDB Connector/J ya lee por bloques y agrupa los lotes por defecto.
+        String parametros = "mysql".equals(JDBC_PROTOCOL)
+                ? "?useCursorFetch=true&rewriteBatchedStatements=true"
+                : "";
+        URL_WITH_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT + "/" + DB_NAME + parametros;
         URL_WITHOUT_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT;
+
+        if (BACKEND != Backend.MEMORIA) {
+            publicarIndicadoresPool();
+            if (DIRECCIONES_REPLICAS.length > 0) {
+                publicarIndicadoresReplicas();
+            }
+        }
     }
 
     /**
@@ -69,12 +167,17 @@ public class DatabaseConnection {
 
     /**
      * Inicializa la base de datos verificando existencia y creándola si es necesario.
+     * Con el backend en memoria no hay nada que inicializar.
      * 
      * @throws SQLException Si ocurre error de conexión o inicialización
      */
     public static void inicializarBaseDatos() throws SQLException {
-        try (Connection conn = DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD)) {
+        if (BACKEND == Backend.MEMORIA) {
+            System.out.println("⚠ Backend en memoria: los datos no se guardan al salir.");
             return;
+        }
+        try (Connection conn = DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD)) {
+            conn.isValid(2);
         } catch (SQLException e) {
             if (e.getErrorCode() == 1049 || e.getMessage().contains("Unknown database")) {
                 System.out.println("⚠ Base de datos '" + DB_NAME + "' no encontrada. Intentando crearla...");
@@ -83,26 +186,325 @@ public class DatabaseConnection {
                 throw e;
             }
         }
+        try (Connection conn = DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD)) {
+            actualizarEsquema(conn);
+        }
+        getPool().precargar();
+        for (Replica replica : getReplicas()) {
+            replica.precargar();
+        }
     }
     
     /**
-     * Obtiene conexión a la base de datos configurada.
+     * Obtiene conexión del pool a la base de datos configurada (la primaria, si hay réplicas).
+     * Cerrar la conexión la devuelve al pool. Mientras esté prestada, y durante la ventana de
+     * lectura propia posterior, las lecturas del mismo hilo no se envían a las réplicas.
+     * Con la instrumentación activada, la conexión
+     * mide cada sentencia y registra las lentas (ver {@link RegistroConsultasLentas}). Con el backend en memoria devuelve una
+     * conexión sin base de datos que solo acepta el control de transacciones.
      * 
      * @return Conexión activa a la base de datos
      * @throws SQLException Si la configuración es inválida o la conexión falla
      */
     public static Connection getConnection() throws SQLException {
-        if (URL_WITH_DB == null || URL_WITH_DB.isEmpty() || USER == null || USER.isEmpty()) {
-            throw new SQLException("Configuración de la base de datos incompleta o inválida.");
+        if (BACKEND == Backend.MEMORIA) {
+            return ConexionMemoria.crear();
         }
-        
-        return DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD);
+        if (DIRECCIONES_REPLICAS.length == 0) {
+            return instrumentar(getPool().getConnection());
+        }
+        // El estado se captura: la conexión puede devolverse desde otro hilo
+        EscriturasHilo escrituras = ESCRITURAS.get();
+        escrituras.abiertas.incrementAndGet();
+        try {
+            return instrumentar(getPool().getConnection(escrituras::terminar));
+        } catch (SQLException | RuntimeException e) {
+            escrituras.abiertas.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene una conexión para leer fuera de una transacción.
+     * Usa una réplica sana, elegida en turno rotativo, salvo que el hilo tenga escrituras en
+     * curso o la última haya terminado hace menos que la ventana de lectura propia
+     * (-Dtpi.db.ventanaLecturaPropiaMs), o esté dentro de {@link #leerDePrimaria}; en esos
+     * casos, sin réplicas o si la réplica falla, usa la primaria. La ventana es por hilo: otro
+     * hilo puede leer de una réplica que todavía no tiene lo recién escrito. Una réplica que no acepta la conexión queda retirada hasta la próxima
+     * verificación de salud.
+     * 
+     * @return Conexión para consultas; no debe usarse para modificar datos
+     * @throws SQLException Si la configuración es inválida o la conexión a la primaria falla
+     */
+    public static Connection getConnectionLectura() throws SQLException {
+        if (BACKEND == Backend.MEMORIA) {
+            return ConexionMemoria.crear();
+        }
+        Replica replica = elegirReplica();
+        if (replica != null) {
+            try {
+                Connection conn = replica.getConnection();
+                LECTURAS_REPLICA.increment();
+                return instrumentar(conn);
+            } catch (SQLException e) {
+                // Sin SQLState el error es del pool (agotado o cerrado), no de la réplica
+                if (e.getSQLState() != null) {
+                    replica.retirar(e.getMessage());
+                }
+            }
+        }
+        if (DIRECCIONES_REPLICAS.length > 0) {
+            LECTURAS_PRIMARIA.increment();
+        }
+        return instrumentar(getPool().getConnection());
+    }
+
+    /**
+     * Ejecuta lecturas que deben ver todo lo confirmado hasta ahora, por cualquier hilo: mientras
+     * dura, {@link #getConnectionLectura()} devuelve conexiones de la primaria en el hilo actual.
+     * Para cargar datos que se conservan, como las cachés sin expiración: la ventana de lectura
+     * propia solo cubre las escrituras del mismo hilo, y lo leído de una réplica atrasada
+     * quedaría guardado indefinidamente.
+     *
+     * @param <T> Tipo del resultado
+     * @param lectura Lecturas a ejecutar
+     * @return Resultado de la lectura
+     * @throws Exception La que lance la lectura
+     */
+    public static <T> T leerDePrimaria(Callable<T> lectura) throws Exception {
+        if (DIRECCIONES_REPLICAS.length == 0) {
+            return lectura.call();
+        }
+        EscriturasHilo escrituras = ESCRITURAS.get();
+        escrituras.lecturasPrimaria++;
+        try {
+            return lectura.call();
+        } finally {
+            escrituras.lecturasPrimaria--;
+        }
+    }
+
+    /**
+     * Obtiene el registro de consultas lentas de las conexiones instrumentadas.
+     * 
+     * @return Registro activo, o null si no se activó con -Dtpi.jdbc.instrumentar=true
+     */
+    public static RegistroConsultasLentas getRegistroConsultasLentas() {
+        return CONSULTAS_LENTAS;
+    }
+
+    /**
+     * Obtiene el backend de datos elegido al iniciar la aplicación.
+     * 
+     * @return JDBC o MEMORIA
+     */
+    public static Backend getBackend() {
+        return BACKEND;
+    }
+
+    /**
+     * Obtiene la cantidad máxima de conexiones que puede prestar el pool.
+     * Sirve para acotar la concurrencia de quienes acceden a datos en paralelo.
+     * 
+     * @return Tamaño máximo del pool
+     */
+    public static int getTamanioMaximoPool() {
+        return POOL_MAXIMO;
+    }
+
+    /**
+     * Obtiene estadísticas actuales del pool de conexiones.
+     * 
+     * @return Instantánea con conexiones activas, inactivas, en espera y latencia de préstamo
+     * @throws SQLException Si la configuración es inválida
+     */
+    public static PoolStats getEstadisticasPool() throws SQLException {
+        if (BACKEND == Backend.MEMORIA) {
+            throw new SQLException("El backend en memoria no usa pool de conexiones.");
+        }
+        return getPool().estadisticas();
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones libres. Usar al finalizar la aplicación.
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
+        if (verificadorReplicas != null) {
+            verificadorReplicas.shutdownNow();
+            verificadorReplicas = null;
+        }
+        if (replicas != null) {
+            for (Replica replica : replicas) {
+                replica.cerrar();
+            }
+            replicas = null;
+        }
+    }
+
+    /**
+     * Describe el estado de cada réplica de lectura configurada.
+     * 
+     * @return Una línea por réplica con su estado y conexiones; vacío si no hay réplicas
+     */
+    public static List<String> getEstadoReplicas() {
+        List<Replica> actuales = replicas;
+        List<String> estado = new ArrayList<>();
+        if (actuales == null) {
+            return estado;
+        }
+        for (Replica replica : actuales) {
+            estado.add(replica.getDireccion() + ": "
+                    + (replica.isSana() ? "sana" : "retirada (" + replica.getMotivo() + ")")
+                    + " - " + replica.estadisticas());
+        }
+        return estado;
     }
 
     // =========================================
     // MÉTODOS PRIVADOS
     // =========================================
 
+    /**
+     * Obtiene el pool compartido creándolo en el primer uso.
+     * 
+     * @return Pool de conexiones configurado
+     * @throws SQLException Si la configuración es inválida
+     */
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool actual = pool;
+        if (actual == null) {
+            synchronized (DatabaseConnection.class) {
+                actual = pool;
+                if (actual == null) {
+                    if (URL_WITH_DB == null || URL_WITH_DB.isEmpty() || USER == null || USER.isEmpty()) {
+                        throw new SQLException("Configuración de la base de datos incompleta o inválida.");
+                    }
+                    actual = ConnectionPool.crear(URL_WITH_DB, USER, PASSWORD, POOL_MINIMO, POOL_MAXIMO,
+                            POOL_TIMEOUT_MS, POOL_INACTIVIDAD_MS, POOL_UMBRAL_FUGA_MS, POOL_RASTREAR_FUGAS);
+                    pool = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Obtiene las réplicas creándolas, junto con su verificador de salud, en el primer uso.
+     * 
+     * @return Réplicas configuradas; vacío si no hay
+     */
+    private static List<Replica> getReplicas() {
+        List<Replica> actuales = replicas;
+        if (actuales == null) {
+            synchronized (DatabaseConnection.class) {
+                actuales = replicas;
+                if (actuales == null) {
+                    actuales = new ArrayList<>(DIRECCIONES_REPLICAS.length);
+                    for (String direccion : DIRECCIONES_REPLICAS) {
+                        String url = "jdbc:" + JDBC_PROTOCOL + "://" + direccion
+                                + URL_WITH_DB.substring(URL_WITHOUT_DB.length());
+                        actuales.add(new Replica(direccion, ConnectionPool.crear(url, USER, PASSWORD,
+                                POOL_MINIMO, POOL_MAXIMO, REPLICA_TIMEOUT_MS, POOL_INACTIVIDAD_MS, POOL_UMBRAL_FUGA_MS,
+                                POOL_RASTREAR_FUGAS)));
+                    }
+                    if (!actuales.isEmpty()) {
+                        iniciarVerificador(actuales);
+                    }
+                    replicas = actuales;
+                }
+            }
+        }
+        return actuales;
+    }
+
+    private static void iniciarVerificador(List<Replica> aVerificar) {
+        verificadorReplicas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "verificador-replicas");
+            t.setDaemon(true);
+            return t;
+        });
+        verificadorReplicas.scheduleWithFixedDelay(() -> {
+            for (Replica replica : aVerificar) {
+                replica.verificar(RETRASO_MAXIMO_REPLICA_SEG);
+            }
+        }, 0, VERIFICACION_REPLICAS_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Elige la réplica para una lectura.
+     * 
+     * @return Réplica sana siguiente en el turno, o null si la lectura debe ir a la primaria
+     */
+    private static Replica elegirReplica() {
+        if (DIRECCIONES_REPLICAS.length == 0 || ESCRITURAS.get().leePrimaria()) {
+            return null;
+        }
+        List<Replica> actuales = getReplicas();
+        int cantidad = actuales.size();
+        int inicio = Math.floorMod(SIGUIENTE_REPLICA.getAndIncrement(), cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Replica replica = actuales.get((inicio + i) % cantidad);
+            if (replica.isSana()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Connection instrumentar(Connection conn) {
+        return (CONSULTAS_LENTAS != null) ? ConexionInstrumentada.envolver(conn, CONSULTAS_LENTAS) : conn;
+    }
+
+    /**
+     * Lee -Dtpi.db.replicas como lista de host:puerto separados por coma.
+     * Un host sin puerto usa el de la primaria.
+     */
+    private static String[] leerDireccionesReplicas() {
+        String valor = System.getProperty("tpi.db.replicas", "").trim();
+        if (valor.isEmpty()) {
+            return new String[0];
+        }
+        List<String> direcciones = new ArrayList<>();
+        for (String parte : valor.split(",")) {
+            String direccion = parte.trim();
+            if (!direccion.isEmpty()) {
+                direcciones.add(direccion.contains(":") ? direccion : direccion + ":" + PORT);
+            }
+        }
+        return direcciones.toArray(new String[0]);
+    }
+
+    private static void publicarIndicadoresReplicas() {
+        RegistroMetricas.registrarIndicador("replicas.sanas", () -> {
+            List<Replica> actuales = replicas;
+            return (actuales == null) ? 0 : actuales.stream().filter(Replica::isSana).count();
+        });
+        RegistroMetricas.registrarIndicador("replicas.lecturas", LECTURAS_REPLICA::sum);
+        RegistroMetricas.registrarIndicador("replicas.lecturasPrimaria", LECTURAS_PRIMARIA::sum);
+    }
+
+    /**
+     * Publica el estado del pool como indicadores de {@link RegistroMetricas}.
+     * Leerlos no crea el pool: antes del primer uso valen 0.
+     */
+    private static void publicarIndicadoresPool() {
+        RegistroMetricas.registrarIndicador("pool.activas", () -> leerPool(PoolStats::getActivas));
+        RegistroMetricas.registrarIndicador("pool.inactivas", () -> leerPool(PoolStats::getInactivas));
+        RegistroMetricas.registrarIndicador("pool.esperando", () -> leerPool(PoolStats::getEsperando));
+        RegistroMetricas.registrarIndicador("pool.prestamos", () -> leerPool(PoolStats::getPrestamos));
+        RegistroMetricas.registrarIndicador("pool.latenciaPromedioMs", () -> leerPool(PoolStats::getLatenciaPromedioMs));
+        RegistroMetricas.registrarIndicador("pool.fugasDetectadas", () -> leerPool(PoolStats::getFugasDetectadas));
+    }
+
+    private static double leerPool(ToDoubleFunction<PoolStats> lectura) {
+        ConnectionPool actual = pool;
+        return (actual == null) ? 0 : lectura.applyAsDouble(actual.estadisticas());
+    }
+
     /**
      * Crea la base de datos y tablas necesarias si no existen.
      * 
@@ -125,6 +527,7 @@ public class DatabaseConnection {
                 "  fecha_asignacion DATE, " +
                 "  observaciones VARCHAR(255), " +
                 "  eliminado BOOLEAN DEFAULT FALSE, " +
+                "  version BIGINT NOT NULL DEFAULT 0, " +
                 "  INDEX idx_eliminado (eliminado), " +
                 "  INDEX idx_valor (valor), " +
                 "  INDEX idx_tipo (tipo)" +
@@ -135,17 +538,21 @@ public class DatabaseConnection {
                 "CREATE TABLE IF NOT EXISTS producto (" +
                 "  id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
                 "  nombre VARCHAR(120) NOT NULL, " +
+                "  nombre_normalizado VARCHAR(120) COLLATE utf8mb4_bin NOT NULL DEFAULT '', " +
                 "  marca VARCHAR(80), " +
                 "  categoria VARCHAR(80), " +
                 "  precio DECIMAL(10,2) NOT NULL, " +
                 "  peso DECIMAL(10,3), " +
                 "  stock INT DEFAULT 0, " +
                 "  eliminado BOOLEAN DEFAULT FALSE, " +
+                "  version BIGINT NOT NULL DEFAULT 0, " +
                 "  codigo_barras_id BIGINT UNIQUE, " +
-                "  INDEX idx_eliminado (eliminado), " +
                 "  INDEX idx_categoria (categoria), " +
                 "  INDEX idx_nombre (nombre), " +
+                "  INDEX idx_nombre_normalizado (nombre_normalizado), " +
                 "  INDEX idx_marca (marca), " +
+                "  INDEX idx_resumen (eliminado, id, nombre), " +
+                "  INDEX idx_resumen_categoria (categoria, eliminado, id, nombre), " +
                 "  CONSTRAINT fk_producto_codigo " +
                 "    FOREIGN KEY (codigo_barras_id) " +
                 "    REFERENCES codigo_barras(id) " +
@@ -163,6 +570,158 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Aplica a una base existente los cambios de esquema posteriores a su creación.
+     * Agrega la columna de búsqueda nombre_normalizado con sus índices y completa
+     * los valores faltantes (bases anteriores o filas insertadas por SQL directo).
+     * Agrega también la columna version, los índices de las consultas de resumen y la
+     * tabla de progreso de las importaciones, y corrige los códigos de los datos de prueba
+     * anteriores a la validación del dígito verificador.
+     * 
+     * @param conn Conexión a la base de datos configurada
+     * @throws SQLException Si ocurre error durante la migración
+     */
+    private static void actualizarEsquema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!existeEnEsquema(conn, "producto", "COLUMNS", "COLUMN_NAME", "nombre_normalizado")) {
+                System.out.println("⚠ Agregando columna de búsqueda nombre_normalizado...");
+                stmt.executeUpdate(
+                    "ALTER TABLE producto " +
+                    "ADD COLUMN nombre_normalizado VARCHAR(120) COLLATE utf8mb4_bin NOT NULL DEFAULT '' AFTER nombre, " +
+                    "ADD INDEX idx_nombre_normalizado (nombre_normalizado)");
+            }
+            if (!existeEnEsquema(conn, "producto", "STATISTICS", "INDEX_NAME", "ft_nombre_normalizado")) {
+                // El parser ngram (MySQL) indexa fragmentos y permite buscar dentro de las palabras;
+                // MariaDB no lo tiene, y el índice estándar busca por comienzo de palabra.
+                try {
+                    stmt.executeUpdate("ALTER TABLE producto ADD FULLTEXT INDEX ft_nombre_normalizado (nombre_normalizado) WITH PARSER ngram");
+                } catch (SQLException e) {
+                    stmt.executeUpdate("ALTER TABLE producto ADD FULLTEXT INDEX ft_nombre_normalizado (nombre_normalizado)");
+                }
+            }
+            for (String tabla : new String[] {"codigo_barras", "producto"}) {
+                if (!existeEnEsquema(conn, tabla, "COLUMNS", "COLUMN_NAME", "version")) {
+                    System.out.println("⚠ Agregando columna de control de concurrencia version en " + tabla + "...");
+                    stmt.executeUpdate("ALTER TABLE " + tabla + " ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER eliminado");
+                }
+            }
+            // Índices de listados y conteos. No incluyen stock: cada ajuste de stock tendría que
+            // mantenerlos, y el listado lo lee de la fila solo para los elementos de la página.
+            // Una versión anterior los creó con stock; se reemplazan.
+            actualizarIndice(conn, stmt, "idx_resumen", "(eliminado, id, nombre)");
+            actualizarIndice(conn, stmt, "idx_resumen_categoria", "(categoria, eliminado, id, nombre)");
+            // idx_resumen empieza por eliminado: idx_eliminado queda redundante
+            if (existeEnEsquema(conn, "producto", "STATISTICS", "INDEX_NAME", "idx_eliminado")) {
+                System.out.println("⚠ Eliminando índice redundante idx_eliminado...");
+                stmt.executeUpdate("ALTER TABLE producto DROP INDEX idx_eliminado");
+            }
+            // Los datos de prueba de versiones anteriores tenían códigos que no pasan la validación
+            // de dígitos y dígito verificador; IGNORE deja los que chocan con un valor ya cargado
+            stmt.executeUpdate(
+                "UPDATE IGNORE codigo_barras SET valor = CASE id " +
+                "  WHEN 1 THEN '7791234567898' WHEN 2 THEN '77912343' WHEN 3 THEN '779123456789' " +
+                "  WHEN 4 THEN '7791234567904' WHEN 5 THEN '7791234567911' WHEN 6 THEN '77912350' END " +
+                "WHERE (id, valor) IN ((1, '7791234567890'), (2, '7791234567891'), (3, '7791234567893'), " +
+                "  (4, '7791234567894'), (5, '7791234567900'), (6, '7791234567907'))");
+            // Última línea confirmada de cada importación en curso; se escribe en la misma
+            // transacción que las filas importadas
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS importacion_progreso (" +
+                "  archivo VARCHAR(500) PRIMARY KEY, " +
+                "  ultima_linea BIGINT NOT NULL, " +
+                "  actualizado TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin");
+        }
+
+        String sqlPendientes = "SELECT id, nombre FROM producto WHERE id > ? AND nombre_normalizado = '' ORDER BY id LIMIT ?";
+        String sqlActualizar = "UPDATE producto SET nombre_normalizado = ? WHERE id = ?";
+        try (PreparedStatement consulta = conn.prepareStatement(sqlPendientes);
+             PreparedStatement actualizacion = conn.prepareStatement(sqlActualizar)) {
+            long ultimoId = 0;
+            int leidas;
+            do {
+                leidas = 0;
+                consulta.setLong(1, ultimoId);
+                consulta.setInt(2, LOTE_MIGRACION);
+                try (ResultSet rs = consulta.executeQuery()) {
+                    while (rs.next()) {
+                        ultimoId = rs.getLong("id");
+                        actualizacion.setString(1, Producto.normalizarNombre(rs.getString("nombre")));
+                        actualizacion.setLong(2, ultimoId);
+                        actualizacion.addBatch();
+                        leidas++;
+                    }
+                }
+                if (leidas > 0) {
+                    actualizacion.executeBatch();
+                }
+            } while (leidas == LOTE_MIGRACION);
+        }
+    }
+
+    /**
+     * Crea un índice de producto, o lo reemplaza si una versión anterior lo creó con stock.
+     * 
+     * @param conn Conexión a la base de datos configurada
+     * @param stmt Statement para las sentencias DDL
+     * @param indice Nombre del índice
+     * @param columnas Columnas del índice entre paréntesis
+     * @throws SQLException Si ocurre error durante la migración
+     */
+    private static void actualizarIndice(Connection conn, Statement stmt, String indice, String columnas) throws SQLException {
+        if (!existeEnEsquema(conn, "producto", "STATISTICS", "INDEX_NAME", indice)) {
+            System.out.println("⚠ Agregando índice de listados " + indice + "...");
+            stmt.executeUpdate("ALTER TABLE producto ADD INDEX " + indice + " " + columnas);
+        } else if (indiceIncluyeColumna(conn, indice, "stock")) {
+            System.out.println("⚠ Quitando stock del índice de listados " + indice + "...");
+            stmt.executeUpdate("ALTER TABLE producto DROP INDEX " + indice + ", ADD INDEX " + indice + " " + columnas);
+        }
+    }
+
+    /**
+     * Verifica si un índice de producto incluye una columna.
+     * 
+     * @param conn Conexión a la base de datos configurada
+     * @param indice Nombre del índice
+     * @param columna Nombre de la columna
+     * @return true si el índice la incluye
+     * @throws SQLException Si ocurre error en la consulta
+     */
+    private static boolean indiceIncluyeColumna(Connection conn, String indice, String columna) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() " +
+                     "AND TABLE_NAME = 'producto' AND INDEX_NAME = ? AND COLUMN_NAME = ? LIMIT 1";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, indice);
+            stmt.setString(2, columna);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Verifica si existe una columna o índice de una tabla en information_schema.
+     * 
+     * @param conn Conexión a la base de datos configurada
+     * @param tabla Tabla a la que pertenece la columna o índice
+     * @param vista Vista de information_schema (COLUMNS o STATISTICS)
+     * @param campo Campo de la vista con el nombre buscado
+     * @param nombre Nombre de la columna o índice
+     * @return true si existe
+     * @throws SQLException Si ocurre error en la consulta
+     */
+    private static boolean existeEnEsquema(Connection conn, String tabla, String vista, String campo, String nombre) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema." + vista +
+                     " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND " + campo + " = ? LIMIT 1";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabla);
+            stmt.setString(2, nombre);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
     /**
      * Inserta datos de prueba en las tablas para testing.
      * 
@@ -175,12 +734,12 @@ public class DatabaseConnection {
         try (Statement stmt = conn.createStatement()) {
             String insertCodigos
                     = "INSERT IGNORE INTO codigo_barras (id, tipo, valor, fecha_asignacion, observaciones) VALUES "
-                    + "(1, 'EAN13', '7791234567890', '2025-10-01', 'Lote L123 - Leche entera premium'), "
-                    + "(2, 'EAN8', '7791234567891', '2025-10-02', 'Pan integral sin conservantes'), "
-                    + "(3, 'UPC', '7791234567893', '2025-10-09', 'Agua mineral manantial andino'), "
-                    + "(4, 'EAN13', '7791234567894', '2025-10-10', 'Gaseosa cola original 2.25L'), "
-                    + "(5, 'EAN13', '7791234567900', '2025-10-13', 'Licuadora profesional 600W'), "
-                    + "(6, 'EAN8', '7791234567907', '2025-10-20', 'Lavandina desinfectante 1L')";
+                    + "(1, 'EAN13', '7791234567898', '2025-10-01', 'Lote L123 - Leche entera premium'), "
+                    + "(2, 'EAN8', '77912343', '2025-10-02', 'Pan integral sin conservantes'), "
+                    + "(3, 'UPC', '779123456789', '2025-10-09', 'Agua mineral manantial andino'), "
+                    + "(4, 'EAN13', '7791234567904', '2025-10-10', 'Gaseosa cola original 2.25L'), "
+                    + "(5, 'EAN13', '7791234567911', '2025-10-13', 'Licuadora profesional 600W'), "
+                    + "(6, 'EAN8', '77912350', '2025-10-20', 'Lavandina desinfectante 1L')";
 
             stmt.executeUpdate(insertCodigos);
 
@@ -200,4 +759,39 @@ public class DatabaseConnection {
             System.err.println("\n⚠ Advertencia: No se pudieron insertar los datos de prueba: " + e.getMessage());
         }
     }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Conexiones de escritura prestadas por un hilo y momento (System.nanoTime) de la última
+     * devuelta. Los campos admiten que la conexión se devuelva desde otro hilo.
+     */
+    private static final class EscriturasHilo {
+
+        private final AtomicInteger abiertas = new AtomicInteger();
+        private volatile long ultimaNanos = System.nanoTime() - VENTANA_LECTURA_PROPIA_NANOS;
+
+        /** Anidamiento de {@link DatabaseConnection#leerDePrimaria}; solo lo usa el propio hilo */
+        private int lecturasPrimaria;
+
+        /**
+         * Se ejecuta al devolver una conexión de escritura. La marca de tiempo se actualiza
+         * antes de descontar la escritura para que nunca se vea cero escrituras con la marca anterior.
+         */
+        private void terminar() {
+            ultimaNanos = System.nanoTime();
+            abiertas.decrementAndGet();
+        }
+
+        /**
+         * @return true si el hilo pidió leer de la primaria, o tiene una escritura en curso o
+         *         dentro de la ventana de lectura propia
+         */
+        private boolean leePrimaria() {
+            return lecturasPrimaria > 0 || abiertas.get() > 0
+                    || System.nanoTime() - ultimaNanos < VENTANA_LECTURA_PROPIA_NANOS;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,427 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Administra transacciones con la conexión asociada al hilo actual.
+ *
+ * Un servicio ejecuta su trabajo con {@link #enTransaccion(TrabajoSinResultado)} (u otra propagación) y
+ * mientras dura, todo acceso a datos del mismo hilo usa esa conexión: los DAOs la obtienen con
+ * {@link #getConnection()} sin recibirla por parámetro. Así cada operación de servicio usa una
+ * sola conexión y las lecturas intermedias ven los cambios no confirmados de la transacción.
+ *
+ * Propagaciones:
+ * <ul>
+ *   <li>{@link Propagacion#REQUERIDA}: se une a la transacción en curso o abre una nueva.</li>
+ *   <li>{@link Propagacion#REQUIERE_NUEVA}: suspende la transacción en curso y abre otra,
+ *       con su propia conexión, que se confirma por separado.</li>
+ *   <li>{@link Propagacion#SOLO_LECTURA}: se une a la transacción en curso o abre una nueva
+ *       marcada como de solo lectura (lecturas consistentes entre sí). Una transacción nueva
+ *       de solo lectura puede usar una réplica (ver {@link DatabaseConnection#getConnectionLectura()}).</li>
+ * </ul>
+ *
+ * Si un trabajo unido a una transacción externa falla, la transacción queda marcada para
+ * rollback aunque quien la abrió capture la excepción, y su commit termina en error.
+ * Un trabajo puede pedir el rollback sin excepción con {@link #marcarParaRollback()}.
+ *
+ * Las acciones registradas con {@link #despuesDeConfirmar(Runnable)} (por ejemplo, invalidar
+ * cachés) se ejecutan solo después del commit de la transacción más externa, y las registradas
+ * con {@link #siSeRevierte(Runnable)} (por ejemplo, devolver a una entidad la versión leída)
+ * solo si esa transacción se revierte.
+ */
+public final class GestorTransacciones {
+
+    // =========================================
+    // TIPOS
+    // =========================================
+
+    /**
+     * Regla de propagación respecto de una transacción en curso en el hilo.
+     */
+    public enum Propagacion {
+        REQUERIDA,
+        REQUIERE_NUEVA,
+        SOLO_LECTURA
+    }
+
+    /**
+     * Trabajo ejecutado dentro de una transacción.
+     * Recibe la vista de la conexión descrita en {@link GestorTransacciones#getConnection()}.
+     *
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar(Connection conn) throws Exception;
+    }
+
+    /**
+     * Trabajo sin resultado ejecutado dentro de una transacción.
+     * Recibe la vista de la conexión descrita en {@link GestorTransacciones#getConnection()}.
+     */
+    @FunctionalInterface
+    public interface TrabajoSinResultado {
+        void ejecutar(Connection conn) throws Exception;
+    }
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    /** Transacción asociada al hilo actual, o null */
+    private static final ThreadLocal<Transaccion> ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private GestorTransacciones() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    // =========================================
+    // MÉTODOS DE EJECUCIÓN
+    // =========================================
+
+    /**
+     * Ejecuta un trabajo con propagación {@link Propagacion#REQUERIDA}.
+     * @param trabajo Trabajo a ejecutar
+     * @return Resultado del trabajo
+     * @throws Exception La excepción del trabajo, luego de revertir
+     */
+    public static <T> T enTransaccionConResultado(Trabajo<T> trabajo) throws Exception {
+        return ejecutar(Propagacion.REQUERIDA, trabajo);
+    }
+
+    /**
+     * Ejecuta un trabajo sin resultado con propagación {@link Propagacion#REQUERIDA}.
+     * @param trabajo Trabajo a ejecutar
+     * @throws Exception La excepción del trabajo, luego de revertir
+     */
+    public static void enTransaccion(TrabajoSinResultado trabajo) throws Exception {
+        ejecutar(Propagacion.REQUERIDA, conn -> {
+            trabajo.ejecutar(conn);
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta un trabajo con propagación {@link Propagacion#SOLO_LECTURA}.
+     * @param trabajo Trabajo a ejecutar
+     * @return Resultado del trabajo
+     * @throws Exception La excepción del trabajo
+     */
+    public static <T> T soloLectura(Trabajo<T> trabajo) throws Exception {
+        return ejecutar(Propagacion.SOLO_LECTURA, trabajo);
+    }
+
+    /**
+     * Ejecuta un trabajo con la propagación indicada.
+     *
+     * @param propagacion Regla respecto de la transacción en curso
+     * @param trabajo Trabajo a ejecutar
+     * @return Resultado del trabajo
+     * @throws IllegalStateException Si se pide escribir (REQUERIDA) dentro de una transacción de solo lectura
+     * @throws Exception La excepción del trabajo, luego de revertir; también un Error se propaga luego de revertir
+     */
+    public static <T> T ejecutar(Propagacion propagacion, Trabajo<T> trabajo) throws Exception {
+        Transaccion actual = ACTUAL.get();
+        if (actual != null && propagacion != Propagacion.REQUIERE_NUEVA) {
+            if (propagacion == Propagacion.REQUERIDA && actual.soloLectura) {
+                throw new IllegalStateException("No se puede abrir una transacción de escritura dentro de una de solo lectura.");
+            }
+            return participar(actual, trabajo);
+        }
+
+        Transaccion nueva = new Transaccion(propagacion == Propagacion.SOLO_LECTURA);
+        T resultado;
+        Connection conn = nueva.soloLectura
+                ? DatabaseConnection.getConnectionLectura()
+                : DatabaseConnection.getConnection();
+        // Solo tras un commit o rollback aplicado se puede volver a autocommit sin confirmar
+        // lo pendiente; si no, la conexión se cierra tal cual y el pool la revierte o descarta
+        boolean terminada = false;
+        try {
+            if (nueva.soloLectura) {
+                conn.setReadOnly(true);
+            }
+            conn.setAutoCommit(false);
+            nueva.conexion = conn;
+            ACTUAL.set(nueva);
+            try {
+                resultado = trabajo.ejecutar(vista(nueva));
+            } finally {
+                ACTUAL.set(actual);
+            }
+            if (nueva.fallaInterna) {
+                throw new IllegalStateException("La transacción fue marcada para rollback por una operación interna que falló.");
+            }
+            if (nueva.soloRollback) {
+                conn.rollback();
+                terminada = true;
+                nueva.ejecutarAccionesAlRevertir();
+                return resultado;
+            }
+            conn.commit();
+            terminada = true;
+        } catch (Exception | Error e) {
+            nueva.ejecutarAccionesAlRevertir();
+            try {
+                conn.rollback();
+                terminada = true;
+            } catch (SQLException rollbackEx) {
+                if (e instanceof Error) {
+                    e.addSuppressed(rollbackEx);
+                    throw e;
+                }
+                throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+            }
+            throw e;
+        } finally {
+            try {
+                if (terminada) {
+                    conn.setAutoCommit(true);
+                    if (nueva.soloLectura) {
+                        conn.setReadOnly(false);
+                    }
+                }
+            } catch (SQLException restablecerEx) {
+                System.err.println("Error al restablecer conexión: " + restablecerEx.getMessage());
+            }
+            try {
+                conn.close();
+            } catch (SQLException closeEx) {
+                System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+            }
+        }
+
+        nueva.ejecutarAccionesPosteriores();
+        return resultado;
+    }
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    /**
+     * Obtiene la conexión que debe usar un DAO que no recibió una.
+     * Dentro de una transacción devuelve una vista de la conexión asociada al hilo en la que
+     * commit, setAutoCommit y close no tienen efecto (los decide el gestor) y rollback marca
+     * la transacción para revertirse. Fuera de una transacción devuelve una conexión nueva.
+     *
+     * @return Conexión para el acceso a datos
+     * @throws SQLException Si no se puede obtener una conexión nueva
+     */
+    public static Connection getConnection() throws SQLException {
+        Transaccion actual = ACTUAL.get();
+        if (actual == null) {
+            return DatabaseConnection.getConnection();
+        }
+        return vista(actual);
+    }
+
+    /**
+     * Obtiene la conexión que debe usar un DAO para una lectura.
+     * Dentro de una transacción devuelve la misma vista que {@link #getConnection()}, para que la
+     * lectura vea los cambios de la transacción. Fuera de una transacción devuelve una conexión
+     * que puede ser de una réplica.
+     *
+     * @return Conexión para la lectura
+     * @throws SQLException Si no se puede obtener una conexión nueva
+     */
+    public static Connection getConnectionLectura() throws SQLException {
+        if (ACTUAL.get() == null) {
+            return DatabaseConnection.getConnectionLectura();
+        }
+        return getConnection();
+    }
+
+    /**
+     * @return true si el hilo actual tiene una transacción en curso
+     */
+    public static boolean hayTransaccion() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Marca la transacción en curso para revertirse al terminar en lugar de confirmarse.
+     * Si se llama desde un trabajo unido a una transacción externa, el commit de esa
+     * transacción termina en error, igual que ante una falla interna.
+     *
+     * @throws IllegalStateException Si no hay transacción en curso
+     */
+    public static void marcarParaRollback() {
+        Transaccion actual = ACTUAL.get();
+        if (actual == null) {
+            throw new IllegalStateException("No hay una transacción en curso.");
+        }
+        actual.soloRollback = true;
+        if (actual.participantes > 0) {
+            actual.fallaInterna = true;
+        }
+    }
+
+    /**
+     * Registra una acción a ejecutar después del commit de la transacción más externa.
+     * Si la transacción se revierte, la acción se descarta. Sin transacción en curso,
+     * se ejecuta en el momento.
+     *
+     * @param accion Acción a ejecutar
+     */
+    public static void despuesDeConfirmar(Runnable accion) {
+        Transaccion actual = ACTUAL.get();
+        if (actual == null) {
+            accion.run();
+        } else {
+            actual.accionesPosteriores.add(accion);
+        }
+    }
+
+    /**
+     * Registra una acción a ejecutar si la transacción más externa se revierte, para deshacer
+     * cambios hechos en memoria junto con la escritura. Sin transacción en curso no hace nada:
+     * quien escribe sin transacción confirma en el momento.
+     *
+     * @param accion Acción a ejecutar
+     */
+    public static void siSeRevierte(Runnable accion) {
+        Transaccion actual = ACTUAL.get();
+        if (actual != null) {
+            actual.accionesAlRevertir.add(accion);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Ejecuta un trabajo dentro de una transacción ya abierta. Si falla, la marca para rollback.
+     */
+    private static <T> T participar(Transaccion actual, Trabajo<T> trabajo) throws Exception {
+        actual.participantes++;
+        try {
+            return trabajo.ejecutar(vista(actual));
+        } catch (Exception | Error e) {
+            actual.fallaInterna = true;
+            throw e;
+        } finally {
+            actual.participantes--;
+        }
+    }
+
+    /**
+     * Obtiene la vista de la conexión de una transacción, creándola en el primer uso.
+     */
+    private static Connection vista(Transaccion transaccion) {
+        if (transaccion.vista == null) {
+            transaccion.vista = crearVista(transaccion);
+        }
+        return transaccion.vista;
+    }
+
+    /**
+     * Crea la vista de la conexión de una transacción que se entrega a los trabajos y a los DAOs.
+     */
+    private static Connection crearVista(Transaccion transaccion) {
+        Connection conexion = transaccion.conexion;
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit", "setReadOnly" -> {
+                            // Los decide quien abrió la transacción
+                            return null;
+                        }
+                        case "rollback" -> {
+                            // Un DAO revierte solo cuando va a propagar un error
+                            transaccion.fallaInterna = true;
+                            return null;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "ConexionTransaccion[" + conexion + "]";
+                        }
+                        default -> {
+                            try {
+                                return method.invoke(conexion, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Estado de una transacción abierta por el gestor.
+     */
+    private static final class Transaccion {
+
+        private final boolean soloLectura;
+        private final List<Runnable> accionesPosteriores = new ArrayList<>();
+        private final List<Runnable> accionesAlRevertir = new ArrayList<>();
+        private Connection conexion;
+        private Connection vista;
+        private boolean soloRollback;
+        private boolean fallaInterna;
+
+        /** Trabajos unidos a la transacción que están en ejecución */
+        private int participantes;
+
+        private Transaccion(boolean soloLectura) {
+            this.soloLectura = soloLectura;
+        }
+
+        /**
+         * Ejecuta las acciones registradas para después del commit. Un error en una
+         * acción se informa y no impide las demás: el commit ya ocurrió.
+         */
+        private void ejecutarAccionesPosteriores() {
+            for (Runnable accion : accionesPosteriores) {
+                try {
+                    accion.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error en acción posterior al commit: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Ejecuta las acciones registradas para el rollback, de la última a la primera, así
+         * una entidad modificada dos veces vuelve a su estado inicial.
+         */
+        private void ejecutarAccionesAlRevertir() {
+            for (int i = accionesAlRevertir.size() - 1; i >= 0; i--) {
+                try {
+                    accionesAlRevertir.get(i).run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error en acción de rollback: " + e.getMessage());
+                }
+            }
+            accionesAlRevertir.clear();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+/**
+ * Instantánea inmutable de las estadísticas de un {@link ConnectionPool}.
+ */
+public class PoolStats {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final int activas;
+    private final int inactivas;
+    private final int esperando;
+    private final int totales;
+    private final int maximo;
+    private final long prestamos;
+    private final double latenciaPromedioMs;
+    private final double latenciaMaximaMs;
+    private final long fugasDetectadas;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Constructor completo de la instantánea.
+     * @param activas Conexiones prestadas en este momento
+     * @param inactivas Conexiones libres en el pool
+     * @param esperando Hilos esperando una conexión
+     * @param totales Conexiones físicas abiertas
+     * @param maximo Máximo configurado
+     * @param prestamos Cantidad total de préstamos realizados
+     * @param latenciaPromedioMs Tiempo promedio para obtener una conexión
+     * @param latenciaMaximaMs Tiempo máximo observado para obtener una conexión
+     * @param fugasDetectadas Conexiones reportadas como posibles fugas
+     */
+    public PoolStats(int activas, int inactivas, int esperando, int totales, int maximo,
+                     long prestamos, double latenciaPromedioMs, double latenciaMaximaMs, long fugasDetectadas) {
+        this.activas = activas;
+        this.inactivas = inactivas;
+        this.esperando = esperando;
+        this.totales = totales;
+        this.maximo = maximo;
+        this.prestamos = prestamos;
+        this.latenciaPromedioMs = latenciaPromedioMs;
+        this.latenciaMaximaMs = latenciaMaximaMs;
+        this.fugasDetectadas = fugasDetectadas;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Conexiones prestadas en este momento
+     */
+    public int getActivas() {
+        return activas;
+    }
+
+    /**
+     * @return Conexiones libres en el pool
+     */
+    public int getInactivas() {
+        return inactivas;
+    }
+
+    /**
+     * @return Hilos esperando una conexión
+     */
+    public int getEsperando() {
+        return esperando;
+    }
+
+    /**
+     * @return Conexiones físicas abiertas
+     */
+    public int getTotales() {
+        return totales;
+    }
+
+    /**
+     * @return Máximo de conexiones configurado
+     */
+    public int getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * @return Cantidad total de préstamos realizados
+     */
+    public long getPrestamos() {
+        return prestamos;
+    }
+
+    /**
+     * @return Tiempo promedio en milisegundos para obtener una conexión
+     */
+    public double getLatenciaPromedioMs() {
+        return latenciaPromedioMs;
+    }
+
+    /**
+     * @return Tiempo máximo en milisegundos para obtener una conexión
+     */
+    public double getLatenciaMaximaMs() {
+        return latenciaMaximaMs;
+    }
+
+    /**
+     * @return Conexiones reportadas como posibles fugas
+     */
+    public long getFugasDetectadas() {
+        return fugasDetectadas;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Representación en texto de las estadísticas
+     */
+    @Override
+    public String toString() {
+        return String.format("Pool[activas=%d, inactivas=%d, esperando=%d, totales=%d/%d, prestamos=%d, "
+                + "latencia promedio=%.3f ms, latencia max=%.3f ms, fugas=%d]",
+                activas, inactivas, esperando, totales, maximo, prestamos,
+                latenciaPromedioMs, latenciaMaximaMs, fugasDetectadas);
+    }
+}
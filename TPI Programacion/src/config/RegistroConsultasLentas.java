@@ -0,0 +1,221 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Destino de las mediciones de las conexiones instrumentadas.
+ *
+ * Toda sentencia ejecutada se registra en la métrica "jdbc.sentencia". Las que superan el
+ * umbral se escriben además en un archivo de consultas lentas con su SQL, parámetros, filas
+ * y duración. El archivo rota por tamaño (archivo.0 es el actual, archivo.1 el anterior, etc.).
+ *
+ * Para que el registro no afecte el rendimiento bajo carga se escribe como máximo una cantidad
+ * fija de líneas por segundo; las que exceden el cupo se cuentan como omitidas y la siguiente
+ * línea escrita informa cuántas se omitieron.
+ *
+ * Se configura con propiedades del sistema:
+ * <ul>
+ *   <li>{@code tpi.jdbc.instrumentar}: activa la instrumentación (false por defecto)</li>
+ *   <li>{@code tpi.jdbc.umbralLentaMs}: duración desde la que una sentencia es lenta (200)</li>
+ *   <li>{@code tpi.jdbc.logLentas}: archivo de consultas lentas (consultas-lentas.log)</li>
+ *   <li>{@code tpi.jdbc.logLentasBytes}: tamaño de cada archivo antes de rotar (10 MB)</li>
+ *   <li>{@code tpi.jdbc.logLentasArchivos}: archivos que se conservan (5)</li>
+ *   <li>{@code tpi.jdbc.logLentasPorSegundo}: líneas escritas por segundo como máximo (50)</li>
+ * </ul>
+ */
+public final class RegistroConsultasLentas {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Largo máximo del SQL escrito en una línea del registro */
+    private static final int LARGO_MAXIMO_SQL = 2000;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final MetricaOperacion METRICA_SENTENCIA = RegistroMetricas.operacion("jdbc.sentencia");
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long umbralNanos;
+    private final int maximoPorSegundo;
+    private final FileHandler archivo;
+
+    /** Segundo (en nanos de System.nanoTime) del cupo en curso y líneas escritas en él */
+    private final AtomicLong segundoActual = new AtomicLong(System.nanoTime());
+    private final AtomicLong escritasEnSegundo = new AtomicLong();
+
+    private final AtomicLong lentas = new AtomicLong();
+    private final AtomicLong omitidas = new AtomicLong();
+
+    /** Omitidas desde la última línea escrita */
+    private final AtomicLong omitidasPendientes = new AtomicLong();
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el registro y abre el archivo de consultas lentas.
+     * @param umbralMs Duración desde la que una sentencia se considera lenta (0 registra todas)
+     * @param rutaArchivo Archivo de consultas lentas
+     * @param bytesPorArchivo Tamaño de cada archivo antes de rotar
+     * @param cantidadArchivos Archivos que se conservan al rotar
+     * @param maximoPorSegundo Líneas escritas por segundo como máximo
+     * @throws IllegalArgumentException Si algún valor numérico está fuera de rango
+     * @throws IOException Si no se puede abrir el archivo
+     */
+    public RegistroConsultasLentas(long umbralMs, String rutaArchivo, int bytesPorArchivo,
+                                   int cantidadArchivos, int maximoPorSegundo) throws IOException {
+        if (umbralMs < 0 || bytesPorArchivo <= 0 || cantidadArchivos <= 0 || maximoPorSegundo <= 0) {
+            throw new IllegalArgumentException("Configuración inválida del registro de consultas lentas");
+        }
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        this.maximoPorSegundo = maximoPorSegundo;
+        this.archivo = new FileHandler(rutaArchivo + ".%g", bytesPorArchivo, cantidadArchivos, true);
+        this.archivo.setEncoding("UTF-8");
+        this.archivo.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord registro) {
+                return registro.getMessage() + System.lineSeparator();
+            }
+        });
+
+        RegistroMetricas.registrarIndicador("jdbc.consultasLentas", lentas::get);
+        RegistroMetricas.registrarIndicador("jdbc.consultasLentasOmitidas", omitidas::get);
+    }
+
+    /**
+     * Crea el registro según las propiedades del sistema.
+     * @return Registro configurado, o null si la instrumentación no está activada
+     *         o el archivo no se pudo abrir (se informa el error)
+     */
+    static RegistroConsultasLentas desdePropiedades() {
+        if (!Boolean.parseBoolean(System.getProperty("tpi.jdbc.instrumentar", "false"))) {
+            return null;
+        }
+        try {
+            return new RegistroConsultasLentas(
+                    Long.parseLong(System.getProperty("tpi.jdbc.umbralLentaMs", "200")),
+                    System.getProperty("tpi.jdbc.logLentas", "consultas-lentas.log"),
+                    Integer.parseInt(System.getProperty("tpi.jdbc.logLentasBytes", "10485760")),
+                    Integer.parseInt(System.getProperty("tpi.jdbc.logLentasArchivos", "5")),
+                    Integer.parseInt(System.getProperty("tpi.jdbc.logLentasPorSegundo", "50")));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo activar el registro de consultas lentas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Registra una sentencia ejecutada.
+     * @param sql Texto SQL de la sentencia
+     * @param parametros Parámetros enlazados por ejecución
+     * @param lote Ejecuciones del lote (1 si no es un lote)
+     * @param filas Filas leídas o modificadas; -1 si no se conocen
+     * @param nanos Duración de la ejecución, incluida la lectura de filas
+     */
+    public void registrar(String sql, int parametros, int lote, long filas, long nanos) {
+        METRICA_SENTENCIA.registrarDuracion(nanos);
+        if (nanos < umbralNanos) {
+            return;
+        }
+        lentas.incrementAndGet();
+        if (!hayCupo()) {
+            omitidas.incrementAndGet();
+            omitidasPendientes.incrementAndGet();
+            return;
+        }
+        archivo.publish(new LogRecord(Level.INFO, linea(sql, parametros, lote, filas, nanos)));
+    }
+
+    /**
+     * Cuenta una sentencia que terminó con error. Su duración se registra igual con
+     * {@link #registrar(String, int, int, long, long)}.
+     */
+    public void contarError() {
+        METRICA_SENTENCIA.contarError();
+    }
+
+    /**
+     * @return Sentencias que superaron el umbral, escritas u omitidas
+     */
+    public long getConsultasLentas() {
+        return lentas.get();
+    }
+
+    /**
+     * @return Sentencias lentas no escritas por superar el cupo por segundo
+     */
+    public long getOmitidas() {
+        return omitidas.get();
+    }
+
+    /**
+     * Cierra el archivo de consultas lentas.
+     */
+    public void cerrar() {
+        archivo.close();
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Toma un lugar del cupo del segundo en curso, abriendo uno nuevo si ya pasó.
+     */
+    private boolean hayCupo() {
+        long ahora = System.nanoTime();
+        long inicio = segundoActual.get();
+        if (ahora - inicio >= TimeUnit.SECONDS.toNanos(1) && segundoActual.compareAndSet(inicio, ahora)) {
+            escritasEnSegundo.set(0);
+        }
+        return escritasEnSegundo.incrementAndGet() <= maximoPorSegundo;
+    }
+
+    private String linea(String sql, int parametros, int lote, long filas, long nanos) {
+        StringBuilder linea = new StringBuilder(128 + Math.min(sql.length(), LARGO_MAXIMO_SQL));
+        linea.append(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).format(FORMATO_FECHA))
+                .append(String.format(Locale.ROOT, " duracionMs=%.3f", nanos / 1_000_000.0))
+                .append(" filas=").append(filas)
+                .append(" parametros=").append(parametros)
+                .append(" lote=").append(lote);
+        long previas = omitidasPendientes.getAndSet(0);
+        if (previas > 0) {
+            linea.append(" omitidasPrevias=").append(previas);
+        }
+        String compacto = sql.replaceAll("\\s+", " ").trim();
+        linea.append(" sql=").append(compacto.length() > LARGO_MAXIMO_SQL
+                ? compacto.substring(0, LARGO_MAXIMO_SQL) + "..."
+                : compacto);
+        return linea.toString();
+    }
+}
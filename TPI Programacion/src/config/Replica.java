@@ -0,0 +1,177 @@
+package config;
+
+/**
+ * @author Hernan Cóceres
+ * @author Claudio Rodriguez
+ * @author Hernan E.Bula
+ * @author Gaston Alberto Cejas
+ */
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Réplica de lectura con su propio pool de conexiones y su estado de salud.
+ *
+ * Una réplica sana recibe lecturas; se retira cuando no responde, cuando la replicación
+ * está detenida o cuando su retraso supera el máximo permitido, y vuelve a recibir lecturas
+ * cuando una verificación posterior la encuentra bien.
+ */
+final class Replica {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Retraso informado cuando el servidor no tiene replicación configurada */
+    private static final long SIN_REPLICACION = -2;
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final String direccion;
+    private final ConnectionPool pool;
+
+    private volatile boolean sana = true;
+
+    /** Motivo del último retiro, o null si nunca se retiró */
+    private volatile String motivo;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * @param direccion host:puerto de la réplica, para los mensajes
+     * @param pool Pool de conexiones a la réplica
+     */
+    Replica(String direccion, ConnectionPool pool) {
+        this.direccion = direccion;
+        this.pool = pool;
+    }
+
+    // =========================================
+    // MÉTODOS
+    // =========================================
+
+    /**
+     * Presta una conexión de la réplica. Cerrarla la devuelve a su pool.
+     * @return Conexión de solo lectura por convención
+     * @throws SQLException Si la réplica no responde o su pool está agotado
+     */
+    Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    /**
+     * Abre las conexiones mínimas del pool. Si falla, la réplica queda retirada.
+     */
+    void precargar() {
+        try {
+            pool.precargar();
+        } catch (SQLException e) {
+            retirar("no se pudo conectar: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica que la réplica responda y que su retraso no supere el máximo.
+     * Un servidor sin replicación configurada se retira: no hay forma de saber si está al día.
+     * @param retrasoMaximoSeg Segundos de retraso tolerados
+     */
+    void verificar(long retrasoMaximoSeg) {
+        try (Connection conn = pool.getConnection()) {
+            if (!conn.isValid(2)) {
+                retirar("no responde");
+                return;
+            }
+            long retraso = leerRetrasoSeg(conn);
+            if (retraso == SIN_REPLICACION) {
+                retirar("el servidor no replica");
+            } else if (retraso < 0) {
+                retirar("replicación detenida");
+            } else if (retraso > retrasoMaximoSeg) {
+                retirar("retraso de " + retraso + " s");
+            } else {
+                readmitir();
+            }
+        } catch (SQLException e) {
+            retirar("error al verificar: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retira la réplica hasta la próxima verificación exitosa.
+     * @param causa Motivo del retiro
+     */
+    void retirar(String causa) {
+        motivo = causa;
+        if (sana) {
+            sana = false;
+            System.err.println("⚠ Réplica " + direccion + " retirada: " + causa);
+        }
+    }
+
+    boolean isSana() {
+        return sana;
+    }
+
+    String getDireccion() {
+        return direccion;
+    }
+
+    String getMotivo() {
+        return motivo;
+    }
+
+    PoolStats estadisticas() {
+        return pool.estadisticas();
+    }
+
+    void cerrar() {
+        pool.cerrar();
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private void readmitir() {
+        if (!sana) {
+            sana = true;
+            System.out.println("✓ Réplica " + direccion + " disponible nuevamente.");
+        }
+    }
+
+    /**
+     * Lee el retraso de replicación. MySQL 8.0.22+ y MariaDB 10.5+ aceptan SHOW REPLICA STATUS;
+     * las versiones anteriores solo SHOW SLAVE STATUS. La columna cambia de nombre según el servidor.
+     * @return Segundos de retraso, {@link #SIN_REPLICACION} si el servidor no replica, -1 si la
+     *         replicación está detenida
+     */
+    private static long leerRetrasoSeg(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs;
+            try {
+                rs = stmt.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                rs = stmt.executeQuery("SHOW SLAVE STATUS");
+            }
+            try (ResultSet estado = rs) {
+                if (!estado.next()) {
+                    return SIN_REPLICACION;
+                }
+                long retraso;
+                try {
+                    retraso = estado.getLong("Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    retraso = estado.getLong("Seconds_Behind_Master");
+                }
+                return estado.wasNull() ? -1 : retraso;
+            }
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package importacion;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.ProgresoImportacionDAO;
+import config.GestorTransacciones;
+import model.CategoriaProducto;
+import model.CodigoBarras;
+import model.EnumTipo;
+import model.Producto;
+import service.CodigoBarrasService;
+import service.ProductoService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Importa catálogos de productos con código de barras desde archivos CSV.
+ *
+ * El archivo se procesa en etapas: un hilo lee bloques de líneas, un pool de hilos
+ * los parsea y valida en paralelo con las mismas reglas de los servicios, y un único
+ * hilo escritor inserta cada bloque en orden dentro de una transacción por lotes.
+ * La última línea confirmada se guarda con {@link ProgresoImportacionDAO} en la misma
+ * transacción que las filas, de modo que una importación interrumpida se reanuda
+ * exactamente donde quedó, sin duplicar productos ni rechazar códigos ya importados.
+ * Los rechazos se escriben antes de confirmar las filas siguientes: tras una
+ * interrupción alguno puede repetirse en el archivo de rechazos, pero no perderse.
+ *
+ * Formato: la primera línea es la cabecera. Columnas obligatorias: {@code nombre, precio}.
+ * Opcionales: {@code marca, categoria, peso, stock, tipo_codigo, valor_codigo, observaciones}.
+ * Separador ',' o ';' (se detecta en la cabecera); los campos pueden ir entre comillas
+ * dobles pero no pueden contener saltos de línea.
+ */
+public class ImportadorCsv {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Filas por bloque de procesamiento y escritura si no se indica otro valor */
+    public static final int TAMANIO_LOTE_DEFECTO = 1000;
+
+    /** Cantidad de motivos de rechazo que se conservan en el resultado */
+    private static final int MAX_MUESTRA_RECHAZOS = 20;
+
+    /** Marca de fin de archivo para el hilo escritor */
+    private static final Future<Lote> FIN = CompletableFuture.completedFuture(null);
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ProductoService productoService;
+    private final CodigoBarrasService codigoBarrasService;
+    private final ProgresoImportacionDAO progresoDAO;
+    private final int hilos;
+    private final int tamanioLote;
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea un importador con un hilo de validación por procesador y el tamaño de lote por defecto.
+     * @param productoService Servicio de productos usado para validar e insertar
+     * @param codigoBarrasService Servicio de códigos de barras usado para validar
+     * @param progresoDAO DAO donde se guarda la última línea confirmada
+     */
+    public ImportadorCsv(ProductoService productoService, CodigoBarrasService codigoBarrasService,
+                         ProgresoImportacionDAO progresoDAO) {
+        this(productoService, codigoBarrasService, progresoDAO, Runtime.getRuntime().availableProcessors(),
+                TAMANIO_LOTE_DEFECTO);
+    }
+
+    /**
+     * Crea un importador configurado.
+     * @param productoService Servicio de productos usado para validar e insertar
+     * @param codigoBarrasService Servicio de códigos de barras usado para validar
+     * @param progresoDAO DAO donde se guarda la última línea confirmada
+     * @param hilos Hilos para parseo y validación (mayor a 0)
+     * @param tamanioLote Filas por bloque y por transacción (mayor a 0)
+     * @throws IllegalArgumentException Si algún parámetro es inválido
+     */
+    public ImportadorCsv(ProductoService productoService, CodigoBarrasService codigoBarrasService,
+                         ProgresoImportacionDAO progresoDAO, int hilos, int tamanioLote) {
+        if (productoService == null || codigoBarrasService == null) {
+            throw new IllegalArgumentException("Los servicios no pueden ser null");
+        }
+        if (progresoDAO == null) {
+            throw new IllegalArgumentException("ProgresoImportacionDAO no puede ser null");
+        }
+        if (hilos <= 0 || tamanioLote <= 0) {
+            throw new IllegalArgumentException("Hilos y tamaño de lote deben ser mayores a 0");
+        }
+        this.productoService = productoService;
+        this.codigoBarrasService = codigoBarrasService;
+        this.progresoDAO = progresoDAO;
+        this.hilos = hilos;
+        this.tamanioLote = tamanioLote;
+    }
+
+    // =========================================
+    // MÉTODO PRINCIPAL
+    // =========================================
+
+    /**
+     * Importa el archivo indicado, reanudando desde su última línea confirmada si una
+     * importación anterior quedó interrumpida. El progreso se identifica por la ruta absoluta
+     * del archivo y se borra al terminar. Junto al archivo se mantiene
+     * {@code <archivo>.rechazos} con cada línea rechazada y su motivo.
+     *
+     * @param archivo Ruta del archivo CSV
+     * @return Resumen con filas insertadas, rechazos, velocidad y tiempos por etapa
+     * @throws IllegalArgumentException Si el archivo no tiene cabecera válida
+     * @throws Exception Si ocurre un error de lectura o de base de datos; lo ya confirmado queda
+     *         registrado en el progreso
+     */
+    public ResultadoImportacion importar(Path archivo) throws Exception {
+        String clave = archivo.toAbsolutePath().normalize().toString();
+        Path rechazos = archivo.resolveSibling(archivo.getFileName() + ".rechazos");
+        long ultimaLineaConfirmada = progresoDAO.getUltimaLinea(clave);
+
+        Metricas metricas = new Metricas();
+        long inicio = System.nanoTime();
+        ExecutorService procesadores = Executors.newFixedThreadPool(hilos, fabricaHilos("importacion-proceso"));
+        ExecutorService escritor = Executors.newSingleThreadExecutor(fabricaHilos("importacion-escritura"));
+        BlockingQueue<Future<Lote>> cola = new ArrayBlockingQueue<>(hilos * 2);
+
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             BufferedWriter salidaRechazos = Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+            String cabecera = lector.readLine();
+            if (cabecera == null) {
+                throw new IllegalArgumentException("El archivo está vacío: " + archivo);
+            }
+            char separador = (cabecera.indexOf(';') >= 0 && cabecera.indexOf(',') < 0) ? ';' : ',';
+            Map<String, Integer> columnas = parsearCabecera(cabecera, separador);
+
+            Future<?> escritura = escritor.submit(() -> {
+                escribir(cola, clave, salidaRechazos, metricas);
+                return null;
+            });
+
+            long numeroLinea = 1;
+            long tLectura = System.nanoTime();
+            List<String> lineas = new ArrayList<>(tamanioLote);
+            long[] numeros = new long[tamanioLote];
+            boolean escritorActivo = true;
+            String linea;
+
+            while (escritorActivo && (linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (numeroLinea <= ultimaLineaConfirmada) {
+                    metricas.omitidas++;
+                    continue;
+                }
+                if (linea.isBlank()) {
+                    continue;
+                }
+                numeros[lineas.size()] = numeroLinea;
+                lineas.add(linea);
+                metricas.leidas++;
+
+                if (lineas.size() == tamanioLote) {
+                    metricas.nanosLectura += System.nanoTime() - tLectura;
+                    escritorActivo = encolar(cola, enviar(procesadores, lineas, numeros, numeroLinea, columnas, separador, metricas), escritura);
+                    lineas = new ArrayList<>(tamanioLote);
+                    numeros = new long[tamanioLote];
+                    tLectura = System.nanoTime();
+                }
+            }
+            metricas.nanosLectura += System.nanoTime() - tLectura;
+
+            if (escritorActivo && !lineas.isEmpty()) {
+                escritorActivo = encolar(cola, enviar(procesadores, lineas, numeros, numeroLinea, columnas, separador, metricas), escritura);
+            }
+            if (escritorActivo) {
+                encolar(cola, FIN, escritura);
+            }
+
+            try {
+                escritura.get();
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                throw new Exception("Importación interrumpida: " + causa.getMessage()
+                        + ". Se reanudará desde la última línea confirmada.", causa);
+            }
+        } finally {
+            procesadores.shutdownNow();
+            escritor.shutdownNow();
+        }
+
+        progresoDAO.eliminar(clave);
+        if (Files.size(rechazos) == 0) {
+            Files.delete(rechazos);
+        }
+
+        return new ResultadoImportacion(ultimaLineaConfirmada, metricas.leidas, metricas.omitidas,
+                metricas.insertadas, metricas.rechazadas, metricas.muestraRechazos, System.nanoTime() - inicio, metricas.nanosLectura,
+                metricas.nanosParseo.sum(), metricas.nanosValidacion.sum(), metricas.nanosEscritura);
+    }
+
+    // =========================================
+    // ETAPA DE PARSEO Y VALIDACIÓN
+    // =========================================
+
+    /**
+     * Envía un bloque de líneas al pool de procesamiento.
+     */
+    private Future<Lote> enviar(ExecutorService procesadores, List<String> lineas, long[] numeros, long ultimaLinea,
+                                Map<String, Integer> columnas, char separador, Metricas metricas) {
+        return procesadores.submit(() -> procesar(lineas, numeros, ultimaLinea, columnas, separador, metricas));
+    }
+
+    /**
+     * Parsea y valida un bloque de líneas. Las filas inválidas se registran como rechazos.
+     */
+    private Lote procesar(List<String> lineas, long[] numeros, long ultimaLinea,
+                          Map<String, Integer> columnas, char separador, Metricas metricas) {
+        Lote lote = new Lote(lineas.size(), ultimaLinea);
+        long nanosParseo = 0;
+        long nanosValidacion = 0;
+
+        for (int i = 0; i < lineas.size(); i++) {
+            long t0 = System.nanoTime();
+            Producto producto;
+            CodigoBarras codigo;
+            try {
+                List<String> campos = parsearLinea(lineas.get(i), separador);
+                producto = crearProducto(campos, columnas);
+                codigo = crearCodigo(campos, columnas);
+            } catch (IllegalArgumentException e) {
+                lote.rechazos.add(numeros[i] + ": " + e.getMessage());
+                continue;
+            } finally {
+                nanosParseo += System.nanoTime() - t0;
+            }
+
+            long t1 = System.nanoTime();
+            try {
+                productoService.validarProducto(producto);
+                if (codigo != null) {
+                    codigoBarrasService.validarCodigoBarras(codigo);
+                }
+                lote.agregar(numeros[i], producto, codigo);
+            } catch (IllegalArgumentException e) {
+                lote.rechazos.add(numeros[i] + ": " + e.getMessage());
+            } finally {
+                nanosValidacion += System.nanoTime() - t1;
+            }
+        }
+
+        metricas.nanosParseo.add(nanosParseo);
+        metricas.nanosValidacion.add(nanosValidacion);
+        return lote;
+    }
+
+    // =========================================
+    // ETAPA DE ESCRITURA
+    // =========================================
+
+    /**
+     * Bucle del hilo escritor: registra los rechazos de cada bloque e inserta sus filas en orden.
+     */
+    private void escribir(BlockingQueue<Future<Lote>> cola, String archivo, BufferedWriter salidaRechazos,
+                          Metricas metricas) throws Exception {
+        while (true) {
+            Future<Lote> pendiente = cola.take();
+            if (pendiente == FIN) {
+                return;
+            }
+            Lote lote = pendiente.get();
+            for (String rechazo : lote.rechazos) {
+                registrarRechazo(rechazo, salidaRechazos, metricas);
+            }
+
+            long t0 = System.nanoTime();
+            insertarLote(lote, archivo, salidaRechazos, metricas);
+            metricas.nanosEscritura += System.nanoTime() - t0;
+            metricas.insertadas += lote.insertadas;
+        }
+    }
+
+    /**
+     * Inserta el bloque en una sola transacción por lotes junto con su progreso. Si algún
+     * código ya existe, reintenta fila por fila, cada una con su progreso, para rechazar
+     * solo las filas en conflicto, incluidas las que violan una restricción de la base.
+     */
+    private void insertarLote(Lote lote, String archivo, BufferedWriter salidaRechazos,
+                              Metricas metricas) throws Exception {
+        if (!lote.productos.isEmpty()) {
+            if (insertarBloque(lote, archivo)) {
+                return;
+            }
+            for (int i = 0; i < lote.productos.size(); i++) {
+                Producto producto = lote.productos.get(i);
+                CodigoBarras codigo = lote.codigos.get(i);
+                long linea = lote.lineas.get(i);
+                producto.setId(0);
+                producto.setCodigoBarras(null);
+                try {
+                    GestorTransacciones.enTransaccion(conn -> {
+                        if (codigo != null) {
+                            codigo.setId(0);
+                            productoService.insertarConCodigoBarras(producto, codigo);
+                        } else {
+                            productoService.insertar(producto);
+                        }
+                        progresoDAO.guardar(archivo, linea);
+                    });
+                    lote.insertadas++;
+                } catch (IllegalArgumentException e) {
+                    registrarRechazo(linea + ": " + e.getMessage(), salidaRechazos, metricas);
+                } catch (SQLException e) {
+                    // Una restricción violada es un problema de la fila; cualquier otro error detiene la importación
+                    if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                        throw e;
+                    }
+                    registrarRechazo(linea + ": " + e.getMessage(), salidaRechazos, metricas);
+                }
+            }
+        }
+        // Cubre las líneas finales del bloque que no se insertaron (rechazadas o en blanco)
+        progresoDAO.guardar(archivo, lote.ultimaLinea);
+    }
+
+    /**
+     * @return true si el bloque completo quedó confirmado, false si algún código ya existía
+     */
+    private boolean insertarBloque(Lote lote, String archivo) throws Exception {
+        try {
+            GestorTransacciones.enTransaccion(conn -> {
+                productoService.insertarConCodigoBarrasLote(lote.productos, lote.codigos);
+                progresoDAO.guardar(archivo, lote.ultimaLinea);
+            });
+            lote.insertadas = lote.productos.size();
+            return true;
+        } catch (IllegalArgumentException e) {
+            // Conflicto de unicidad en el bloque: se aísla fila por fila
+            return false;
+        }
+    }
+
+    private static void registrarRechazo(String rechazo, BufferedWriter salidaRechazos, Metricas metricas)
+            throws IOException {
+        salidaRechazos.write(rechazo);
+        salidaRechazos.newLine();
+        salidaRechazos.flush();
+        metricas.rechazadas++;
+        if (metricas.muestraRechazos.size() < MAX_MUESTRA_RECHAZOS) {
+            metricas.muestraRechazos.add("línea " + rechazo);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE PARSEO
+    // =========================================
+
+    /**
+     * Construye el índice de columnas a partir de la cabecera.
+     */
+    private Map<String, Integer> parsearCabecera(String cabecera, char separador) {
+        if (cabecera.startsWith("\uFEFF")) {
+            cabecera = cabecera.substring(1);
+        }
+        List<String> nombres = parsearLinea(cabecera, separador);
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        if (!columnas.containsKey("nombre") || !columnas.containsKey("precio")) {
+            throw new IllegalArgumentException("La cabecera debe incluir al menos las columnas 'nombre' y 'precio'.");
+        }
+        return columnas;
+    }
+
+    /**
+     * Divide una línea CSV en campos, respetando comillas dobles y comillas escapadas ("").
+     */
+    static List<String> parsearLinea(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar.");
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    private Producto crearProducto(List<String> campos, Map<String, Integer> columnas) {
+        String nombre = campo(campos, columnas, "nombre");
+        String marca = campo(campos, columnas, "marca");
+        double precio = numero(campo(campos, columnas, "precio"), "precio");
+        String pesoStr = campo(campos, columnas, "peso");
+        double peso = pesoStr.isEmpty() ? 0 : numero(pesoStr, "peso");
+        String stockStr = campo(campos, columnas, "stock");
+        int stock;
+        try {
+            stock = stockStr.isEmpty() ? 0 : Integer.parseInt(stockStr);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Stock inválido: " + stockStr);
+        }
+
+        Producto producto = new Producto(nombre, marca.isEmpty() ? null : marca, precio, peso, stock, 0);
+        String categoriaStr = campo(campos, columnas, "categoria");
+        if (!categoriaStr.isEmpty()) {
+            try {
+                producto.setCategoria(CategoriaProducto.valueOf(categoriaStr.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Categoría inválida: " + categoriaStr);
+            }
+        }
+        return producto;
+    }
+
+    private CodigoBarras crearCodigo(List<String> campos, Map<String, Integer> columnas) {
+        String valor = campo(campos, columnas, "valor_codigo");
+        if (valor.isEmpty()) {
+            return null;
+        }
+        String tipoStr = campo(campos, columnas, "tipo_codigo");
+        EnumTipo tipo;
+        try {
+            tipo = EnumTipo.valueOf(tipoStr.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de código inválido: '" + tipoStr + "'");
+        }
+        String observaciones = campo(campos, columnas, "observaciones");
+        return new CodigoBarras(0, false, tipo, valor, LocalDate.now(), observaciones.isEmpty() ? null : observaciones);
+    }
+
+    private static String campo(List<String> campos, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        return (indice == null || indice >= campos.size()) ? "" : campos.get(indice);
+    }
+
+    private static double numero(String texto, String nombre) {
+        try {
+            return Double.parseDouble(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor de " + nombre + " inválido: '" + texto + "'");
+        }
+    }
+
+    // =========================================
+    // MÉTODOS AUXILIARES
+    // =========================================
+
+    /**
+     * Encola un bloque esperando lugar; devuelve false si el escritor terminó por error.
+     */
+    private static boolean encolar(BlockingQueue<Future<Lote>> cola, Future<Lote> tarea, Future<?> escritura)
+            throws InterruptedException {
+        while (!cola.offer(tarea, 100, TimeUnit.MILLISECONDS)) {
+            if (escritura.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ThreadFactory fabricaHilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefijo + "-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Bloque de filas ya parseadas y validadas, listo para escribirse.
+     */
+    private static final class Lote {
+
+        private final List<Long> lineas;
+        private final List<Producto> productos;
+        private final List<CodigoBarras> codigos;
+        private final List<String> rechazos = new ArrayList<>();
+        private final long ultimaLinea;
+        private int insertadas;
+
+        private Lote(int capacidad, long ultimaLinea) {
+            this.lineas = new ArrayList<>(capacidad);
+            this.productos = new ArrayList<>(capacidad);
+            this.codigos = new ArrayList<>(capacidad);
+            this.ultimaLinea = ultimaLinea;
+        }
+
+        private void agregar(long linea, Producto producto, CodigoBarras codigo) {
+            lineas.add(linea);
+            productos.add(producto);
+            codigos.add(codigo);
+        }
+    }
+
+    /**
+     * Contadores de la importación. Los de lectura los usa solo el hilo lector,
+     * los de escritura solo el hilo escritor; parseo y validación son concurrentes.
+     */
+    private static final class Metricas {
+
+        private long leidas;
+        private long omitidas;
+        private long nanosLectura;
+        private final LongAdder nanosParseo = new LongAdder();
+        private final LongAdder nanosValidacion = new LongAdder();
+        private long insertadas;
+        private long rechazadas;
+        private long nanosEscritura;
+        private final List<String> muestraRechazos = new ArrayList<>();
+    }
+}
@@ -0,0 +1,189 @@
+package importacion;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen inmutable de una importación de catálogo.
+ * Incluye filas procesadas, rechazos, throughput y tiempos por etapa.
+ */
+public class ResultadoImportacion {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final long lineaReanudacion;
+    private final long filasLeidas;
+    private final long filasOmitidas;
+    private final long filasInsertadas;
+    private final long filasRechazadas;
+    private final List<String> muestraRechazos;
+    private final long nanosTotal;
+    private final long nanosLectura;
+    private final long nanosParseo;
+    private final long nanosValidacion;
+    private final long nanosEscritura;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Constructor completo del resultado.
+     * @param lineaReanudacion Última línea confirmada por una importación anterior, o 0 si empezó desde el principio
+     * @param filasLeidas Filas de datos leídas del archivo en esta ejecución
+     * @param filasOmitidas Filas saltadas por estar antes de la última línea confirmada
+     * @param filasInsertadas Productos insertados
+     * @param filasRechazadas Filas descartadas por formato, validación o duplicado
+     * @param muestraRechazos Primeros motivos de rechazo, con número de línea
+     * @param nanosTotal Duración total de la importación
+     * @param nanosLectura Tiempo de lectura del archivo
+     * @param nanosParseo Tiempo acumulado de parseo (sumado entre hilos)
+     * @param nanosValidacion Tiempo acumulado de validación (sumado entre hilos)
+     * @param nanosEscritura Tiempo de escritura en base de datos
+     */
+    public ResultadoImportacion(long lineaReanudacion, long filasLeidas, long filasOmitidas, long filasInsertadas,
+                                long filasRechazadas, List<String> muestraRechazos, long nanosTotal, long nanosLectura,
+                                long nanosParseo, long nanosValidacion, long nanosEscritura) {
+        this.lineaReanudacion = lineaReanudacion;
+        this.filasLeidas = filasLeidas;
+        this.filasOmitidas = filasOmitidas;
+        this.filasInsertadas = filasInsertadas;
+        this.filasRechazadas = filasRechazadas;
+        this.muestraRechazos = Collections.unmodifiableList(muestraRechazos);
+        this.nanosTotal = nanosTotal;
+        this.nanosLectura = nanosLectura;
+        this.nanosParseo = nanosParseo;
+        this.nanosValidacion = nanosValidacion;
+        this.nanosEscritura = nanosEscritura;
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    /**
+     * @return Última línea confirmada por una importación anterior desde la que se reanudó, o 0
+     */
+    public long getLineaReanudacion() {
+        return lineaReanudacion;
+    }
+
+    /**
+     * @return Filas de datos leídas en esta ejecución
+     */
+    public long getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    /**
+     * @return Filas saltadas por estar antes de la última línea confirmada
+     */
+    public long getFilasOmitidas() {
+        return filasOmitidas;
+    }
+
+    /**
+     * @return Productos insertados
+     */
+    public long getFilasInsertadas() {
+        return filasInsertadas;
+    }
+
+    /**
+     * @return Filas descartadas
+     */
+    public long getFilasRechazadas() {
+        return filasRechazadas;
+    }
+
+    /**
+     * @return Primeros motivos de rechazo (lista no modificable)
+     */
+    public List<String> getMuestraRechazos() {
+        return muestraRechazos;
+    }
+
+    /**
+     * @return Filas leídas por segundo sobre la duración total
+     */
+    public double getFilasPorSegundo() {
+        return nanosTotal == 0 ? 0 : filasLeidas / (nanosTotal / 1_000_000_000.0);
+    }
+
+    /**
+     * @return Duración total en milisegundos
+     */
+    public long getDuracionMs() {
+        return nanosTotal / 1_000_000;
+    }
+
+    /**
+     * @return Tiempo de lectura en milisegundos
+     */
+    public long getLecturaMs() {
+        return nanosLectura / 1_000_000;
+    }
+
+    /**
+     * @return Tiempo acumulado de parseo en milisegundos
+     */
+    public long getParseoMs() {
+        return nanosParseo / 1_000_000;
+    }
+
+    /**
+     * @return Tiempo acumulado de validación en milisegundos
+     */
+    public long getValidacionMs() {
+        return nanosValidacion / 1_000_000;
+    }
+
+    /**
+     * @return Tiempo de escritura en milisegundos
+     */
+    public long getEscrituraMs() {
+        return nanosEscritura / 1_000_000;
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Resumen en texto de la importación
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n**** RESULTADO DE IMPORTACIÓN ****");
+        sb.append("\n - Filas leídas: ").append(filasLeidas);
+        if (filasOmitidas > 0) {
+            sb.append("\n - Filas omitidas (ya importadas): ").append(filasOmitidas);
+        }
+        sb.append("\n - Filas insertadas: ").append(filasInsertadas);
+        sb.append("\n - Filas rechazadas: ").append(filasRechazadas);
+        sb.append(String.format("%n - Velocidad: %.1f filas/s", getFilasPorSegundo()));
+        sb.append("\n - Duración total: ").append(getDuracionMs()).append(" ms");
+        sb.append("\n - Tiempos por etapa (parseo y validación sumados entre hilos):");
+        sb.append("\n     lectura: ").append(getLecturaMs()).append(" ms");
+        sb.append("\n     parseo: ").append(getParseoMs()).append(" ms");
+        sb.append("\n     validación: ").append(getValidacionMs()).append(" ms");
+        sb.append("\n     escritura: ").append(getEscrituraMs()).append(" ms");
+        if (!muestraRechazos.isEmpty()) {
+            sb.append("\n - Primeros rechazos:");
+            for (String rechazo : muestraRechazos) {
+                sb.append("\n     ").append(rechazo);
+            }
+        }
+        return sb.toString();
+    }
+}
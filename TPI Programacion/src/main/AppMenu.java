@@ -8,8 +8,18 @@ package main;
  */
 
 import java.util.Scanner;
+import DAO.CodigoBarrasDAO;
+import DAO.CodigoBarrasDAOMemoria;
+import DAO.ProductoDAO;
+import DAO.ProductoDAOMemoria;
+import DAO.ProgresoImportacionDAO;
+import DAO.ProgresoImportacionDAOMemoria;
+import config.Backend;
+import config.DatabaseConnection;
 import service.ProductoService;
 import service.CodigoBarrasService;
+import service.CatalogoService;
+import service.InventarioService;
 
 /**
  * Controlador principal que gestiona el ciclo de vida de la aplicación.
@@ -24,6 +34,9 @@ public class AppMenu {
     /** Scanner para entrada de usuario, compartido en toda la aplicación */
     private final Scanner scanner;
 
+    /** Servicio de productos, cerrado al salir */
+    private final ProductoService productoService;
+
     /** Manejador de operaciones del menú */
     private final MenuHandler menuHandler;
 
@@ -36,13 +49,28 @@ public class AppMenu {
 
     /**
      * Construye e inicializa la aplicación con todas las dependencias. 
-     * Crea servicios y configura el manejador del menú.
+     * Crea los DAOs del backend configurado, los servicios y el manejador del menú.
      */
     public AppMenu() {
         this.scanner = new Scanner(System.in);
-        ProductoService productoService = createProductoService();
-        CodigoBarrasService codigoBarrasService = createCodigoBarrasService();
-        this.menuHandler = new MenuHandler(scanner, productoService, codigoBarrasService);
+        CodigoBarrasDAO codigoBarrasDAO;
+        ProductoDAO productoDAO;
+        ProgresoImportacionDAO progresoImportacionDAO;
+        if (DatabaseConnection.getBackend() == Backend.MEMORIA) {
+            CodigoBarrasDAOMemoria codigosMemoria = new CodigoBarrasDAOMemoria();
+            codigoBarrasDAO = codigosMemoria;
+            productoDAO = new ProductoDAOMemoria(codigosMemoria);
+            progresoImportacionDAO = new ProgresoImportacionDAOMemoria();
+        } else {
+            codigoBarrasDAO = new CodigoBarrasDAO();
+            productoDAO = new ProductoDAO();
+            progresoImportacionDAO = new ProgresoImportacionDAO();
+        }
+        CodigoBarrasService codigoBarrasService = createCodigoBarrasService(codigoBarrasDAO);
+        this.productoService = createProductoService(productoDAO, codigoBarrasService);
+        InventarioService inventarioService = new InventarioService(productoDAO, CatalogoService.crear(productoDAO));
+        this.menuHandler = new MenuHandler(scanner, productoService, codigoBarrasService, inventarioService,
+                progresoImportacionDAO);
         this.running = true;
     }
 
@@ -75,6 +103,7 @@ public class AppMenu {
             }
         }
         scanner.close();
+        productoService.close();
     }
 
     // =========================================
@@ -98,6 +127,9 @@ public class AppMenu {
             case 9 -> menuHandler.actualizarCodigoBarrasPorId();
             case 10 -> menuHandler.eliminarCodigoBarrasPorId();
             case 11 -> menuHandler.recuperarCodigoBarrasPorId();
+            case 12 -> menuHandler.importarCatalogoCsv();
+            case 13 -> menuHandler.mostrarMetricas();
+            case 14 -> menuHandler.mostrarValorizacion();
 
             case 0 -> {
                 System.out.println("Saliendo...");
@@ -113,17 +145,20 @@ public class AppMenu {
 
     /**
      * Crea el servicio de productos con sus dependencias.
+     * @param productoDAO DAO de productos del backend configurado
+     * @param codigoBarrasService Servicio de códigos de barras compartido
      * @return Instancia configurada de ProductoService
      */
-    private ProductoService createProductoService() {
-        return new ProductoService();
+    private ProductoService createProductoService(ProductoDAO productoDAO, CodigoBarrasService codigoBarrasService) {
+        return new ProductoService(productoDAO, codigoBarrasService);
     }
 
     /**
      * Crea el servicio de códigos de barras con sus dependencias.
+     * @param codigoBarrasDAO DAO de códigos de barras del backend configurado
      * @return Instancia configurada de CodigoBarrasService
      */
-    private CodigoBarrasService createCodigoBarrasService() {
-        return new CodigoBarrasService();
+    private CodigoBarrasService createCodigoBarrasService(CodigoBarrasDAO codigoBarrasDAO) {
+        return new CodigoBarrasService(codigoBarrasDAO);
     }
 }
\ No newline at end of file
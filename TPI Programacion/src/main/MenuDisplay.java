@@ -43,6 +43,15 @@ public class MenuDisplay {
     System.out.println("│   10.  ↪ Eliminar código de barras");
     System.out.println("│   11.  ↪ Recuperar codigo barras eliminado");
     System.out.println("├──────────────────────────────────────────────────┤");
+    System.out.println("│   ✅    IMPORTACIÓN 📥");
+    System.out.println("├──────────────────────────────────────────────────┤");
+    System.out.println("│   12.  ↪ Importar catálogo desde CSV");
+    System.out.println("├──────────────────────────────────────────────────┤");
+    System.out.println("│   ✅    MONITOREO 📊");
+    System.out.println("├──────────────────────────────────────────────────┤");
+    System.out.println("│   13.  ↪ Ver métricas");
+    System.out.println("│   14.  ↪ Ver valorización de inventario");
+    System.out.println("├──────────────────────────────────────────────────┤");
     System.out.println("│   0.   ↩ Salir");
     System.out.println("└──────────────────────────────────────────────────┘");
     System.out.print("\nSELECCIONE UNA OPCIÓN: ");
@@ -7,9 +7,21 @@ package main;
 @author Gaston Alberto Cejas
  */
 
+import DAO.ConflictoVersionException;
+import DAO.Orden;
+import DAO.Pagina;
+import DAO.ProductoResumen;
+import DAO.ProgresoImportacionDAO;
+import DAO.TotalesInventario;
+import importacion.ImportadorCsv;
+import importacion.ResultadoImportacion;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import metricas.RegistroMetricas;
 import model.Producto;
 import java.util.Scanner;
 import model.CategoriaProducto;
@@ -17,6 +29,7 @@ import model.CodigoBarras;
 import model.EnumTipo;
 import service.ProductoService;
 import service.CodigoBarrasService;
+import service.InventarioService;
 
 /**
  * Manejador de operaciones del menú para gestión de productos y códigos de barras. 
@@ -37,6 +50,18 @@ public class MenuHandler {
     /** Servicio para operaciones de códigos de barras */
     private final CodigoBarrasService codigoBarrasService;
 
+    /** Servicio de valorización de inventario */
+    private final InventarioService inventarioService;
+
+    /** Progreso de las importaciones CSV, para reanudar las interrumpidas */
+    private final ProgresoImportacionDAO progresoImportacionDAO;
+
+    /** Cantidad de elementos que se muestran por página en los listados completos */
+    private static final int TAMANIO_PAGINA = 20;
+
+    /** Máximo de resultados mostrados en una búsqueda por nombre */
+    private static final int LIMITE_BUSQUEDA = 50;
+
     // =========================================
     // CONSTRUCTOR
     // =========================================
@@ -46,9 +71,12 @@ public class MenuHandler {
      * @param scanner Scanner para entrada de usuario
      * @param productoService Servicio de productos
      * @param codigoBarrasService Servicio de códigos de barras
+     * @param inventarioService Servicio de valorización de inventario
+     * @param progresoImportacionDAO DAO del progreso de las importaciones CSV
      * @throws IllegalArgumentException si cualquier dependencia es null
      */
-    public MenuHandler(Scanner scanner, ProductoService productoService, CodigoBarrasService codigoBarrasService) {
+    public MenuHandler(Scanner scanner, ProductoService productoService, CodigoBarrasService codigoBarrasService,
+                       InventarioService inventarioService, ProgresoImportacionDAO progresoImportacionDAO) {
         if (scanner == null) {
             throw new IllegalArgumentException("Scanner no puede ser null");
         }
@@ -58,9 +86,17 @@ public class MenuHandler {
         if (codigoBarrasService == null) {
             throw new IllegalArgumentException("CodigoBarrasService no puede ser null");
         }
+        if (inventarioService == null) {
+            throw new IllegalArgumentException("InventarioService no puede ser null");
+        }
+        if (progresoImportacionDAO == null) {
+            throw new IllegalArgumentException("ProgresoImportacionDAO no puede ser null");
+        }
         this.scanner = scanner;
         this.productoService = productoService;
         this.codigoBarrasService = codigoBarrasService;
+        this.inventarioService = inventarioService;
+        this.progresoImportacionDAO = progresoImportacionDAO;
     }
 
     // =========================================
@@ -126,10 +162,16 @@ public class MenuHandler {
             List<Producto> productos = new ArrayList<>();
 
             switch (subopcion) {
-                case 1 -> productos = listarTodosProductos();
+                case 1 -> {
+                    listarTodosProductos();
+                    return;
+                }
                 case 2 -> productos = listarPorId();
                 case 3 -> productos = listarPorNombre();
-                case 4 -> productos = listarPorCategoria();
+                case 4 -> {
+                    listarPorCategoria();
+                    return;
+                }
                 case 0 -> {
                     System.out.println("\n↩ Volviendo al menu principal...");
                     return;
@@ -218,6 +260,8 @@ public class MenuHandler {
                 System.out.println("\n✓ Producto actualizado exitosamente: " + productoActualizar.getNombre());
             } catch (IllegalArgumentException e) {
                 System.err.println("Error de validación: " + e.getMessage());
+            } catch (ConflictoVersionException e) {
+                System.err.println("No se guardaron los cambios: " + e.getMessage());
             } catch (Exception e) {
                 System.err.println("Error al actualizar producto: " + e.getMessage());
             }
@@ -235,7 +279,7 @@ public class MenuHandler {
     public void eliminarProducto() {
         try {
             int id = validarIntPositivo("Ingrese el ID del producto a eliminar: ", scanner);
-            Producto productoEliminar = productoService.getById(id);
+            ProductoResumen productoEliminar = productoService.getResumen(id);
 
             if (productoEliminar == null) {
                 System.out.println("Producto no encontrado con ID: " + id);
@@ -337,17 +381,36 @@ public class MenuHandler {
     // =========================================
 
     /**
-     * Recupera todos los productos activos del sistema.
-     * @return Lista de productos, lista vacía si no hay resultados
+     * Muestra ID, nombre y stock de todos los productos activos página por página.
+     * Solo se consulta y mantiene en memoria la página actual; el detalle completo
+     * se ve con el listado por ID.
      */
-    private List<Producto> listarTodosProductos() {
+    private void listarTodosProductos() {
         try {
+            Orden orden = elegirOrden();
             System.out.println("\nBuscando todos los productos...");
-            List<Producto> productos = productoService.getAll();
-            return productos != null ? productos : new ArrayList<>();
+            long cursor = Pagina.INICIO;
+            int total = 0;
+            Pagina<ProductoResumen> pagina;
+            do {
+                pagina = productoService.getPaginaResumen(cursor, TAMANIO_PAGINA, orden);
+                if (total == 0 && !pagina.isEmpty()) {
+                    System.out.println("\n**** PRODUCTOS ENCONTRADOS (" + productoService.countActivos(null) + " activos) ****");
+                }
+                for (ProductoResumen p : pagina.getElementos()) {
+                    System.out.println(p);
+                }
+                total += pagina.getElementos().size();
+                cursor = pagina.getSiguienteCursor();
+            } while (pagina.hayMas() && continuarPaginando());
+
+            if (total == 0) {
+                System.out.println("No se encontraron productos.");
+            } else {
+                System.out.println("\nTotal mostrado: " + total + " producto(s)");
+            }
         } catch (Exception e) {
             System.err.println("Error al obtener productos: " + e.getMessage());
-            return new ArrayList<>();
         }
     }
 
@@ -392,14 +455,10 @@ public class MenuHandler {
             if (producto != null) {
                 resultado.add(producto);
             } else {
-                List<Producto> todos = productoService.getAll();
-                if (todos != null) {
-                    for (Producto p : todos) {
-                        if (p.getNombre() != null
-                                && p.getNombre().toLowerCase().contains(filtro.toLowerCase())) {
-                            resultado.add(p);
-                        }
-                    }
+                resultado = productoService.buscarPorNombre(filtro, LIMITE_BUSQUEDA);
+                if (resultado.size() == LIMITE_BUSQUEDA) {
+                    System.out.println("Se muestran los primeros " + LIMITE_BUSQUEDA
+                            + " resultados. Refine la búsqueda para ver otros.");
                 }
             }
             return resultado;
@@ -410,29 +469,37 @@ public class MenuHandler {
     }
 
     /**
-     * Filtra productos por categoría específica.
-     * @return Lista de productos de la categoría seleccionada
+     * Muestra ID, nombre y stock de los productos de una categoría página por página.
+     * El filtro se resuelve en la base de datos, leyendo solo el índice de la categoría.
      */
-    private List<Producto> listarPorCategoria() {
+    private void listarPorCategoria() {
         try {
             CategoriaProducto categoriaElegida = seleccionarCategoria();
             System.out.println("\nBuscando productos de la categoría: " + categoriaElegida.name() + "\n");
 
-            List<Producto> todos = productoService.getAll();
-            List<Producto> productosCategoria = new ArrayList<>();
-
-            if (todos != null) {
-                for (Producto producto : todos) {
-                    if (producto.getCategoria() != null
-                            && producto.getCategoria().equals(categoriaElegida)) {
-                        productosCategoria.add(producto);
-                    }
+            long cursor = Pagina.INICIO;
+            int total = 0;
+            Pagina<ProductoResumen> pagina;
+            do {
+                pagina = productoService.getResumenPorCategoria(categoriaElegida, cursor, TAMANIO_PAGINA, Orden.ASC);
+                if (total == 0 && !pagina.isEmpty()) {
+                    System.out.println("\n**** PRODUCTOS ENCONTRADOS ("
+                            + productoService.countActivos(categoriaElegida) + " activos) ****");
+                }
+                for (ProductoResumen p : pagina.getElementos()) {
+                    System.out.println(p);
                 }
+                total += pagina.getElementos().size();
+                cursor = pagina.getSiguienteCursor();
+            } while (pagina.hayMas() && continuarPaginando());
+
+            if (total == 0) {
+                System.out.println("No se encontraron productos.");
+            } else {
+                System.out.println("\nTotal mostrado: " + total + " producto(s)");
             }
-            return productosCategoria;
         } catch (Exception e) {
             System.err.println("Error al buscar productos por categoría: " + e.getMessage());
-            return new ArrayList<>();
         }
     }
 
@@ -471,7 +538,10 @@ public class MenuHandler {
             List<CodigoBarras> codigoBarras = new ArrayList<>();
 
             switch (subopcion) {
-                case 1 -> codigoBarras = listarCodigoBarras();
+                case 1 -> {
+                    listarCodigoBarras();
+                    return;
+                }
                 case 2 -> codigoBarras = listarPorIdCodigo();
                 case 0 -> {
                     System.out.println("\n↩ Volviendo al menu principal...");
@@ -535,6 +605,8 @@ public class MenuHandler {
                 System.out.println("Codigo de barras actualizado exitosamente.");
             } catch (IllegalArgumentException e) {
                 System.err.println("Error de validación: " + e.getMessage());
+            } catch (ConflictoVersionException e) {
+                System.err.println("No se guardaron los cambios: " + e.getMessage());
             } catch (Exception e) {
                 System.err.println("Error al actualizar el codigo de barras: " + e.getMessage());
             }
@@ -604,6 +676,76 @@ public class MenuHandler {
         }
     }
 
+    // =========================================
+    // MÉTODOS DE IMPORTACIÓN
+    // =========================================
+
+    /**
+     * Importa productos con código de barras desde un archivo CSV.
+     * Si una importación anterior del mismo archivo quedó interrumpida, continúa desde su última línea confirmada.
+     */
+    public void importarCatalogoCsv() {
+        try {
+            System.out.println("\nColumnas: nombre, precio (obligatorias); marca, categoria, peso, stock, tipo_codigo, valor_codigo, observaciones");
+            String ruta = validarEntradaString(scanner, "ruta del archivo CSV");
+            Path archivo = Path.of(ruta);
+            if (!Files.isRegularFile(archivo)) {
+                System.out.println("No se encontró el archivo: " + ruta);
+                return;
+            }
+
+            System.out.println("\nImportando catálogo...");
+            ImportadorCsv importador = new ImportadorCsv(productoService, codigoBarrasService, progresoImportacionDAO);
+            ResultadoImportacion resultado = importador.importar(archivo);
+            if (resultado.getLineaReanudacion() > 0) {
+                System.out.println("↻ Importación reanudada después de la línea " + resultado.getLineaReanudacion());
+            }
+            System.out.println(resultado);
+            if (resultado.getFilasRechazadas() > 0) {
+                System.out.println("\nDetalle de rechazos en: " + archivo + ".rechazos");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error de formato: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error al importar catálogo: " + e.getMessage());
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE MÉTRICAS
+    // =========================================
+
+    /**
+     * Muestra llamadas, errores y latencias de las operaciones ejecutadas, y el estado
+     * del pool de conexiones y de las cachés.
+     */
+    public void mostrarMetricas() {
+        System.out.println("\nMétricas desde el inicio (latencias en microsegundos):\n");
+        System.out.println(RegistroMetricas.volcarTexto());
+    }
+
+    /**
+     * Muestra productos, unidades, valor y peso del stock activo por categoría y el total.
+     * Se calcula en el momento, agrupando en la base de datos.
+     */
+    public void mostrarValorizacion() {
+        try {
+            System.out.println("\nCalculando valorización del inventario...\n");
+            Map<CategoriaProducto, TotalesInventario> totales = inventarioService.getTotalesPorCategoria();
+            if (totales.isEmpty()) {
+                System.out.println("No hay productos activos.");
+                return;
+            }
+            for (Map.Entry<CategoriaProducto, TotalesInventario> grupo : totales.entrySet()) {
+                String categoria = (grupo.getKey() != null) ? grupo.getKey().name() : "SIN CATEGORÍA";
+                System.out.println(String.format(" - %-15s %s", categoria, grupo.getValue()));
+            }
+            System.out.println(String.format("%n   %-15s %s", "TOTAL", TotalesInventario.total(totales.values())));
+        } catch (Exception e) {
+            System.err.println("Error al calcular la valorización: " + e.getMessage());
+        }
+    }
+
     // =========================================
     // MÉTODOS AUXILIARES DE CÓDIGOS DE BARRAS
     // =========================================
@@ -623,21 +765,36 @@ public class MenuHandler {
     }
 
     /**
-     * Recupera todos los códigos de barras activos del sistema.
-     * @return Lista de códigos de barras, lista vacía si no hay resultados
+     * Muestra todos los códigos de barras activos página por página.
+     * Solo se consulta y mantiene en memoria la página actual.
      */
-    private List<CodigoBarras> listarCodigoBarras() {
-        System.out.println("\nBuscando todos los códogos de barra...");
-        List<CodigoBarras> codigos = new ArrayList<>();
+    private void listarCodigoBarras() {
         try {
-            List<CodigoBarras> desdeService = codigoBarrasService.getAll();
-            if (desdeService != null) {
-                codigos.addAll(desdeService);
+            Orden orden = elegirOrden();
+            System.out.println("\nBuscando todos los códogos de barra...");
+            long cursor = Pagina.INICIO;
+            int total = 0;
+            Pagina<CodigoBarras> pagina;
+            do {
+                pagina = codigoBarrasService.getPagina(cursor, TAMANIO_PAGINA, orden);
+                if (total == 0 && !pagina.isEmpty()) {
+                    System.out.println("\n**** CÓDIGOS ENCONTRADOS ****");
+                }
+                for (CodigoBarras c : pagina.getElementos()) {
+                    System.out.println(c);
+                }
+                total += pagina.getElementos().size();
+                cursor = pagina.getSiguienteCursor();
+            } while (pagina.hayMas() && continuarPaginando());
+
+            if (total == 0) {
+                System.out.println("No se encontraron códigos.");
+            } else {
+                System.out.println("\nTotal mostrado: " + total + " codigo(s)");
             }
         } catch (Exception e) {
             System.err.println("Error al listar códogos de barra: " + e.getMessage());
         }
-        return codigos;
     }
 
     /**
@@ -694,6 +851,24 @@ public class MenuHandler {
         }
     }
 
+    /**
+     * Permite al usuario elegir el orden del listado por ID.
+     * @return Orden.DESC si elige los más recientes primero, Orden.ASC en otro caso
+     */
+    private Orden elegirOrden() {
+        System.out.print("\n¿Mostrar primero los más recientes? (ingrese \"s\" para Si o cualquier otro caracter para no): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("s") ? Orden.DESC : Orden.ASC;
+    }
+
+    /**
+     * Pregunta al usuario si desea ver la siguiente página de un listado.
+     * @return true si el usuario desea continuar
+     */
+    private boolean continuarPaginando() {
+        System.out.print("\n-- Enter para ver la siguiente página o \"q\" para terminar: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     /**
      * Permite al usuario seleccionar un tipo de código de barras.
      * @return EnumTipo seleccionado
@@ -20,7 +20,7 @@ public class main {
     
     /**
      * Punto de entrada del sistema que coordina la inicialización y ejecución.
-     * Inicializa estilos, verifica la base de datos y lanza el menú principal.
+     * Inicializa estilos, verifica la base de datos, lanza el menú principal y libera el pool de conexiones al salir.
      */
     public static void main(String[] args) {
         MenuStyle.style(args);
@@ -36,6 +36,8 @@ public class main {
         } catch (Exception e) {
             System.err.println("\nError fatal al iniciar la aplicacion: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            DatabaseConnection.cerrarPool();
         }
     }
 }
@@ -0,0 +1,141 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con cubetas logarítmico-lineales, al estilo HDR.
+ *
+ * Los valores menores a {@value #SUBCUBETAS} nanosegundos tienen una cubeta cada uno; por encima,
+ * cada potencia de dos se divide en {@value #SUBCUBETAS_POR_POTENCIA} cubetas iguales, por lo que
+ * el error relativo de un percentil es menor al 2% en todo el rango (hasta unos 73 minutos;
+ * los valores mayores se acumulan en la última cubeta).
+ *
+ * Registrar no reserva memoria ni toma bloqueos: es un incremento atómico sobre un arreglo
+ * de tamaño fijo. Las lecturas trabajan sobre una copia y pueden ver registros a medio sumar.
+ */
+public final class Histograma {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Valores con cubeta propia (0 a 63 ns) */
+    private static final int SUBCUBETAS = 64;
+
+    /** Cubetas por cada potencia de dos a partir de {@link #SUBCUBETAS} */
+    private static final int SUBCUBETAS_POR_POTENCIA = SUBCUBETAS / 2;
+
+    /** Bits de precisión dentro de una potencia de dos */
+    private static final int BITS_SUBCUBETA = 5;
+
+    /** Mayor potencia de dos con cubetas propias (2^42 ns, unos 73 minutos) */
+    private static final int POTENCIA_MAXIMA = 42;
+
+    /** Potencia de dos de {@link #SUBCUBETAS} */
+    private static final int POTENCIA_MINIMA = 6;
+
+    private static final int CANTIDAD_CUBETAS =
+            SUBCUBETAS + (POTENCIA_MAXIMA - POTENCIA_MINIMA + 1) * SUBCUBETAS_POR_POTENCIA;
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CANTIDAD_CUBETAS);
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Registra un valor. Los negativos se cuentan como 0.
+     * @param nanos Valor en nanosegundos
+     */
+    public void registrar(long nanos) {
+        cuentas.incrementAndGet(indice(nanos));
+    }
+
+    /**
+     * Copia las cuentas actuales para calcular percentiles de un mismo instante.
+     * @return Cuentas por cubeta
+     */
+    public long[] copiar() {
+        long[] copia = new long[CANTIDAD_CUBETAS];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = cuentas.get(i);
+        }
+        return copia;
+    }
+
+    /**
+     * Pone todas las cuentas en cero.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CANTIDAD_CUBETAS; i++) {
+            cuentas.set(i, 0);
+        }
+    }
+
+    /**
+     * Calcula un percentil sobre una copia de las cuentas.
+     * @param copia Cuentas obtenidas con {@link #copiar()}
+     * @param percentil Percentil entre 0 y 100
+     * @return Valor representativo de la cubeta del percentil en nanosegundos, o 0 si no hay registros
+     */
+    public static long percentil(long[] copia, double percentil) {
+        long total = 0;
+        for (long cuenta : copia) {
+            total += cuenta;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return valorMedio(i);
+            }
+        }
+        return valorMedio(copia.length - 1);
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private static int indice(long nanos) {
+        if (nanos < SUBCUBETAS) {
+            return (nanos < 0) ? 0 : (int) nanos;
+        }
+        int potencia = 63 - Long.numberOfLeadingZeros(nanos);
+        if (potencia > POTENCIA_MAXIMA) {
+            return CANTIDAD_CUBETAS - 1;
+        }
+        int desplazamiento = potencia - BITS_SUBCUBETA;
+        int sub = (int) (nanos >>> desplazamiento) - SUBCUBETAS_POR_POTENCIA;
+        return SUBCUBETAS + (potencia - POTENCIA_MINIMA) * SUBCUBETAS_POR_POTENCIA + sub;
+    }
+
+    /**
+     * @return Punto medio del rango de valores de una cubeta
+     */
+    private static long valorMedio(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int relativo = indice - SUBCUBETAS;
+        int potencia = POTENCIA_MINIMA + relativo / SUBCUBETAS_POR_POTENCIA;
+        int desplazamiento = potencia - BITS_SUBCUBETA;
+        long inferior = (long) (SUBCUBETAS_POR_POTENCIA + relativo % SUBCUBETAS_POR_POTENCIA) << desplazamiento;
+        return inferior + ((1L << desplazamiento) >>> 1);
+    }
+}
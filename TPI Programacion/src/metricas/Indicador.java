@@ -0,0 +1,57 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Locale;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Valor instantáneo que se lee al consultarlo, como las conexiones activas del pool
+ * o la tasa de aciertos de una caché.
+ */
+public final class Indicador implements IndicadorMBean {
+
+    private final String nombre;
+    private final DoubleSupplier lectura;
+
+    /**
+     * Crea el indicador. Usar {@link RegistroMetricas#registrarIndicador(String, DoubleSupplier)}
+     * para que quede publicado.
+     * @param nombre Nombre del indicador, por ejemplo "pool.activas"
+     * @param lectura Función que devuelve el valor actual
+     */
+    Indicador(String nombre, DoubleSupplier lectura) {
+        this.nombre = nombre;
+        this.lectura = lectura;
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return Valor actual, o NaN si la lectura falla
+     */
+    @Override
+    public double getValor() {
+        try {
+            return lectura.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return Línea con el nombre y el valor actual
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-42s %14.2f", nombre, getValor());
+    }
+}
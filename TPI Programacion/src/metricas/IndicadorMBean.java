@@ -0,0 +1,18 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Atributos JMX de un {@link Indicador}.
+ */
+public interface IndicadorMBean {
+
+    String getNombre();
+
+    double getValor();
+}
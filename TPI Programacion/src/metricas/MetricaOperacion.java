@@ -0,0 +1,180 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Llamadas, errores y distribución de latencias de una operación de DAO o de servicio.
+ *
+ * Se obtiene una vez con {@link RegistroMetricas#operacion(String)}, se guarda en una constante
+ * y en cada llamada se usa así, sin reservar memoria:
+ * <pre>
+ * long inicio = System.nanoTime();
+ * try {
+ *     ...
+ * } catch (Exception | Error e) {
+ *     METRICA.contarError();
+ *     throw e;
+ * } finally {
+ *     METRICA.registrar(inicio);
+ * }
+ * </pre>
+ */
+public final class MetricaOperacion implements MetricaOperacionMBean {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final String nombre;
+    private final Histograma latencias = new Histograma();
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder nanosTotales = new LongAdder();
+    private final AtomicLong nanosMaximo = new AtomicLong();
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea la métrica. Usar {@link RegistroMetricas#operacion(String)} para que quede publicada.
+     * @param nombre Nombre de la operación, por ejemplo "dao.producto.getById"
+     */
+    MetricaOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    // =========================================
+    // REGISTRO
+    // =========================================
+
+    /**
+     * Registra una llamada terminada, con o sin error.
+     * @param inicioNanos Valor de {@link System#nanoTime()} al comenzar la llamada
+     */
+    public void registrar(long inicioNanos) {
+        registrarDuracion(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Registra una llamada terminada cuya duración se midió por otro medio.
+     * @param duracion Duración en nanosegundos
+     */
+    public void registrarDuracion(long duracion) {
+        latencias.registrar(duracion);
+        llamadas.increment();
+        nanosTotales.add(duracion);
+        long maximo = nanosMaximo.get();
+        while (duracion > maximo && !nanosMaximo.compareAndSet(maximo, duracion)) {
+            maximo = nanosMaximo.get();
+        }
+    }
+
+    /**
+     * Cuenta una llamada que terminó con una excepción. Su latencia se registra
+     * igual con {@link #registrar(long)}.
+     */
+    public void contarError() {
+        errores.increment();
+    }
+
+    /**
+     * Pone en cero los contadores y la distribución.
+     */
+    @Override
+    public void reiniciar() {
+        latencias.reiniciar();
+        llamadas.reset();
+        errores.reset();
+        nanosTotales.reset();
+        nanosMaximo.set(0);
+    }
+
+    // =========================================
+    // MÉTODOS GETTER
+    // =========================================
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return llamadas.sum();
+    }
+
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    @Override
+    public double getLatenciaPromedioUs() {
+        long cantidad = llamadas.sum();
+        return (cantidad == 0) ? 0 : nanosTotales.sum() / 1_000.0 / cantidad;
+    }
+
+    @Override
+    public double getP50Us() {
+        return percentilUs(50);
+    }
+
+    @Override
+    public double getP99Us() {
+        return percentilUs(99);
+    }
+
+    @Override
+    public double getP999Us() {
+        return percentilUs(99.9);
+    }
+
+    @Override
+    public double getLatenciaMaximaUs() {
+        return nanosMaximo.get() / 1_000.0;
+    }
+
+    /**
+     * Calcula un percentil de latencia.
+     * @param percentil Percentil entre 0 y 100
+     * @return Latencia en microsegundos
+     */
+    public double percentilUs(double percentil) {
+        return percentilAcotado(latencias.copiar(), percentil) / 1_000.0;
+    }
+
+    /**
+     * El valor de una cubeta es su punto medio, que puede superar al máximo registrado.
+     */
+    private long percentilAcotado(long[] copia, double percentil) {
+        return Math.min(Histograma.percentil(copia, percentil), nanosMaximo.get());
+    }
+
+    // =========================================
+    // MÉTODOS SOBREESCRITOS
+    // =========================================
+
+    /**
+     * @return Línea con llamadas, errores y percentiles calculados sobre una misma copia
+     */
+    @Override
+    public String toString() {
+        long[] copia = latencias.copiar();
+        return String.format(Locale.ROOT, "%-42s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f",
+                nombre, getLlamadas(), getErrores(), getLatenciaPromedioUs(),
+                percentilAcotado(copia, 50) / 1_000.0,
+                percentilAcotado(copia, 99) / 1_000.0,
+                percentilAcotado(copia, 99.9) / 1_000.0,
+                getLatenciaMaximaUs());
+    }
+}
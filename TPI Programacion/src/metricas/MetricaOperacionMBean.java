@@ -0,0 +1,32 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Atributos JMX de una {@link MetricaOperacion}. Las latencias se publican en microsegundos.
+ */
+public interface MetricaOperacionMBean {
+
+    String getNombre();
+
+    long getLlamadas();
+
+    long getErrores();
+
+    double getLatenciaPromedioUs();
+
+    double getP50Us();
+
+    double getP99Us();
+
+    double getP999Us();
+
+    double getLatenciaMaximaUs();
+
+    void reiniciar();
+}
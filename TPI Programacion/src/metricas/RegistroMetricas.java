@@ -0,0 +1,224 @@
+package metricas;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registro central de métricas de la aplicación.
+ *
+ * Guarda una {@link MetricaOperacion} por operación de DAO y de servicio, y los
+ * {@link Indicador} del pool de conexiones y de las cachés. Todo lo registrado se publica
+ * como MBean bajo el dominio {@value #DOMINIO_JMX} (visible con JConsole o VisualVM) y puede
+ * volcarse como texto con {@link #volcarTexto()}.
+ *
+ * La publicación JMX puede desactivarse con {@code -Dtpi.metricas.jmx=false}.
+ */
+public final class RegistroMetricas {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Dominio de los nombres JMX */
+    public static final String DOMINIO_JMX = "tpi";
+
+    private static final boolean JMX_ACTIVO =
+            Boolean.parseBoolean(System.getProperty("tpi.metricas.jmx", "true"));
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    /** Métricas por nombre, ordenadas para el volcado */
+    private static final Map<String, MetricaOperacion> OPERACIONES = new ConcurrentSkipListMap<>();
+
+    /** Indicadores por nombre, ordenados para el volcado */
+    private static final Map<String, Indicador> INDICADORES = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private RegistroMetricas() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    // =========================================
+    // REGISTRO
+    // =========================================
+
+    /**
+     * Obtiene la métrica de una operación, creándola y publicándola en el primer uso.
+     * Pensado para inicializar constantes: no llamar en cada operación.
+     * @param nombre Nombre de la operación, por ejemplo "service.producto.getById"
+     * @return Métrica compartida por todos los que usan el mismo nombre
+     * @throws IllegalArgumentException Si el nombre está vacío
+     */
+    public static MetricaOperacion operacion(String nombre) {
+        validarNombre(nombre);
+        MetricaOperacion metrica = OPERACIONES.get(nombre);
+        if (metrica != null) {
+            return metrica;
+        }
+        synchronized (OPERACIONES) {
+            metrica = OPERACIONES.get(nombre);
+            if (metrica == null) {
+                metrica = new MetricaOperacion(nombre);
+                OPERACIONES.put(nombre, metrica);
+                publicar("Operacion", nombre, metrica);
+            }
+            return metrica;
+        }
+    }
+
+    /**
+     * Registra un indicador. Si ya existía uno con el mismo nombre, lo reemplaza
+     * (por ejemplo, al crear de nuevo un servicio con su caché).
+     * @param nombre Nombre del indicador, por ejemplo "cache.producto.tasaAciertos"
+     * @param lectura Función que devuelve el valor actual; no debe bloquear
+     * @return Indicador registrado, para retirarlo con {@link #retirarIndicador(Indicador)}
+     * @throws IllegalArgumentException Si el nombre está vacío o la lectura es null
+     */
+    public static Indicador registrarIndicador(String nombre, DoubleSupplier lectura) {
+        validarNombre(nombre);
+        if (lectura == null) {
+            throw new IllegalArgumentException("La lectura del indicador no puede ser null");
+        }
+        Indicador indicador = new Indicador(nombre, lectura);
+        synchronized (INDICADORES) {
+            if (INDICADORES.put(nombre, indicador) != null) {
+                retirar("Indicador", nombre);
+            }
+            publicar("Indicador", nombre, indicador);
+        }
+        return indicador;
+    }
+
+    /**
+     * Retira un indicador para que el registro deje de referenciar su lectura (y lo que ella
+     * referencia). Si ya fue reemplazado por otro con el mismo nombre, no hace nada.
+     * @param indicador Indicador devuelto por {@link #registrarIndicador(String, DoubleSupplier)}
+     */
+    public static void retirarIndicador(Indicador indicador) {
+        synchronized (INDICADORES) {
+            if (INDICADORES.remove(indicador.getNombre(), indicador)) {
+                retirar("Indicador", indicador.getNombre());
+            }
+        }
+    }
+
+    // =========================================
+    // CONSULTA
+    // =========================================
+
+    /**
+     * @return Métricas de operación registradas, ordenadas por nombre
+     */
+    public static List<MetricaOperacion> getOperaciones() {
+        return new ArrayList<>(OPERACIONES.values());
+    }
+
+    /**
+     * @return Indicadores registrados, ordenados por nombre
+     */
+    public static List<Indicador> getIndicadores() {
+        return new ArrayList<>(INDICADORES.values());
+    }
+
+    /**
+     * Arma un volcado en texto de todas las métricas: una línea por operación con llamadas
+     * y latencias en microsegundos, y una línea por indicador. Las operaciones sin llamadas
+     * se omiten.
+     * @return Texto listo para imprimir
+     */
+    public static String volcarTexto() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "%-42s %10s %8s %10s %10s %10s %10s %10s%n",
+                "OPERACION", "LLAMADAS", "ERRORES", "PROM us", "P50 us", "P99 us", "P99.9 us", "MAX us"));
+        for (MetricaOperacion metrica : OPERACIONES.values()) {
+            if (metrica.getLlamadas() > 0) {
+                texto.append(metrica).append(System.lineSeparator());
+            }
+        }
+        if (!INDICADORES.isEmpty()) {
+            texto.append(System.lineSeparator());
+            texto.append(String.format(Locale.ROOT, "%-42s %14s%n", "INDICADOR", "VALOR"));
+            for (Indicador indicador : INDICADORES.values()) {
+                texto.append(indicador).append(System.lineSeparator());
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Pone en cero todas las métricas de operación. Los indicadores no se modifican.
+     */
+    public static void reiniciar() {
+        for (MetricaOperacion metrica : OPERACIONES.values()) {
+            metrica.reiniciar();
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private static void validarNombre(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre de la métrica no puede estar vacío");
+        }
+    }
+
+    /**
+     * Publica un MBean. Un fallo de JMX se informa y no impide registrar la métrica.
+     */
+    private static void publicar(String tipo, String nombre, Object mbean) {
+        if (!JMX_ACTIVO) {
+            return;
+        }
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objeto = nombreJmx(tipo, nombre);
+            if (servidor.isRegistered(objeto)) {
+                servidor.unregisterMBean(objeto);
+            }
+            servidor.registerMBean(mbean, objeto);
+        } catch (JMException | RuntimeException e) {
+            System.err.println("No se pudo publicar la métrica " + nombre + " por JMX: " + e.getMessage());
+        }
+    }
+
+    private static void retirar(String tipo, String nombre) {
+        if (!JMX_ACTIVO) {
+            return;
+        }
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objeto = nombreJmx(tipo, nombre);
+            if (servidor.isRegistered(objeto)) {
+                servidor.unregisterMBean(objeto);
+            }
+        } catch (JMException | RuntimeException e) {
+            System.err.println("No se pudo retirar la métrica " + nombre + " de JMX: " + e.getMessage());
+        }
+    }
+
+    private static ObjectName nombreJmx(String tipo, String nombre) throws JMException {
+        return new ObjectName(DOMINIO_JMX + ":type=" + tipo + ",name=" + ObjectName.quote(nombre));
+    }
+}
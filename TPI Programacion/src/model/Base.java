@@ -9,7 +9,8 @@ package model;
 
 /**
  * Clase base abstracta para entidades del sistema.
- * Proporciona propiedades comunes: identificador y bandera de eliminación lógica.
+ * Proporciona propiedades comunes: identificador, bandera de eliminación lógica
+ * y versión para control de concurrencia optimista.
  */
 public abstract class Base {
 
@@ -19,6 +20,7 @@ public abstract class Base {
     
     private long id;
     private boolean eliminado;
+    private long version;
     
     // =========================================
     // CONSTRUCTORES
@@ -42,6 +44,17 @@ public abstract class Base {
         this.eliminado = eliminado;
     }
 
+    /**
+     * Constructor de copia de las propiedades comunes, incluida la versión.
+     * 
+     * @param otra Entidad a copiar
+     */
+    protected Base(Base otra) {
+        this.id = otra.id;
+        this.eliminado = otra.eliminado;
+        this.version = otra.version;
+    }
+
     // =========================================
     // GETTERS Y SETTERS
     // =========================================
@@ -81,4 +94,23 @@ public abstract class Base {
     public void setEliminado(boolean eliminado) {
         this.eliminado = eliminado;
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtiene la versión de la fila leída. Cada escritura en la base la incrementa;
+     * una actualización solo se aplica si la versión no cambió desde la lectura.
+     * 
+     * @return Versión de la entidad, 0 si no ha sido persistida
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión de la entidad.
+     * 
+     * @param version Versión leída de la base
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -51,6 +51,18 @@ public class CodigoBarras extends Base {
      */
     public CodigoBarras() {
     }
+
+    /**
+     * Constructor de copia. Crea un código de barras independiente con los mismos datos.
+     * @param otro Código de barras a copiar
+     */
+    public CodigoBarras(CodigoBarras otro) {
+        super(otro);
+        this.tipo = otro.tipo;
+        this.valor = otro.valor;
+        this.fechaAsignacion = otro.fechaAsignacion;
+        this.observaciones = otro.observaciones;
+    }
     
     // =========================================
     // MÉTODOS GETTER
@@ -9,9 +9,30 @@ package model;
 
 /**
  * Enum que representa los tipos de códigos de barras soportados por el sistema.
+ * Cada tipo tiene una cantidad fija de dígitos, el último de ellos verificador (GS1).
  */
 public enum EnumTipo {
-    EAN13,
-    EAN8,
-    UPC;
+    EAN13(13),
+    EAN8(8),
+    UPC(12);
+
+    private final int digitos;
+
+    /**
+     * Constructor del enum EnumTipo.
+     * 
+     * @param digitos Cantidad de dígitos del código, incluido el verificador
+     */
+    EnumTipo(int digitos) {
+        this.digitos = digitos;
+    }
+
+    /**
+     * Obtiene la cantidad de dígitos del código.
+     * 
+     * @return Cantidad de dígitos, incluido el verificador
+     */
+    public int getDigitos() {
+        return digitos;
+    }
 }
@@ -7,11 +7,21 @@ package model;
 @author Gaston Alberto Cejas
  */
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 /**
  * Representa un producto con nombre, marca, precio, peso, stock, categoría y código de barras.
  * Extiende Base para heredar ID y funcionalidad de eliminación lógica.
  */
 public class Producto extends Base {
+
+    /** Marcas diacríticas que quedan separadas tras la descomposición NFD */
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    /** Secuencias de espacios a colapsar en uno */
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
     
     // =========================================
     // DECLARACIÓN DE CLASE Y ATRIBUTOS
@@ -58,6 +68,21 @@ public class Producto extends Base {
     public Producto() {
         super();
     }
+
+    /**
+     * Constructor de copia profunda. El código de barras asociado también se copia.
+     * @param otro Producto a copiar
+     */
+    public Producto(Producto otro) {
+        super(otro);
+        this.nombre = otro.nombre;
+        this.marca = otro.marca;
+        this.precio = otro.precio;
+        this.peso = otro.peso;
+        this.stock = otro.stock;
+        this.categoria = otro.categoria;
+        this.codigoBarras = (otro.codigoBarras != null) ? new CodigoBarras(otro.codigoBarras) : null;
+    }
     
     // =========================================
     // MÉTODOS GETTER
@@ -177,6 +202,24 @@ public class Producto extends Base {
         this.codigoBarras = codigoBarras;
     }
 
+    // =========================================
+    // MÉTODOS ESTÁTICOS
+    // =========================================
+
+    /**
+     * Normaliza un nombre para búsqueda: sin acentos, en minúsculas y con espacios colapsados.
+     * Es la forma guardada en la columna indexada producto.nombre_normalizado.
+     * @param nombre Nombre original (puede ser null)
+     * @return Nombre normalizado, o cadena vacía si es null
+     */
+    public static String normalizarNombre(String nombre) {
+        if (nombre == null) {
+            return "";
+        }
+        String sinAcentos = DIACRITICOS.matcher(Normalizer.normalize(nombre, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
     // =========================================
     // MÉTODOS SOBREESCRITOS
     // =========================================
@@ -0,0 +1,184 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.ProductoDAO;
+import analitica.CatalogoColumnar;
+import metricas.Indicador;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Mantiene una instantánea columnar del catálogo activo ({@link CatalogoColumnar}) para
+ * consultas analíticas que recorren todos los productos sin ir a la base de datos.
+ *
+ * La instantánea se construye en el primer uso y desde entonces se reconstruye cada
+ * {@code refrescoMs} en un hilo propio; los lectores siguen usando la anterior hasta que la
+ * nueva está completa. Los datos pueden tener hasta un período de refresco de antigüedad:
+ * para valores exactos usar {@link ProductoService}.
+ */
+public class CatalogoService implements AutoCloseable {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Período de reconstrucción si no se indica otro valor */
+    public static final long REFRESCO_MS_POR_DEFECTO = 60_000;
+
+    private static final MetricaOperacion METRICA_CONSTRUIR = RegistroMetricas.operacion("catalogo.construir");
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ProductoDAO productoDAO;
+
+    /** Hilo de reconstrucción periódica, o null si está desactivada */
+    private final ScheduledExecutorService refresco;
+
+    private volatile CatalogoColumnar actual;
+
+    /** Indicadores publicados por el servicio, retirados al cerrarlo */
+    private final List<Indicador> indicadores = new CopyOnWriteArrayList<>();
+
+    // =========================================
+    // CREACIÓN
+    // =========================================
+
+    /**
+     * Crea el servicio con el período de refresco por defecto.
+     * @param productoDAO DAO de productos del que se lee el catálogo
+     * @return Servicio creado
+     * @throws IllegalArgumentException Si el DAO es null
+     */
+    public static CatalogoService crear(ProductoDAO productoDAO) {
+        return crear(productoDAO, REFRESCO_MS_POR_DEFECTO);
+    }
+
+    /**
+     * Crea el servicio, programa su reconstrucción periódica y registra sus indicadores.
+     * La primera instantánea se construye al pedirla.
+     * @param productoDAO DAO de productos del que se lee el catálogo
+     * @param refrescoMs Período de reconstrucción; 0 para reconstruir solo con {@link #refrescar()}
+     * @return Servicio creado
+     * @throws IllegalArgumentException Si el DAO es null o el período es negativo
+     */
+    public static CatalogoService crear(ProductoDAO productoDAO, long refrescoMs) {
+        CatalogoService servicio = new CatalogoService(productoDAO, refrescoMs);
+        // Con el servicio ya construido: el hilo de refresco y los indicadores lo referencian
+        if (servicio.refresco != null) {
+            servicio.refresco.scheduleWithFixedDelay(servicio::refrescarPeriodico, refrescoMs, refrescoMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        servicio.indicadores.add(RegistroMetricas.registrarIndicador("catalogo.productos",
+                () -> servicio.leer(CatalogoColumnar::tamanio)));
+        servicio.indicadores.add(RegistroMetricas.registrarIndicador("catalogo.memoriaBytes",
+                () -> servicio.leer(CatalogoColumnar::memoriaEstimadaBytes)));
+        servicio.indicadores.add(RegistroMetricas.registrarIndicador("catalogo.edadMs",
+                () -> servicio.leer(c -> System.currentTimeMillis() - c.getCreadoEnMs())));
+        return servicio;
+    }
+
+    private CatalogoService(ProductoDAO productoDAO, long refrescoMs) {
+        if (productoDAO == null) {
+            throw new IllegalArgumentException("ProductoDAO no puede ser null");
+        }
+        if (refrescoMs < 0) {
+            throw new IllegalArgumentException("El período de refresco no puede ser negativo");
+        }
+        this.productoDAO = productoDAO;
+        this.refresco = (refrescoMs > 0)
+                ? Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "refresco-catalogo");
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Obtiene la instantánea vigente, construyéndola si todavía no existe.
+     * @return Instantánea del catálogo activo
+     * @throws Exception Si ocurre error al construir la primera instantánea
+     */
+    public CatalogoColumnar getSnapshot() throws Exception {
+        CatalogoColumnar catalogo = actual;
+        if (catalogo != null) {
+            return catalogo;
+        }
+        synchronized (this) {
+            return (actual != null) ? actual : refrescar();
+        }
+    }
+
+    /**
+     * Construye una instantánea nueva y la deja vigente. Las reconstrucciones se hacen de a una.
+     * @return Instantánea recién construida
+     * @throws Exception Si ocurre error en acceso a datos; la instantánea anterior sigue vigente
+     */
+    public synchronized CatalogoColumnar refrescar() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            CatalogoColumnar nuevo = CatalogoColumnar.construir(productoDAO);
+            actual = nuevo;
+            return nuevo;
+        } catch (Exception | Error e) {
+            METRICA_CONSTRUIR.contarError();
+            throw e;
+        } finally {
+            METRICA_CONSTRUIR.registrar(inicio);
+        }
+    }
+
+    /**
+     * Detiene la reconstrucción periódica y retira los indicadores del servicio, para que el
+     * registro de métricas no lo mantenga vivo. La instantánea vigente sigue disponible.
+     */
+    @Override
+    public void close() {
+        if (refresco != null) {
+            refresco.shutdownNow();
+        }
+        for (Indicador indicador : indicadores) {
+            RegistroMetricas.retirarIndicador(indicador);
+        }
+        indicadores.clear();
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private void refrescarPeriodico() {
+        if (actual == null) {
+            return;
+        }
+        try {
+            refrescar();
+        } catch (Exception e) {
+            System.err.println("Error al refrescar el catálogo: " + e.getMessage());
+        }
+    }
+
+    private double leer(ToDoubleFunction<CatalogoColumnar> lectura) {
+        CatalogoColumnar catalogo = actual;
+        return (catalogo != null) ? lectura.applyAsDouble(catalogo) : 0;
+    }
+}
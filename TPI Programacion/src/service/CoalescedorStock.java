@@ -0,0 +1,344 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.AjusteStock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Etapa opcional delante de {@link ProductoService} que agrupa ajustes de stock (group commit).
+ *
+ * Los ajustes recibidos se acumulan por producto durante una ventana corta o hasta juntar
+ * {@code maximoLote} pedidos; luego un hilo escritor suma los deltas de cada producto y los
+ * escribe como un único lote de UPDATE condicionales en una sola transacción. Cada llamador
+ * recibe un futuro que se completa cuando su ajuste quedó confirmado en la base.
+ *
+ * Si la suma de un producto dejaría su stock en negativo, los ajustes de ese producto se
+ * reintentan de a uno en orden de llegada, así cada llamador recibe su propio resultado
+ * ({@link StockInsuficienteException} solo para los que no entran). Dentro de una ventana
+ * el orden entre ajustes de un mismo producto no está garantizado frente a la base: un egreso
+ * puede aceptarse gracias a un ingreso que llegó después en la misma ventana.
+ *
+ * Los futuros se completan en el hilo escritor: las continuaciones costosas deben usar
+ * las variantes {@code *Async} para no demorar las ventanas siguientes.
+ */
+public class CoalescedorStock implements AutoCloseable {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Espera máxima de un ajuste antes de escribirse si no se indica otro valor */
+    public static final long VENTANA_MS_POR_DEFECTO = 5;
+
+    /** Pedidos que fuerzan la escritura antes de cumplir la ventana si no se indica otro valor */
+    public static final int MAXIMO_LOTE_POR_DEFECTO = 1000;
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ProductoService productoService;
+    private final long ventanaNanos;
+    private final int maximoLote;
+    private final Thread escritor;
+
+    /** Protege los pendientes y el estado de cierre; el escritor espera sobre este objeto */
+    private final Object bloqueo = new Object();
+
+    /** Ajustes de la ventana en curso por ID de producto, en orden de llegada */
+    private LinkedHashMap<Long, Grupo> pendientes = new LinkedHashMap<>();
+    private int cantidadPendiente;
+    private long primerPendienteEn;
+    private boolean cerrado;
+
+    private final AtomicLong ajustesRecibidos = new AtomicLong();
+    private final AtomicLong lotesEscritos = new AtomicLong();
+    private final AtomicLong filasEscritas = new AtomicLong();
+    private final AtomicLong ajustesIndividuales = new AtomicLong();
+
+    // =========================================
+    // CREACIÓN
+    // =========================================
+
+    /**
+     * Crea el coalescedor con la ventana y el tamaño de lote por defecto.
+     * @param productoService Servicio que escribe los lotes
+     * @return Coalescedor con su hilo escritor iniciado
+     * @throws IllegalArgumentException Si el servicio es null
+     */
+    public static CoalescedorStock crear(ProductoService productoService) {
+        return crear(productoService, VENTANA_MS_POR_DEFECTO, MAXIMO_LOTE_POR_DEFECTO);
+    }
+
+    /**
+     * Crea el coalescedor e inicia su hilo escritor.
+     * @param productoService Servicio que escribe los lotes
+     * @param ventanaMs Espera máxima de un ajuste antes de escribirse (mayor a 0)
+     * @param maximoLote Pedidos que fuerzan la escritura inmediata (mayor a 0)
+     * @return Coalescedor con su hilo escritor iniciado
+     * @throws IllegalArgumentException Si el servicio es null o algún valor no es positivo
+     */
+    public static CoalescedorStock crear(ProductoService productoService, long ventanaMs, int maximoLote) {
+        CoalescedorStock coalescedor = new CoalescedorStock(productoService, ventanaMs, maximoLote);
+        // Con el coalescedor ya construido: el hilo escritor lo referencia
+        coalescedor.escritor.start();
+        return coalescedor;
+    }
+
+    private CoalescedorStock(ProductoService productoService, long ventanaMs, int maximoLote) {
+        if (productoService == null) {
+            throw new IllegalArgumentException("ProductoService no puede ser null");
+        }
+        if (ventanaMs <= 0 || maximoLote <= 0) {
+            throw new IllegalArgumentException("La ventana y el máximo de lote deben ser mayores a 0");
+        }
+        this.productoService = productoService;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        this.maximoLote = maximoLote;
+        this.escritor = new Thread(this::ejecutar, "coalescedor-stock");
+        this.escritor.setDaemon(true);
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Encola un ajuste de stock para la próxima escritura. No bloquea.
+     * @param id ID del producto
+     * @param delta Unidades a sumar (negativo para restar)
+     * @return Futuro que se completa al confirmarse el ajuste, o con
+     *         {@link StockInsuficienteException}, {@link IllegalArgumentException}
+     *         (producto inexistente) o el error de acceso a datos
+     * @throws IllegalArgumentException Si delta es 0
+     * @throws IllegalStateException Si el coalescedor está cerrado
+     */
+    public CompletableFuture<Void> ajustarStock(long id, int delta) {
+        if (delta == 0) {
+            throw new IllegalArgumentException("El ajuste de stock no puede ser 0.");
+        }
+        CompletableFuture<Void> futuro = new CompletableFuture<>();
+        synchronized (bloqueo) {
+            if (cerrado) {
+                throw new IllegalStateException("El coalescedor de stock está cerrado.");
+            }
+            if (cantidadPendiente == 0) {
+                primerPendienteEn = System.nanoTime();
+            }
+            pendientes.computeIfAbsent(id, k -> new Grupo()).agregar(delta, futuro);
+            cantidadPendiente++;
+            if (cantidadPendiente == 1 || cantidadPendiente >= maximoLote) {
+                bloqueo.notifyAll();
+            }
+        }
+        ajustesRecibidos.incrementAndGet();
+        return futuro;
+    }
+
+    /**
+     * Deja de aceptar ajustes, escribe los pendientes y espera al hilo escritor.
+     */
+    @Override
+    public void close() {
+        synchronized (bloqueo) {
+            cerrado = true;
+            bloqueo.notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return Ajustes encolados desde la creación
+     */
+    public long getAjustesRecibidos() {
+        return ajustesRecibidos.get();
+    }
+
+    /**
+     * @return Transacciones de lote ejecutadas
+     */
+    public long getLotesEscritos() {
+        return lotesEscritos.get();
+    }
+
+    /**
+     * @return UPDATE enviados dentro de los lotes (uno por producto y ventana)
+     */
+    public long getFilasEscritas() {
+        return filasEscritas.get();
+    }
+
+    /**
+     * @return Ajustes reintentados de a uno porque la suma de su producto fue rechazada
+     */
+    public long getAjustesIndividuales() {
+        return ajustesIndividuales.get();
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    /**
+     * Ciclo del hilo escritor: espera a que se cumpla la ventana o el tamaño de lote,
+     * toma los pendientes y los escribe. Al cerrarse, escribe lo que quede y termina.
+     */
+    private void ejecutar() {
+        while (true) {
+            Map<Long, Grupo> lote;
+            synchronized (bloqueo) {
+                while (true) {
+                    if (cantidadPendiente == 0) {
+                        if (cerrado) {
+                            return;
+                        }
+                        esperar(0);
+                        continue;
+                    }
+                    long restante = ventanaNanos - (System.nanoTime() - primerPendienteEn);
+                    if (restante <= 0 || cantidadPendiente >= maximoLote || cerrado) {
+                        break;
+                    }
+                    esperar(restante);
+                }
+                lote = pendientes;
+                pendientes = new LinkedHashMap<>();
+                cantidadPendiente = 0;
+            }
+            try {
+                escribir(lote);
+            } catch (RuntimeException e) {
+                for (Grupo grupo : lote.values()) {
+                    grupo.fallar(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera sobre el bloqueo. Una interrupción se trata como un cierre: se escriben
+     * los pendientes y el hilo termina. Debe llamarse con el bloqueo tomado.
+     * @param nanos Tiempo máximo de espera; 0 para esperar sin límite
+     */
+    private void esperar(long nanos) {
+        try {
+            if (nanos == 0) {
+                bloqueo.wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(bloqueo, nanos);
+            }
+        } catch (InterruptedException e) {
+            cerrado = true;
+        }
+    }
+
+    /**
+     * Escribe una ventana: un ajuste combinado por producto en una transacción y,
+     * para los productos rechazados, los ajustes originales de a uno.
+     */
+    private void escribir(Map<Long, Grupo> lote) {
+        List<AjusteStock> ajustes = new ArrayList<>(lote.size());
+        List<Grupo> grupos = new ArrayList<>(lote.size());
+        List<Long> individuales = new ArrayList<>();
+        for (Map.Entry<Long, Grupo> entrada : lote.entrySet()) {
+            long neto = entrada.getValue().neto;
+            if (neto < Integer.MIN_VALUE || neto > Integer.MAX_VALUE) {
+                individuales.add(entrada.getKey());
+            } else {
+                ajustes.add(new AjusteStock(entrada.getKey(), (int) neto));
+                grupos.add(entrada.getValue());
+            }
+        }
+
+        if (!ajustes.isEmpty()) {
+            boolean[] aplicados;
+            try {
+                aplicados = productoService.aplicarAjustesStock(ajustes);
+                lotesEscritos.incrementAndGet();
+                filasEscritas.addAndGet(ajustes.size());
+            } catch (Exception e) {
+                for (Grupo grupo : grupos) {
+                    grupo.fallar(e);
+                }
+                aplicados = null;
+            }
+            for (int i = 0; aplicados != null && i < aplicados.length; i++) {
+                if (aplicados[i]) {
+                    grupos.get(i).completar();
+                } else {
+                    individuales.add(ajustes.get(i).getIdProducto());
+                }
+            }
+        }
+
+        for (Long id : individuales) {
+            aplicarDeAUno(id, lote.get(id));
+        }
+    }
+
+    /**
+     * Aplica los ajustes de un producto en orden de llegada, completando cada futuro
+     * con su propio resultado.
+     */
+    private void aplicarDeAUno(long id, Grupo grupo) {
+        for (int i = 0; i < grupo.futuros.size(); i++) {
+            CompletableFuture<Void> futuro = grupo.futuros.get(i);
+            ajustesIndividuales.incrementAndGet();
+            try {
+                productoService.ajustarStock(id, grupo.deltas.get(i));
+                futuro.complete(null);
+            } catch (Exception e) {
+                futuro.completeExceptionally(e);
+            }
+        }
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Ajustes pendientes de un producto: la suma y cada pedido con su futuro.
+     */
+    private static final class Grupo {
+
+        private long neto;
+        private final List<Integer> deltas = new ArrayList<>(2);
+        private final List<CompletableFuture<Void>> futuros = new ArrayList<>(2);
+
+        private void agregar(int delta, CompletableFuture<Void> futuro) {
+            neto += delta;
+            deltas.add(delta);
+            futuros.add(futuro);
+        }
+
+        private void completar() {
+            for (CompletableFuture<Void> futuro : futuros) {
+                futuro.complete(null);
+            }
+        }
+
+        private void fallar(Throwable causa) {
+            for (CompletableFuture<Void> futuro : futuros) {
+                futuro.completeExceptionally(causa);
+            }
+        }
+    }
+}
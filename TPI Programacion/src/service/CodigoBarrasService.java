@@ -8,11 +8,25 @@ package service;
  */
 
 import DAO.CodigoBarrasDAO;
+import DAO.ConflictoVersionException;
+import cache.CacheLRU;
+import cache.CacheStats;
+import DAO.Orden;
+import DAO.Pagina;
 import config.DatabaseConnection;
+import config.GestorTransacciones;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
 import model.CodigoBarras;
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+import java.util.function.Consumer;
 
 /**
  * Servicio para gestionar operaciones de códigos de barras.
@@ -24,8 +38,78 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
     // ATRIBUTOS
     // =========================================
 
+    /** Capacidad por defecto de la caché de búsqueda por valor */
+    public static final int CAPACIDAD_CACHE = 10_000;
+
+    /** Vida por defecto de un código cacheado (0 = sin expiración, se confía en la invalidación) */
+    public static final long TTL_CACHE_MS = 0;
+
+    /** Vida por defecto de un valor inexistente cacheado */
+    public static final long TTL_CACHE_AUSENTES_MS = 30_000;
+
     /** DAO para operaciones de persistencia de códigos de barras */
-    private final CodigoBarrasDAO codigoBarrasDAO = new CodigoBarrasDAO();
+    private final CodigoBarrasDAO codigoBarrasDAO;
+
+    /** Caché de lectura por valor para las búsquedas de los escáneres */
+    private final CacheLRU<String, CodigoBarras> cachePorValor;
+
+    /** Acciones a ejecutar cuando cambia un código existente (reciben su ID) */
+    private final List<LongConsumer> observadoresCambio = new CopyOnWriteArrayList<>();
+
+    /** Métricas de las operaciones CRUD del servicio */
+    private static final MetricaOperacion METRICA_INSERTAR = RegistroMetricas.operacion("service.codigo.insertar");
+    private static final MetricaOperacion METRICA_ACTUALIZAR = RegistroMetricas.operacion("service.codigo.actualizar");
+    private static final MetricaOperacion METRICA_ELIMINAR = RegistroMetricas.operacion("service.codigo.eliminar");
+    private static final MetricaOperacion METRICA_GET_BY_ID = RegistroMetricas.operacion("service.codigo.getById");
+    private static final MetricaOperacion METRICA_GET_ALL = RegistroMetricas.operacion("service.codigo.getAll");
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el servicio con la configuración de caché por defecto.
+     */
+    public CodigoBarrasService() {
+        this(CAPACIDAD_CACHE, TTL_CACHE_MS, TTL_CACHE_AUSENTES_MS);
+    }
+
+    /**
+     * Crea el servicio con una caché de búsqueda por valor configurada.
+     * @param capacidadCache Cantidad máxima de valores cacheados; 0 desactiva la caché
+     * @param ttlCacheMs Vida de un código cacheado; 0 para no expirar
+     * @param ttlAusentesMs Vida de un valor inexistente cacheado; 0 para no cachear ausencias
+     */
+    public CodigoBarrasService(int capacidadCache, long ttlCacheMs, long ttlAusentesMs) {
+        this(new CodigoBarrasDAO(), capacidadCache, ttlCacheMs, ttlAusentesMs);
+    }
+
+    /**
+     * Crea el servicio sobre un DAO dado (por ejemplo, el backend en memoria)
+     * con la configuración de caché por defecto.
+     * @param codigoBarrasDAO DAO de códigos de barras a usar
+     * @throws IllegalArgumentException Si codigoBarrasDAO es null
+     */
+    public CodigoBarrasService(CodigoBarrasDAO codigoBarrasDAO) {
+        this(codigoBarrasDAO, CAPACIDAD_CACHE, TTL_CACHE_MS, TTL_CACHE_AUSENTES_MS);
+    }
+
+    /**
+     * Crea el servicio sobre un DAO dado con una caché de búsqueda por valor configurada.
+     * @param codigoBarrasDAO DAO de códigos de barras a usar
+     * @param capacidadCache Cantidad máxima de valores cacheados; 0 desactiva la caché
+     * @param ttlCacheMs Vida de un código cacheado; 0 para no expirar
+     * @param ttlAusentesMs Vida de un valor inexistente cacheado; 0 para no cachear ausencias
+     * @throws IllegalArgumentException Si codigoBarrasDAO es null
+     */
+    public CodigoBarrasService(CodigoBarrasDAO codigoBarrasDAO, int capacidadCache, long ttlCacheMs, long ttlAusentesMs) {
+        if (codigoBarrasDAO == null) {
+            throw new IllegalArgumentException("CodigoBarrasDAO no puede ser null");
+        }
+        this.codigoBarrasDAO = codigoBarrasDAO;
+        this.cachePorValor = new CacheLRU<>(capacidadCache, ttlCacheMs, ttlAusentesMs, CodigoBarras::new);
+        cachePorValor.publicarIndicadores("cache.codigo");
+    }
 
     // =========================================
     // MÉTODOS DE LA INTERFAZ GENÉRICA
@@ -39,39 +123,24 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      */
     @Override
     public void insertar(CodigoBarras entidad) throws Exception {
-        validarCodigoBarras(entidad);
-        
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            CodigoBarras existente = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
-            if (existente != null && !existente.isEliminado()) {
-                throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + entidad.getValor());
-            }
-            
-            codigoBarrasDAO.insertar(entidad, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+            validarCodigoBarras(entidad);
+
+            GestorTransacciones.enTransaccion(conn -> {
+                CodigoBarras existente = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
+                if (existente != null && !existente.isEliminado()) {
+                    throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + entidad.getValor());
                 }
-            }
+
+                codigoBarrasDAO.insertar(entidad, conn);
+                GestorTransacciones.despuesDeConfirmar(() -> cachePorValor.invalidar(entidad.getValor()));
+            });
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_INSERTAR.registrar(inicio);
         }
     }
 
@@ -79,47 +148,45 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      * Actualiza código de barras existente con validación de unicidad.
      * @param entidad Código de barras con datos actualizados
      * @throws IllegalArgumentException Si nuevo valor ya existe o validaciones fallan
+     * @throws ConflictoVersionException Si el código cambió o fue eliminado desde que se leyó
      * @throws Exception Si ocurre error durante la transacción
      */
     @Override
     public void actualizar(CodigoBarras entidad) throws Exception {
-        validarCodigoBarras(entidad);
-        
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            CodigoBarras existente = codigoBarrasDAO.getById(entidad.getId());
-            if (existente != null && !existente.getValor().equals(entidad.getValor())) {
-                CodigoBarras otroConMismoValor = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
-                if (otroConMismoValor != null && !otroConMismoValor.isEliminado() && 
-                    otroConMismoValor.getId() != entidad.getId()) {
-                    throw new IllegalArgumentException("Ya existe otro código de barras con el valor: " + entidad.getValor());
-                }
-            }
-            
-            codigoBarrasDAO.actualizar(entidad, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+            validarCodigoBarras(entidad);
+
+            GestorTransacciones.enTransaccion(conn -> {
+                // Sin conexión explícita, el DAO lee con la de la transacción
+                CodigoBarras existente = codigoBarrasDAO.getById(entidad.getId());
+                if (existente != null && !existente.getValor().equals(entidad.getValor())) {
+                    CodigoBarras otroConMismoValor = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
+                    if (otroConMismoValor != null && !otroConMismoValor.isEliminado() && 
+                        otroConMismoValor.getId() != entidad.getId()) {
+                        throw new IllegalArgumentException("Ya existe otro código de barras con el valor: " + entidad.getValor());
+                    }
                 }
-            }
+
+                codigoBarrasDAO.actualizar(entidad, conn);
+                GestorTransacciones.despuesDeConfirmar(() -> {
+                    if (existente != null) {
+                        cachePorValor.invalidar(existente.getValor());
+                    }
+                    cachePorValor.invalidar(entidad.getValor());
+                    notificarCambio(entidad.getId());
+                });
+            });
+        } catch (ConflictoVersionException e) {
+            // La copia cacheada puede ser la que quedó vieja (escritura desde otro proceso)
+            cachePorValor.invalidarSi(c -> c.getId() == entidad.getId());
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_ACTUALIZAR.registrar(inicio);
         }
     }
 
@@ -130,32 +197,20 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      */
     @Override
     public void eliminar(long id) throws Exception {
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            codigoBarrasDAO.eliminar(id, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
+            GestorTransacciones.enTransaccion(conn -> {
+                codigoBarrasDAO.eliminar(id, conn);
+                GestorTransacciones.despuesDeConfirmar(() -> {
+                    cachePorValor.invalidarSi(c -> c.getId() == id);
+                    notificarCambio(id);
+                });
+            });
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_ELIMINAR.registrar(inicio);
         }
     }
 
@@ -167,7 +222,26 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      */
     @Override
     public CodigoBarras getById(long id) throws Exception {
-        return codigoBarrasDAO.getById(id);
+        long inicio = System.nanoTime();
+        try {
+            return codigoBarrasDAO.getById(id);
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
+        }
+    }
+
+    /**
+     * Obtiene varios códigos de barras por ID en bloques sobre una sola conexión.
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids) throws Exception {
+        return codigoBarrasDAO.getByIds(ids);
     }
 
     /**
@@ -177,7 +251,56 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      */
     @Override
     public List<CodigoBarras> getAll() throws Exception {
-        return codigoBarrasDAO.getAll();
+        long inicio = System.nanoTime();
+        try {
+            return codigoBarrasDAO.getAll();
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
+    }
+
+    // =========================================
+    // MÉTODOS DE INSERCIÓN POR LOTES
+    // =========================================
+
+    /**
+     * Inserta varios códigos de barras en una única transacción usando JDBC batch.
+     * Cada código recibe su ID generado. La unicidad contra la base se verifica
+     * con la restricción UNIQUE de la tabla en lugar de una consulta por código.
+     * @param entidades Códigos de barras a insertar
+     * @throws IllegalArgumentException Si hay valores repetidos, alguno ya existe o las validaciones fallan
+     * @throws Exception Si ocurre error durante la transacción
+     */
+    public void insertarLote(List<CodigoBarras> entidades) throws Exception {
+        if (entidades == null || entidades.isEmpty()) {
+            return;
+        }
+        Set<String> valores = new HashSet<>();
+        for (CodigoBarras entidad : entidades) {
+            validarCodigoBarras(entidad);
+            if (!valores.add(entidad.getValor())) {
+                throw new IllegalArgumentException("El valor de código de barras está repetido en el lote: " + entidad.getValor());
+            }
+        }
+        
+        GestorTransacciones.enTransaccion(conn -> {
+            try {
+                codigoBarrasDAO.insertarLote(entidades, CodigoBarrasDAO.TAMANIO_LOTE, conn);
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    throw new IllegalArgumentException("Uno o más valores de código de barras del lote ya existen.", e);
+                }
+                throw e;
+            }
+            GestorTransacciones.despuesDeConfirmar(() -> {
+                for (CodigoBarras entidad : entidades) {
+                    cachePorValor.invalidar(entidad.getValor());
+                }
+            });
+        });
     }
 
     // =========================================
@@ -185,11 +308,13 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
     // =========================================
 
     /**
-     * Valida reglas de negocio para código de barras.
+     * Valida reglas de negocio para código de barras, incluidos la cantidad de dígitos
+     * del tipo y el dígito verificador (ver {@link ValidadorCodigoBarras}).
+     * Pública para que otros procesos (por ejemplo, importaciones) apliquen las mismas reglas.
      * @param codigo Código de barras a validar
      * @throws IllegalArgumentException Si alguna validación falla
      */
-    private void validarCodigoBarras(CodigoBarras codigo) throws IllegalArgumentException {
+    public void validarCodigoBarras(CodigoBarras codigo) throws IllegalArgumentException {
         if (codigo.getTipo() == null) {
             throw new IllegalArgumentException("El tipo de código de barras no puede ser null.");
         }
@@ -200,6 +325,7 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
         if (codigo.getValor().length() > 20) {
             throw new IllegalArgumentException("El valor del código de barras no puede tener más de 20 caracteres.");
         }
+        ValidadorCodigoBarras.verificar(codigo.getTipo(), codigo.getValor());
         
         if (codigo.getObservaciones() != null && codigo.getObservaciones().length() > 255) {
             throw new IllegalArgumentException("Las observaciones no pueden tener más de 255 caracteres.");
@@ -221,38 +347,21 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      * @throws Exception Si ocurre error durante la transacción
      */
     public void recuperar(long id) throws Exception {
-        CodigoBarras codigoActivo = codigoBarrasDAO.getById(id);
-        if (codigoActivo != null) {
-            throw new IllegalArgumentException("El código de barras con ID " + id + " no está borrado.");
-        }
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
+        GestorTransacciones.enTransaccion(conn -> {
+            CodigoBarras codigoActivo = codigoBarrasDAO.getById(id);
+            if (codigoActivo != null) {
+                throw new IllegalArgumentException("El código de barras con ID " + id + " no está borrado.");
+            }
 
             codigoBarrasDAO.recuperar(id, conn);
-
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+            CodigoBarras recuperado = codigoBarrasDAO.getById(id);
+            GestorTransacciones.despuesDeConfirmar(() -> {
+                if (recuperado != null) {
+                    cachePorValor.invalidar(recuperado.getValor());
                 }
-            }
-        }
+                notificarCambio(id);
+            });
+        });
     }
 
     // =========================================
@@ -261,11 +370,101 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
 
     /**
      * Busca código de barras por valor exacto.
+     * Resuelve desde la caché los valores consultados recientemente, incluidos los inexistentes.
+     * Los que faltan se leen de la primaria aunque haya réplicas, para no guardar como
+     * inexistente un código recién insertado que una réplica todavía no recibió. Dentro de
+     * una transacción se lee sin pasar por la caché, que solo guarda datos confirmados.
      * @param valor Valor exacto a buscar
-     * @return Código de barras encontrado o null si no existe
+     * @return Copia del código de barras encontrado o null si no existe
      * @throws Exception Si ocurre error en acceso a datos
      */
     public CodigoBarras getByValor(String valor) throws Exception {
-        return codigoBarrasDAO.getByValor(valor);
+        if (valor == null) {
+            return null;
+        }
+        if (GestorTransacciones.hayTransaccion()) {
+            return codigoBarrasDAO.getByValor(valor);
+        }
+        return cachePorValor.obtener(valor, clave -> DatabaseConnection.leerDePrimaria(() -> codigoBarrasDAO.getByValor(clave)));
+    }
+
+    /**
+     * Invalida la entrada de caché de un valor. Para escrituras hechas fuera de este servicio
+     * (por ejemplo, códigos insertados desde ProductoService).
+     * @param valor Valor de código de barras modificado
+     */
+    public void invalidarCache(String valor) {
+        cachePorValor.invalidar(valor);
+    }
+
+    /**
+     * Registra una acción a ejecutar cada vez que se actualiza, elimina o recupera un código.
+     * Permite a otros servicios invalidar datos que embeben códigos de barras.
+     * El registro dura hasta ejecutar la acción devuelta: mientras tanto este servicio
+     * mantiene vivo al observador y a todo lo que referencia.
+     * @param observador Acción que recibe el ID del código modificado
+     * @return Acción que cancela el registro; ejecutarla más de una vez no tiene efecto
+     * @throws IllegalArgumentException Si el observador es null
+     */
+    public Runnable alModificarCodigo(LongConsumer observador) {
+        if (observador == null) {
+            throw new IllegalArgumentException("El observador no puede ser null");
+        }
+        observadoresCambio.add(observador);
+        return () -> observadoresCambio.remove(observador);
+    }
+
+    /**
+     * Notifica a los observadores que un código existente cambió.
+     * @param id ID del código modificado
+     */
+    private void notificarCambio(long id) {
+        for (LongConsumer observador : observadoresCambio) {
+            observador.accept(id);
+        }
+    }
+
+    /**
+     * Obtiene el DAO del servicio, para que otros servicios operen sobre el mismo backend.
+     * @return DAO de códigos de barras
+     */
+    CodigoBarrasDAO getCodigoBarrasDAO() {
+        return codigoBarrasDAO;
+    }
+
+    /**
+     * Obtiene estadísticas de la caché de búsqueda por valor.
+     * @return Aciertos, fallos, desalojos y tamaño actual
+     */
+    public CacheStats getEstadisticasCache() {
+        return cachePorValor.estadisticas();
+    }
+
+    /**
+     * Obtiene una página de códigos de barras activos ordenados por ID.
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO} para la primera
+     * @param limite Cantidad máxima de elementos por página
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de códigos de barras con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Pagina<CodigoBarras> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        return codigoBarrasDAO.getPagina(despuesDeId, limite, orden);
+    }
+
+    /**
+     * Recorre todos los códigos de barras activos fila por fila sin cargarlos en memoria.
+     * Pensado para exportaciones y procesos nocturnos sobre catálogos grandes.
+     * @param consumidor Acción a ejecutar por cada elemento
+     * @param fetchSize Filas traídas por bloque desde la base de datos
+     * @return Cantidad de elementos procesados
+     * @throws Exception Si ocurre error en acceso a datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<CodigoBarras> consumidor, int fetchSize) throws Exception {
+        if (consumidor == null) {
+            throw new IllegalArgumentException("El consumidor no puede ser null.");
+        }
+        return codigoBarrasDAO.forEachActivo(consumidor, fetchSize);
     }
 }
\ No newline at end of file
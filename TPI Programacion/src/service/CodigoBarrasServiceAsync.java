@@ -0,0 +1,122 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.CodigoBarras;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de las consultas de {@link CodigoBarrasService}.
+ *
+ * Pensada para los lectores de códigos: muchas búsquedas por valor en paralelo, cada una
+ * en su propia tarea del {@link EjecutorAsync}, resueltas desde la caché cuando es posible.
+ */
+public class CodigoBarrasServiceAsync {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final CodigoBarrasService codigoBarrasService;
+    private final EjecutorAsync ejecutor;
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el servicio asíncrono.
+     * @param codigoBarrasService Servicio que ejecuta las operaciones
+     * @param ejecutor Ejecutor compartido de las tareas
+     * @throws IllegalArgumentException Si algún parámetro es null
+     */
+    public CodigoBarrasServiceAsync(CodigoBarrasService codigoBarrasService, EjecutorAsync ejecutor) {
+        if (codigoBarrasService == null || ejecutor == null) {
+            throw new IllegalArgumentException("CodigoBarrasService y EjecutorAsync no pueden ser null");
+        }
+        this.codigoBarrasService = codigoBarrasService;
+        this.ejecutor = ejecutor;
+    }
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    /**
+     * @see CodigoBarrasService#getById(long)
+     */
+    public CompletableFuture<CodigoBarras> getById(long id) {
+        return ejecutor.enviar(() -> codigoBarrasService.getById(id));
+    }
+
+    /**
+     * @see CodigoBarrasService#getByValor(String)
+     */
+    public CompletableFuture<CodigoBarras> getByValor(String valor) {
+        return ejecutor.enviar(() -> codigoBarrasService.getByValor(valor));
+    }
+
+    /**
+     * Busca varios valores en paralelo, una tarea por valor distinto.
+     * Si una búsqueda falla, se cancelan las demás y el futuro falla con ese error;
+     * cancelar el futuro devuelto cancela todas las búsquedas pendientes.
+     * @param valores Valores a buscar (se ignoran repetidos)
+     * @return Futuro con un mapa por valor en el orden pedido; los inexistentes quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún valor es null
+     */
+    public CompletableFuture<Map<String, CodigoBarras>> getByValores(Collection<String> valores) {
+        if (valores == null) {
+            throw new IllegalArgumentException("La colección de valores no puede ser null.");
+        }
+        Set<String> distintos = new LinkedHashSet<>(valores);
+        if (distintos.contains(null)) {
+            throw new IllegalArgumentException("Los valores no pueden ser null.");
+        }
+
+        List<String> orden = new ArrayList<>(distintos);
+        List<CompletableFuture<CodigoBarras>> busquedas = new ArrayList<>(orden.size());
+        for (String valor : orden) {
+            busquedas.add(getByValor(valor));
+        }
+
+        CompletableFuture<Map<String, CodigoBarras>> resultado =
+                CompletableFuture.allOf(busquedas.toArray(new CompletableFuture<?>[0]))
+                        .thenApply(v -> {
+                            Map<String, CodigoBarras> mapa = new LinkedHashMap<>();
+                            for (int i = 0; i < orden.size(); i++) {
+                                mapa.put(orden.get(i), busquedas.get(i).join());
+                            }
+                            return mapa;
+                        });
+
+        // allOf espera a todas aunque una falle: ante el primer error no tiene sentido seguir
+        for (CompletableFuture<CodigoBarras> busqueda : busquedas) {
+            busqueda.whenComplete((codigo, error) -> {
+                if (error != null) {
+                    resultado.completeExceptionally(error);
+                }
+            });
+        }
+        resultado.whenComplete((mapa, error) -> {
+            if (error != null) {
+                for (CompletableFuture<CodigoBarras> busqueda : busquedas) {
+                    busqueda.cancel(true);
+                }
+            }
+        });
+        return resultado;
+    }
+}
@@ -0,0 +1,217 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import config.DatabaseConnection;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ejecutor compartido por los servicios asíncronos.
+ *
+ * Cada tarea corre en su propio hilo virtual, por lo que miles de consultas pueden estar en
+ * curso sin un hilo de plataforma por pedido. Las que acceden a datos a la vez se acotan con
+ * un semáforo del tamaño del pool de conexiones: el resto espera su turno en el semáforo
+ * (barato para un hilo virtual) en lugar de agotar el tiempo de espera del pool.
+ *
+ * Los futuros devueltos admiten cancelación real: {@code cancel} interrumpe la tarea. Con un
+ * tiempo límite, al vencer el futuro falla con {@link TimeoutException} y la tarea se cancela
+ * de la misma forma. Si la tarea está esperando la respuesta de una consulta, la interrupción
+ * de un hilo virtual cierra el socket de la conexión: la consulta falla, la conexión queda
+ * inutilizable y el pool la descarta al devolverse (la sentencia puede seguir ejecutándose
+ * en el servidor hasta que este note el cierre).
+ *
+ * Como cada tarea corre en un hilo distinto, no hereda el estado por hilo de quien la envía:
+ * ni su transacción ni la ventana de lectura propia que siguen a sus escrituras cuando hay
+ * réplicas de lectura (ver {@link DatabaseConnection#getConnectionLectura()}).
+ */
+public class EjecutorAsync implements AutoCloseable {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Espera máxima de las tareas pendientes al cerrar el ejecutor */
+    private static final long ESPERA_CIERRE_SEG = 30;
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ExecutorService ejecutor;
+    private final Semaphore permisos;
+    private final int concurrenciaMaxima;
+    private final long timeoutPorDefectoMs;
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el ejecutor acotado al tamaño del pool de conexiones y sin tiempo límite por defecto.
+     */
+    public EjecutorAsync() {
+        this(DatabaseConnection.getTamanioMaximoPool(), 0);
+    }
+
+    /**
+     * Crea el ejecutor.
+     * @param concurrenciaMaxima Tareas que pueden ejecutarse a la vez (mayor a 0)
+     * @param timeoutPorDefectoMs Tiempo límite de cada tarea; 0 para no limitar
+     * @throws IllegalArgumentException Si concurrenciaMaxima no es positiva o el tiempo es negativo
+     */
+    public EjecutorAsync(int concurrenciaMaxima, long timeoutPorDefectoMs) {
+        if (concurrenciaMaxima <= 0 || timeoutPorDefectoMs < 0) {
+            throw new IllegalArgumentException("Concurrencia máxima debe ser mayor a 0 y el tiempo límite no negativo");
+        }
+        this.concurrenciaMaxima = concurrenciaMaxima;
+        this.timeoutPorDefectoMs = timeoutPorDefectoMs;
+        this.permisos = new Semaphore(concurrenciaMaxima, true);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // =========================================
+    // MÉTODOS PÚBLICOS
+    // =========================================
+
+    /**
+     * Ejecuta una tarea con el tiempo límite por defecto.
+     * @param tarea Tarea a ejecutar
+     * @return Futuro con el resultado; cancelarlo interrumpe la tarea
+     * @throws java.util.concurrent.RejectedExecutionException Si el ejecutor está cerrado
+     */
+    public <T> CompletableFuture<T> enviar(Callable<T> tarea) {
+        return enviar(tarea, timeoutPorDefectoMs);
+    }
+
+    /**
+     * Ejecuta una tarea con un tiempo límite propio.
+     * @param tarea Tarea a ejecutar
+     * @param timeoutMs Tiempo límite desde el envío; 0 para no limitar
+     * @return Futuro con el resultado; cancelarlo interrumpe la tarea
+     * @throws IllegalArgumentException Si el tiempo es negativo
+     * @throws java.util.concurrent.RejectedExecutionException Si el ejecutor está cerrado
+     */
+    public <T> CompletableFuture<T> enviar(Callable<T> tarea, long timeoutMs) {
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("El tiempo límite no puede ser negativo");
+        }
+        FuturoTarea<T> futuro = new FuturoTarea<>();
+        futuro.asignar(ejecutor.submit(() -> ejecutarConPermiso(tarea, futuro)));
+        if (timeoutMs > 0) {
+            futuro.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return futuro;
+    }
+
+    /**
+     * @return Tareas que pueden ejecutarse a la vez
+     */
+    public int getConcurrenciaMaxima() {
+        return concurrenciaMaxima;
+    }
+
+    /**
+     * @return Tareas esperando turno en este momento (aproximado)
+     */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    /**
+     * Deja de aceptar tareas y espera a que terminen las pendientes; si no terminan
+     * a tiempo, las interrumpe.
+     */
+    @Override
+    public void close() {
+        ejecutor.shutdown();
+        try {
+            if (!ejecutor.awaitTermination(ESPERA_CIERRE_SEG, TimeUnit.SECONDS)) {
+                ejecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ejecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private <T> void ejecutarConPermiso(Callable<T> tarea, CompletableFuture<T> futuro) {
+        if (futuro.isDone()) {
+            return;
+        }
+        try {
+            permisos.acquire();
+        } catch (InterruptedException e) {
+            futuro.completeExceptionally(new CancellationException("Tarea cancelada mientras esperaba turno"));
+            return;
+        }
+        try {
+            if (!futuro.isDone()) {
+                futuro.complete(tarea.call());
+            }
+        } catch (Throwable e) {
+            futuro.completeExceptionally(e);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    // =========================================
+    // CLASES INTERNAS
+    // =========================================
+
+    /**
+     * Futuro que, al cancelarse o vencer, interrumpe la tarea que lo completa.
+     */
+    private static final class FuturoTarea<T> extends CompletableFuture<T> {
+
+        private volatile Future<?> tarea;
+
+        private void asignar(Future<?> tarea) {
+            this.tarea = tarea;
+            if (isDone()) {
+                tarea.cancel(true);
+            }
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable causa) {
+            boolean completado = super.completeExceptionally(causa);
+            if (completado && causa instanceof TimeoutException) {
+                interrumpir();
+            }
+            return completado;
+        }
+
+        @Override
+        public boolean cancel(boolean interrumpirSiCorre) {
+            boolean cancelado = super.cancel(interrumpirSiCorre);
+            interrumpir();
+            return cancelado;
+        }
+
+        private void interrumpir() {
+            Future<?> actual = tarea;
+            if (actual != null) {
+                actual.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import DAO.ProductoDAO;
+import DAO.TotalesInventario;
+import analitica.AgregadorInventario;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
+import model.CategoriaProducto;
+
+import java.util.Map;
+
+/**
+ * Valorización de inventario: productos, unidades, valor (precio × stock) y peso (peso × stock)
+ * por categoría y por marca.
+ *
+ * Ofrece dos caminos que agrupan igual: las marcas se distinguen exactamente, incluidas
+ * mayúsculas y acentos, y los productos sin categoría o sin marca forman el grupo null.
+ * Sobre los mismos datos dan los mismos productos, unidades y valor; el peso se suma en
+ * double en memoria y puede diferir en el redondeo. Si el valor de un grupo excede el rango
+ * de long en centavos se lanza ArithmeticException.
+ * <ul>
+ *   <li>Los métodos sin sufijo agregan en la base de datos con GROUP BY. Son exactos al
+ *       momento de la consulta y convienen para consultas ocasionales.</li>
+ *   <li>Los métodos {@code *Catalogo} suman en paralelo sobre la instantánea de
+ *       {@link CatalogoService}, sin ir a la base. Convienen para tableros que se refrescan
+ *       seguido; los datos tienen la antigüedad de la instantánea.</li>
+ * </ul>
+ */
+public class InventarioService {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    private static final MetricaOperacion METRICA_POR_CATEGORIA = RegistroMetricas.operacion("service.inventario.porCategoria");
+    private static final MetricaOperacion METRICA_POR_MARCA = RegistroMetricas.operacion("service.inventario.porMarca");
+    private static final MetricaOperacion METRICA_POR_CATEGORIA_CATALOGO = RegistroMetricas.operacion("service.inventario.porCategoriaCatalogo");
+    private static final MetricaOperacion METRICA_POR_MARCA_CATALOGO = RegistroMetricas.operacion("service.inventario.porMarcaCatalogo");
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ProductoDAO productoDAO;
+    private final CatalogoService catalogoService;
+
+    // =========================================
+    // CONSTRUCTOR
+    // =========================================
+
+    /**
+     * Crea el servicio.
+     * @param productoDAO DAO de productos para las agregaciones en la base
+     * @param catalogoService Servicio de la instantánea para las agregaciones en memoria
+     * @throws IllegalArgumentException Si algún parámetro es null
+     */
+    public InventarioService(ProductoDAO productoDAO, CatalogoService catalogoService) {
+        if (productoDAO == null) {
+            throw new IllegalArgumentException("ProductoDAO no puede ser null");
+        }
+        if (catalogoService == null) {
+            throw new IllegalArgumentException("CatalogoService no puede ser null");
+        }
+        this.productoDAO = productoDAO;
+        this.catalogoService = catalogoService;
+    }
+
+    // =========================================
+    // AGREGACIÓN EN LA BASE DE DATOS
+    // =========================================
+
+    /**
+     * @return Totales por categoría, con "sin categoría" (null) primero
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Map<CategoriaProducto, TotalesInventario> getTotalesPorCategoria() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return productoDAO.getTotalesPorCategoria();
+        } catch (Exception | Error e) {
+            METRICA_POR_CATEGORIA.contarError();
+            throw e;
+        } finally {
+            METRICA_POR_CATEGORIA.registrar(inicio);
+        }
+    }
+
+    /**
+     * @return Totales por marca, con "sin marca" (null) primero
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Map<String, TotalesInventario> getTotalesPorMarca() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return productoDAO.getTotalesPorMarca();
+        } catch (Exception | Error e) {
+            METRICA_POR_MARCA.contarError();
+            throw e;
+        } finally {
+            METRICA_POR_MARCA.registrar(inicio);
+        }
+    }
+
+    // =========================================
+    // AGREGACIÓN SOBRE LA INSTANTÁNEA
+    // =========================================
+
+    /**
+     * @return Totales por categoría de la instantánea vigente, con "sin categoría" (null) primero
+     * @throws Exception Si ocurre error al construir la primera instantánea
+     */
+    public Map<CategoriaProducto, TotalesInventario> getTotalesPorCategoriaCatalogo() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return AgregadorInventario.porCategoria(catalogoService.getSnapshot());
+        } catch (Exception | Error e) {
+            METRICA_POR_CATEGORIA_CATALOGO.contarError();
+            throw e;
+        } finally {
+            METRICA_POR_CATEGORIA_CATALOGO.registrar(inicio);
+        }
+    }
+
+    /**
+     * Las marcas se distinguen exactamente, incluidas mayúsculas y acentos.
+     * @return Totales por marca de la instantánea vigente, con "sin marca" (null) primero
+     * @throws Exception Si ocurre error al construir la primera instantánea
+     */
+    public Map<String, TotalesInventario> getTotalesPorMarcaCatalogo() throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            return AgregadorInventario.porMarca(catalogoService.getSnapshot());
+        } catch (Exception | Error e) {
+            METRICA_POR_MARCA_CATALOGO.contarError();
+            throw e;
+        } finally {
+            METRICA_POR_MARCA_CATALOGO.registrar(inicio);
+        }
+    }
+}
@@ -7,26 +7,143 @@ package service;
 @author Gaston Alberto Cejas
  */
 
+import DAO.AjusteStock;
+import DAO.ConflictoVersionException;
 import DAO.ProductoDAO;
+import DAO.ProductoResumen;
+import cache.CacheLRU;
+import cache.CacheStats;
+import DAO.Orden;
+import DAO.Pagina;
 import config.DatabaseConnection;
+import config.GestorTransacciones;
+import metricas.MetricaOperacion;
+import metricas.RegistroMetricas;
+import model.CategoriaProducto;
 import model.Producto;
 import model.CodigoBarras;
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Servicio para gestionar operaciones de productos.
  * Implementa lógica de negocio, validaciones y transacciones para CRUD.
  */
-public class ProductoService implements GenericService<Producto> {
+public class ProductoService implements GenericService<Producto>, AutoCloseable {
 
     // =========================================
     // ATRIBUTOS
     // =========================================
 
     /** DAO para operaciones de persistencia de productos */
-    private final ProductoDAO productoDAO = new ProductoDAO();
+    private final ProductoDAO productoDAO;
+
+    /** Capacidad por defecto de la caché de productos por ID */
+    public static final int CAPACIDAD_CACHE = 5_000;
+
+    /** Vida por defecto de un producto cacheado (0 = sin expiración, se confía en la invalidación) */
+    public static final long TTL_CACHE_MS = 0;
+
+    /** Servicio de códigos de barras, notificado cuando este servicio crea códigos */
+    private final CodigoBarrasService codigoBarrasService;
+
+    /** Caché de productos con su código de barras, por ID; entrega copias */
+    private final CacheLRU<Long, Producto> cachePorId;
+
+    /** Cancela el registro de la caché como observadora de cambios de códigos de barras */
+    private final Runnable cancelarObservadorCodigos;
+
+    /** Métricas de las operaciones CRUD del servicio */
+    private static final MetricaOperacion METRICA_INSERTAR = RegistroMetricas.operacion("service.producto.insertar");
+    private static final MetricaOperacion METRICA_ACTUALIZAR = RegistroMetricas.operacion("service.producto.actualizar");
+    private static final MetricaOperacion METRICA_ELIMINAR = RegistroMetricas.operacion("service.producto.eliminar");
+    private static final MetricaOperacion METRICA_GET_BY_ID = RegistroMetricas.operacion("service.producto.getById");
+    private static final MetricaOperacion METRICA_GET_ALL = RegistroMetricas.operacion("service.producto.getAll");
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el servicio con su propio servicio de códigos de barras.
+     */
+    public ProductoService() {
+        this(new CodigoBarrasService());
+    }
+
+    /**
+     * Crea el servicio compartiendo el servicio de códigos de barras de la aplicación,
+     * para que los códigos creados junto a productos invaliden su caché.
+     * @param codigoBarrasService Servicio de códigos de barras compartido
+     * @throws IllegalArgumentException Si codigoBarrasService es null
+     */
+    public ProductoService(CodigoBarrasService codigoBarrasService) {
+        this(codigoBarrasService, CAPACIDAD_CACHE, TTL_CACHE_MS);
+    }
+
+    /**
+     * Crea el servicio con una caché de productos por ID configurada.
+     * @param codigoBarrasService Servicio de códigos de barras compartido
+     * @param capacidadCache Cantidad máxima de productos cacheados; 0 desactiva la caché
+     * @param ttlCacheMs Vida de un producto cacheado; 0 para no expirar
+     * @throws IllegalArgumentException Si codigoBarrasService es null
+     */
+    public ProductoService(CodigoBarrasService codigoBarrasService, int capacidadCache, long ttlCacheMs) {
+        this(new ProductoDAO(), codigoBarrasService, capacidadCache, ttlCacheMs);
+    }
+
+    /**
+     * Crea el servicio sobre un DAO dado (por ejemplo, el backend en memoria)
+     * con la configuración de caché por defecto.
+     * @param productoDAO DAO de productos a usar
+     * @param codigoBarrasService Servicio de códigos de barras compartido, del mismo backend
+     * @throws IllegalArgumentException Si algún parámetro es null
+     */
+    public ProductoService(ProductoDAO productoDAO, CodigoBarrasService codigoBarrasService) {
+        this(productoDAO, codigoBarrasService, CAPACIDAD_CACHE, TTL_CACHE_MS);
+    }
+
+    /**
+     * Crea el servicio sobre un DAO dado con una caché de productos por ID configurada.
+     * @param productoDAO DAO de productos a usar
+     * @param codigoBarrasService Servicio de códigos de barras compartido, del mismo backend
+     * @param capacidadCache Cantidad máxima de productos cacheados; 0 desactiva la caché
+     * @param ttlCacheMs Vida de un producto cacheado; 0 para no expirar
+     * @throws IllegalArgumentException Si algún parámetro es null
+     */
+    public ProductoService(ProductoDAO productoDAO, CodigoBarrasService codigoBarrasService, int capacidadCache, long ttlCacheMs) {
+        if (productoDAO == null) {
+            throw new IllegalArgumentException("ProductoDAO no puede ser null");
+        }
+        if (codigoBarrasService == null) {
+            throw new IllegalArgumentException("CodigoBarrasService no puede ser null");
+        }
+        this.productoDAO = productoDAO;
+        this.codigoBarrasService = codigoBarrasService;
+        CacheLRU<Long, Producto> cache = new CacheLRU<>(capacidadCache, ttlCacheMs, 0, Producto::new);
+        this.cachePorId = cache;
+        cache.publicarIndicadores("cache.producto");
+        // Un código recuperado vuelve a aparecer en productos que lo tenían oculto (código null).
+        // El observador referencia solo la caché, no este servicio a medio construir
+        this.cancelarObservadorCodigos = codigoBarrasService.alModificarCodigo(idCodigo -> cache.invalidarSi(p ->
+                p.getCodigoBarras() == null || p.getCodigoBarras().getId() == idCodigo));
+    }
+
+    /**
+     * Deja de observar los cambios del servicio de códigos de barras, que de otro modo mantiene
+     * viva la caché de este servicio mientras él exista. Después de cerrarlo el servicio sigue
+     * operando, pero la caché ya no se entera de los códigos modificados desde otros servicios.
+     */
+    @Override
+    public void close() {
+        cancelarObservadorCodigos.run();
+    }
 
     // =========================================
     // MÉTODOS DE LA INTERFAZ GENÉRICA
@@ -40,34 +157,18 @@ public class ProductoService implements GenericService<Producto> {
      */
     @Override
     public void insertar(Producto entidad) throws Exception {
-        validarProducto(entidad);
-        
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            productoDAO.insertar(entidad, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
+            validarProducto(entidad);
+
+            GestorTransacciones.enTransaccion(conn -> {
+                productoDAO.insertar(entidad, conn);
+            });
+        } catch (Exception | Error e) {
+            METRICA_INSERTAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_INSERTAR.registrar(inicio);
         }
     }
 
@@ -75,38 +176,29 @@ public class ProductoService implements GenericService<Producto> {
      * Actualiza producto existente con transacción atómica.
      * @param entidad Producto con datos actualizados
      * @throws IllegalArgumentException Si las validaciones fallan
+     * @throws ConflictoVersionException Si el producto cambió o fue eliminado desde que se leyó
      * @throws Exception Si ocurre error durante la transacción
      */
     @Override
     public void actualizar(Producto entidad) throws Exception {
-        validarProducto(entidad);
-        
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            productoDAO.actualizar(entidad, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
+            validarProducto(entidad);
+
+            GestorTransacciones.enTransaccion(conn -> {
+                productoDAO.actualizar(entidad, conn);
+                GestorTransacciones.despuesDeConfirmar(() -> cachePorId.invalidar(entidad.getId()));
+            });
+        } catch (ConflictoVersionException e) {
+            // La copia cacheada puede ser la que quedó vieja (escritura desde otro proceso)
+            cachePorId.invalidar(entidad.getId());
+            METRICA_ACTUALIZAR.contarError();
+            throw e;
+        } catch (Exception | Error e) {
+            METRICA_ACTUALIZAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_ACTUALIZAR.registrar(inicio);
         }
     }
 
@@ -117,44 +209,63 @@ public class ProductoService implements GenericService<Producto> {
      */
     @Override
     public void eliminar(long id) throws Exception {
-        Connection conn = null;
+        long inicio = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            productoDAO.eliminar(id, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
+            GestorTransacciones.enTransaccion(conn -> {
+                productoDAO.eliminar(id, conn);
+                GestorTransacciones.despuesDeConfirmar(() -> cachePorId.invalidar(id));
+            });
+        } catch (Exception | Error e) {
+            METRICA_ELIMINAR.contarError();
             throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
+            METRICA_ELIMINAR.registrar(inicio);
         }
     }
 
     /**
      * Obtiene producto por ID.
+     * Resuelve desde la caché los productos consultados recientemente; siempre devuelve
+     * una copia, por lo que modificarla no altera la caché. Los que faltan se leen de la
+     * primaria aunque haya réplicas: la caché no expira y no debe guardar datos atrasados.
+     * Dentro de una transacción se lee sin pasar por la caché, que solo guarda datos confirmados.
      * @param id ID del producto a buscar
      * @return Producto encontrado o null si no existe
      * @throws Exception Si ocurre error en acceso a datos
      */
     @Override
     public Producto getById(long id) throws Exception {
-        return productoDAO.getById(id);
+        long inicio = System.nanoTime();
+        try {
+            if (GestorTransacciones.hayTransaccion()) {
+                return productoDAO.getById(id);
+            }
+            return cachePorId.obtener(id, clave -> DatabaseConnection.leerDePrimaria(() -> productoDAO.getById(clave)));
+        } catch (Exception | Error e) {
+            METRICA_GET_BY_ID.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_BY_ID.registrar(inicio);
+        }
+    }
+
+    /**
+     * Obtiene varios productos por ID. Los que están en caché no se consultan;
+     * el resto se busca en la primaria en bloques sobre una sola conexión. Dentro de una
+     * transacción se leen todos sin pasar por la caché.
+     * @param ids IDs a buscar (se ignoran repetidos)
+     * @return Mapa por ID en el orden pedido; los IDs inexistentes o eliminados quedan con valor null
+     * @throws IllegalArgumentException Si la colección o algún ID es null
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Map<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null.");
+        }
+        if (GestorTransacciones.hayTransaccion()) {
+            return productoDAO.getByIds(ids);
+        }
+        return cachePorId.obtenerTodos(ids, claves -> DatabaseConnection.leerDePrimaria(() -> productoDAO.getByIds(claves)));
     }
 
     /**
@@ -164,7 +275,15 @@ public class ProductoService implements GenericService<Producto> {
      */
     @Override
     public List<Producto> getAll() throws Exception {
-        return productoDAO.getAll();
+        long inicio = System.nanoTime();
+        try {
+            return productoDAO.getAll();
+        } catch (Exception | Error e) {
+            METRICA_GET_ALL.contarError();
+            throw e;
+        } finally {
+            METRICA_GET_ALL.registrar(inicio);
+        }
     }
 
     // =========================================
@@ -180,96 +299,215 @@ public class ProductoService implements GenericService<Producto> {
     public void asignarCodigoDeBarras(Producto entidad) throws Exception {
         validarProducto(entidad);
         
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
+        GestorTransacciones.enTransaccion(conn -> {
             productoDAO.asignarCodigoDeBarras(entidad, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
+            GestorTransacciones.despuesDeConfirmar(() -> cachePorId.invalidar(entidad.getId()));
+        });
+    }
+
+    /**
+     * Suma o resta unidades al stock de un producto con un único UPDATE condicional,
+     * sin leer ni reescribir el resto de la fila. Solo ante un rechazo se lee el producto
+     * para informar la causa.
+     * @param id ID del producto
+     * @param delta Unidades a sumar (negativo para restar)
+     * @throws IllegalArgumentException Si delta es 0 o no existe un producto activo con ese ID
+     * @throws StockInsuficienteException Si el stock quedaría negativo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public void ajustarStock(long id, int delta) throws Exception {
+        validarDelta(delta);
+        if (!productoDAO.ajustarStock(id, delta)) {
+            throw rechazoDeAjuste(id, delta);
+        }
+        GestorTransacciones.despuesDeConfirmar(() -> cachePorId.invalidar(id));
+    }
+
+    /**
+     * Aplica varios ajustes de stock en una sola transacción, con un lote de UPDATE condicionales.
+     * Es todo o nada: si algún ajuste deja un stock en negativo, no se aplica ninguno.
+     * Un mismo producto puede aparecer varias veces; los ajustes se evalúan en orden.
+     * @param ajustes Ajustes a aplicar
+     * @throws IllegalArgumentException Si la lista o algún ajuste es null, algún delta es 0
+     *         o algún producto no existe o está eliminado
+     * @throws StockInsuficienteException Si algún stock quedaría negativo (se informa el primero)
+     * @throws Exception Si ocurre error durante la transacción
+     */
+    public void ajustarStock(List<AjusteStock> ajustes) throws Exception {
+        if (ajustes == null) {
+            throw new IllegalArgumentException("La lista de ajustes no puede ser null.");
+        }
+        for (AjusteStock ajuste : ajustes) {
+            if (ajuste == null) {
+                throw new IllegalArgumentException("La lista de ajustes no puede contener elementos null.");
             }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+            validarDelta(ajuste.getDelta());
+        }
+        if (ajustes.isEmpty()) {
+            return;
+        }
+
+        AjusteStock rechazado = GestorTransacciones.enTransaccionConResultado(conn -> {
+            boolean[] aplicados = productoDAO.ajustarStockLote(ajustes, conn);
+            for (int i = 0; i < aplicados.length; i++) {
+                if (!aplicados[i]) {
+                    GestorTransacciones.marcarParaRollback();
+                    return ajustes.get(i);
                 }
             }
+            GestorTransacciones.despuesDeConfirmar(() -> {
+                for (AjusteStock ajuste : ajustes) {
+                    cachePorId.invalidar(ajuste.getIdProducto());
+                }
+            });
+            return null;
+        });
+
+        if (rechazado != null) {
+            throw rechazoDeAjuste(rechazado.getIdProducto(), rechazado.getDelta());
         }
     }
 
+    /**
+     * Aplica varios ajustes de stock en una transacción, confirmando los que se pudieron aplicar.
+     * A diferencia de {@link #ajustarStock(List)}, un ajuste rechazado no impide los demás.
+     * Acepta deltas en 0 (solo verifican que el producto esté activo).
+     * Lo usa {@link CoalescedorStock} para escribir cada ventana de ajustes combinados.
+     * @param ajustes Ajustes a aplicar
+     * @return Para cada ajuste, en el mismo orden, si se aplicó
+     * @throws Exception Si ocurre error durante la transacción; en ese caso no se aplica ninguno
+     */
+    boolean[] aplicarAjustesStock(List<AjusteStock> ajustes) throws Exception {
+        return GestorTransacciones.enTransaccionConResultado(conn -> {
+            boolean[] aplicados = productoDAO.ajustarStockLote(ajustes, conn);
+            GestorTransacciones.despuesDeConfirmar(() -> {
+                for (int i = 0; i < aplicados.length; i++) {
+                    if (aplicados[i]) {
+                        cachePorId.invalidar(ajustes.get(i).getIdProducto());
+                    }
+                }
+            });
+            return aplicados;
+        });
+    }
+
     /**
      * Inserta producto junto con código de barras en transacción atómica.
      * @param producto Producto a insertar
      * @param codigo Código de barras a insertar y asociar
-     * @throws IllegalArgumentException Si validaciones fallan o código ya existe
+     * @throws IllegalArgumentException Si validaciones fallan o el valor ya existe, aunque sea
+     *         de un código eliminado
      * @throws Exception Si ocurre error durante la transacción
      */
     public void insertarConCodigoBarras(Producto producto, CodigoBarras codigo) throws Exception {
         validarProducto(producto);
+        validarCodigoParaAsociar(codigo);
         
-        if (codigo == null) {
-            throw new IllegalArgumentException("El código de barras no puede ser null.");
-        }
-        if (codigo.getTipo() == null) {
-            throw new IllegalArgumentException("El tipo de código de barras no puede ser null.");
-        }
-        if (codigo.getValor() == null || codigo.getValor().trim().isEmpty()) {
-            throw new IllegalArgumentException("El valor del código de barras no puede estar vacío.");
-        }
-        if (codigo.getFechaAsignacion() == null) {
-            throw new IllegalArgumentException("La fecha de asignación no puede ser null.");
-        }
-        
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            
-            DAO.CodigoBarrasDAO codigoBarrasDAO = new DAO.CodigoBarrasDAO();
+        GestorTransacciones.enTransaccion(conn -> {
+            DAO.CodigoBarrasDAO codigoBarrasDAO = codigoBarrasService.getCodigoBarrasDAO();
             
             CodigoBarras existente = codigoBarrasDAO.getByValor(codigo.getValor(), conn);
             if (existente != null && !existente.isEliminado()) {
                 throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + codigo.getValor());
             }
             
-            codigoBarrasDAO.insertar(codigo, conn);
+            try {
+                codigoBarrasDAO.insertar(codigo, conn);
+            } catch (SQLException e) {
+                // getByValor no ve los códigos eliminados, pero el valor sigue siendo único
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    throw new IllegalArgumentException("Ya existe un código de barras, activo o eliminado, con el valor: "
+                            + codigo.getValor(), e);
+                }
+                throw e;
+            }
             
             producto.setCodigoBarras(codigo);
             
             productoDAO.insertar(producto, conn);
-            
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
+            GestorTransacciones.despuesDeConfirmar(() -> codigoBarrasService.invalidarCache(codigo.getValor()));
+        });
+    }
+
+    // =========================================
+    // MÉTODOS DE INSERCIÓN POR LOTES
+    // =========================================
+
+    /**
+     * Inserta varios productos en una única transacción usando JDBC batch.
+     * Cada producto recibe su ID generado.
+     * @param entidades Productos a insertar
+     * @throws IllegalArgumentException Si algún producto no pasa las validaciones
+     * @throws Exception Si ocurre error durante la transacción
+     */
+    public void insertarLote(List<Producto> entidades) throws Exception {
+        if (entidades == null || entidades.isEmpty()) {
+            return;
+        }
+        for (Producto entidad : entidades) {
+            validarProducto(entidad);
+        }
+        
+        GestorTransacciones.enTransaccion(conn -> {
+            productoDAO.insertarLote(entidades, ProductoDAO.TAMANIO_LOTE, conn);
+        });
+    }
+
+    /**
+     * Inserta N códigos de barras y N productos asociados en una única transacción.
+     * Usa dos sentencias por lotes: primero los códigos y luego los productos,
+     * asociando a cada producto el código de la misma posición.
+     * Una posición con código null inserta el producto sin código de barras.
+     * @param productos Productos a insertar
+     * @param codigos Códigos de barras a insertar, uno por producto y en el mismo orden (admite null)
+     * @throws IllegalArgumentException Si las listas difieren en tamaño, hay valores repetidos,
+     *         algún valor ya existe o alguna validación falla
+     * @throws Exception Si ocurre error durante la transacción
+     */
+    public void insertarConCodigoBarrasLote(List<Producto> productos, List<CodigoBarras> codigos) throws Exception {
+        if (productos == null || codigos == null || productos.size() != codigos.size()) {
+            throw new IllegalArgumentException("Debe haber exactamente un código de barras por producto.");
+        }
+        if (productos.isEmpty()) {
+            return;
+        }
+        Set<String> valores = new HashSet<>();
+        List<CodigoBarras> codigosNoNulos = new ArrayList<>(codigos.size());
+        for (int i = 0; i < productos.size(); i++) {
+            validarProducto(productos.get(i));
+            CodigoBarras codigo = codigos.get(i);
+            if (codigo == null) {
+                continue;
             }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
+            validarCodigoParaAsociar(codigo);
+            if (!valores.add(codigo.getValor())) {
+                throw new IllegalArgumentException("El valor de código de barras está repetido en el lote: " + codigo.getValor());
             }
+            codigosNoNulos.add(codigo);
         }
+        
+        GestorTransacciones.enTransaccion(conn -> {
+            DAO.CodigoBarrasDAO codigoBarrasDAO = codigoBarrasService.getCodigoBarrasDAO();
+            try {
+                codigoBarrasDAO.insertarLote(codigosNoNulos, DAO.CodigoBarrasDAO.TAMANIO_LOTE, conn);
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    throw new IllegalArgumentException("Uno o más valores de código de barras del lote ya existen.", e);
+                }
+                throw e;
+            }
+            
+            for (int i = 0; i < productos.size(); i++) {
+                productos.get(i).setCodigoBarras(codigos.get(i));
+            }
+            
+            productoDAO.insertarLote(productos, ProductoDAO.TAMANIO_LOTE, conn);
+            GestorTransacciones.despuesDeConfirmar(() -> {
+                for (CodigoBarras codigo : codigosNoNulos) {
+                    codigoBarrasService.invalidarCache(codigo.getValor());
+                }
+            });
+        });
     }
 
     // =========================================
@@ -278,10 +516,11 @@ public class ProductoService implements GenericService<Producto> {
 
     /**
      * Valida reglas de negocio para producto.
+     * Pública para que otros procesos (por ejemplo, importaciones) apliquen las mismas reglas.
      * @param producto Producto a validar
      * @throws IllegalArgumentException Si alguna validación falla
      */
-    private void validarProducto(Producto producto) throws IllegalArgumentException {
+    public void validarProducto(Producto producto) throws IllegalArgumentException {
         if (producto.getNombre() == null || producto.getNombre().trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre del producto no puede estar vacío.");
         }
@@ -312,6 +551,65 @@ public class ProductoService implements GenericService<Producto> {
         }
     }
 
+    /**
+     * Valida que un código de barras pueda crearse y asociarse a un producto.
+     * @param codigo Código de barras a validar
+     * @throws IllegalArgumentException Si alguna validación falla
+     */
+    private void validarCodigoParaAsociar(CodigoBarras codigo) throws IllegalArgumentException {
+        if (codigo == null) {
+            throw new IllegalArgumentException("El código de barras no puede ser null.");
+        }
+        if (codigo.getTipo() == null) {
+            throw new IllegalArgumentException("El tipo de código de barras no puede ser null.");
+        }
+        if (codigo.getValor() == null || codigo.getValor().trim().isEmpty()) {
+            throw new IllegalArgumentException("El valor del código de barras no puede estar vacío.");
+        }
+        ValidadorCodigoBarras.verificar(codigo.getTipo(), codigo.getValor());
+        if (codigo.getFechaAsignacion() == null) {
+            throw new IllegalArgumentException("La fecha de asignación no puede ser null.");
+        }
+    }
+
+    /**
+     * Valida el texto de una búsqueda por nombre.
+     * @param texto Texto ingresado
+     * @throws IllegalArgumentException Si es null o queda vacío al normalizarlo
+     */
+    private void validarTextoBusqueda(String texto) throws IllegalArgumentException {
+        if (Producto.normalizarNombre(texto).isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío.");
+        }
+    }
+
+    /**
+     * Valida la cantidad de un ajuste de stock.
+     * @param delta Unidades a sumar o restar
+     * @throws IllegalArgumentException Si es 0
+     */
+    private void validarDelta(int delta) throws IllegalArgumentException {
+        if (delta == 0) {
+            throw new IllegalArgumentException("El ajuste de stock no puede ser 0.");
+        }
+    }
+
+    /**
+     * Arma la excepción de un ajuste de stock rechazado, leyendo el producto para
+     * distinguir un producto inexistente de un stock insuficiente.
+     * @param id ID del producto
+     * @param delta Ajuste rechazado
+     * @return Excepción a lanzar
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    private Exception rechazoDeAjuste(long id, int delta) throws Exception {
+        ProductoResumen producto = productoDAO.getResumenById(id);
+        if (producto == null) {
+            return new IllegalArgumentException("No existe un producto activo con ID: " + id);
+        }
+        return new StockInsuficienteException(id, delta, producto.getStock());
+    }
+
     // =========================================
     // MÉTODOS DE RECUPERACIÓN (SOFT DELETE)
     // =========================================
@@ -323,44 +621,59 @@ public class ProductoService implements GenericService<Producto> {
      * @throws Exception Si ocurre error durante la transacción
      */
     public void recuperar(long id) throws Exception {
-        Producto productoActivo = productoDAO.getById(id);
-        if (productoActivo != null) {
-            throw new IllegalArgumentException("El producto con ID " + id + " no está borrado.");
-        }
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
+        GestorTransacciones.enTransaccion(conn -> {
+            if (productoDAO.existsActivo(id)) {
+                throw new IllegalArgumentException("El producto con ID " + id + " no está borrado.");
+            }
 
             productoDAO.recuperar(id, conn);
-
-            conn.commit();
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
-                }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
-                }
-            }
-        }
+            GestorTransacciones.despuesDeConfirmar(() -> cachePorId.invalidar(id));
+        });
     }
 
     // =========================================
     // MÉTODOS DE CONSULTA ESPECÍFICOS
     // =========================================
 
+    /**
+     * Obtiene los productos activos de una categoría mediante una consulta indexada.
+     * @param categoria Categoría a buscar
+     * @return Lista de productos de la categoría
+     * @throws IllegalArgumentException Si la categoría es null
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public List<Producto> getByCategoria(CategoriaProducto categoria) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null.");
+        }
+        return productoDAO.getByCategoria(categoria);
+    }
+
+    /**
+     * Obtiene una página de productos activos de una categoría.
+     * @param categoria Categoría a buscar
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO} para la primera
+     * @param limite Cantidad máxima de elementos por página
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de productos de la categoría con el cursor de la siguiente
+     * @throws IllegalArgumentException Si la categoría es null o el límite no es positivo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Pagina<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite, Orden orden) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null.");
+        }
+        return productoDAO.getByCategoria(categoria, despuesDeId, limite, orden);
+    }
+
+    /**
+     * Obtiene estadísticas de la caché de productos por ID.
+     * @return Aciertos, fallos, desalojos y tamaño actual
+     */
+    public CacheStats getEstadisticasCache() {
+        return cachePorId.estadisticas();
+    }
+
     /**
      * Busca producto por nombre exacto.
      * @param nombre Nombre exacto a buscar
@@ -370,4 +683,124 @@ public class ProductoService implements GenericService<Producto> {
     public Producto getByNombre(String nombre) throws Exception {
         return productoDAO.getByNombre(nombre);
     }
-}
\ No newline at end of file
+
+    /**
+     * Busca productos cuyo nombre comienza con el texto, sin distinguir acentos ni mayúsculas.
+     * @param prefijo Comienzo del nombre
+     * @param limite Cantidad máxima de resultados
+     * @return Productos encontrados ordenados por nombre
+     * @throws IllegalArgumentException Si el prefijo está vacío o el límite fuera de rango
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public List<Producto> buscarPorPrefijo(String prefijo, int limite) throws Exception {
+        validarTextoBusqueda(prefijo);
+        return productoDAO.buscarPorPrefijo(prefijo, limite);
+    }
+
+    /**
+     * Busca productos cuyo nombre contiene el texto, sin distinguir acentos ni mayúsculas.
+     * Las coincidencias por prefijo se devuelven primero.
+     * @param texto Texto a buscar dentro del nombre
+     * @param limite Cantidad máxima de resultados
+     * @return Productos encontrados
+     * @throws IllegalArgumentException Si el texto está vacío o el límite fuera de rango
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public List<Producto> buscarPorNombre(String texto, int limite) throws Exception {
+        validarTextoBusqueda(texto);
+        return productoDAO.buscarPorNombre(texto, limite);
+    }
+
+    /**
+     * Obtiene una página de productos activos ordenados por ID.
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO} para la primera
+     * @param limite Cantidad máxima de elementos por página
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de productos con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Pagina<Producto> getPagina(long despuesDeId, int limite, Orden orden) throws Exception {
+        return productoDAO.getPagina(despuesDeId, limite, orden);
+    }
+
+    /**
+     * Recorre todos los productos activos fila por fila sin cargarlos en memoria.
+     * Pensado para exportaciones y procesos nocturnos sobre catálogos grandes.
+     * @param consumidor Acción a ejecutar por cada elemento
+     * @param fetchSize Filas traídas por bloque desde la base de datos
+     * @return Cantidad de elementos procesados
+     * @throws Exception Si ocurre error en acceso a datos o el consumidor falla
+     */
+    public long forEachActivo(Consumer<Producto> consumidor, int fetchSize) throws Exception {
+        if (consumidor == null) {
+            throw new IllegalArgumentException("El consumidor no puede ser null.");
+        }
+        return productoDAO.forEachActivo(consumidor, fetchSize);
+    }
+
+    // =========================================
+    // PROYECCIONES
+    // =========================================
+
+    /**
+     * Verifica si existe un producto activo sin leer sus datos.
+     * @param id ID del producto
+     * @return true si existe y no está eliminado
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public boolean existsActivo(long id) throws Exception {
+        return productoDAO.existsActivo(id);
+    }
+
+    /**
+     * Cuenta los productos activos, en total o de una categoría.
+     * @param categoria Categoría a contar, o null para todas
+     * @return Cantidad de productos activos
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public long countActivos(CategoriaProducto categoria) throws Exception {
+        return productoDAO.countActivos(categoria);
+    }
+
+    /**
+     * Obtiene ID, nombre y stock de un producto activo, leídos de la base de datos.
+     * @param id ID del producto
+     * @return Resumen del producto, o null si no existe o está eliminado
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public ProductoResumen getResumen(long id) throws Exception {
+        return productoDAO.getResumenById(id);
+    }
+
+    /**
+     * Obtiene una página de resúmenes de productos activos ordenados por ID.
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO} para la primera
+     * @param limite Cantidad máxima de elementos por página
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de resúmenes con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Pagina<ProductoResumen> getPaginaResumen(long despuesDeId, int limite, Orden orden) throws Exception {
+        return productoDAO.getPaginaResumen(despuesDeId, limite, orden);
+    }
+
+    /**
+     * Obtiene una página de resúmenes de productos activos de una categoría.
+     * @param categoria Categoría a buscar
+     * @param despuesDeId Cursor de la página anterior, o {@link Pagina#INICIO} para la primera
+     * @param limite Cantidad máxima de elementos por página
+     * @param orden Sentido de ordenamiento por ID
+     * @return Página de resúmenes de la categoría con el cursor de la siguiente
+     * @throws IllegalArgumentException Si la categoría es null o el límite no es positivo
+     * @throws Exception Si ocurre error en acceso a datos
+     */
+    public Pagina<ProductoResumen> getResumenPorCategoria(CategoriaProducto categoria, long despuesDeId, int limite,
+                                                          Orden orden) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null.");
+        }
+        return productoDAO.getResumenPorCategoria(categoria, despuesDeId, limite, orden);
+    }
+}
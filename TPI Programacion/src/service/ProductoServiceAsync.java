@@ -0,0 +1,114 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.Producto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de las consultas y ajustes de {@link ProductoService}.
+ *
+ * Cada método envía la operación síncrona equivalente al {@link EjecutorAsync} y devuelve
+ * un futuro; las validaciones y errores del servicio llegan como falla del futuro.
+ * Cada tarea abre sus propias transacciones: no participa de una transacción en curso
+ * en el hilo que la envía.
+ *
+ * Con réplicas de lectura, la ventana de lectura propia de {@link config.DatabaseConnection}
+ * es por hilo y cada tarea corre en un hilo nuevo: una consulta enviada después de un ajuste
+ * puede leer de una réplica que todavía no lo tiene. Las lecturas que pasan por la caché del
+ * servicio ({@code getById}, {@code getByIds}) cargan de la primaria y ven lo confirmado;
+ * para el resto, esperar el futuro del ajuste no garantiza verlo en la consulta siguiente.
+ */
+public class ProductoServiceAsync {
+
+    // =========================================
+    // ATRIBUTOS
+    // =========================================
+
+    private final ProductoService productoService;
+    private final EjecutorAsync ejecutor;
+
+    // =========================================
+    // CONSTRUCTORES
+    // =========================================
+
+    /**
+     * Crea el servicio asíncrono.
+     * @param productoService Servicio que ejecuta las operaciones
+     * @param ejecutor Ejecutor compartido de las tareas
+     * @throws IllegalArgumentException Si algún parámetro es null
+     */
+    public ProductoServiceAsync(ProductoService productoService, EjecutorAsync ejecutor) {
+        if (productoService == null || ejecutor == null) {
+            throw new IllegalArgumentException("ProductoService y EjecutorAsync no pueden ser null");
+        }
+        this.productoService = productoService;
+        this.ejecutor = ejecutor;
+    }
+
+    // =========================================
+    // MÉTODOS DE CONSULTA
+    // =========================================
+
+    /**
+     * @see ProductoService#getById(long)
+     */
+    public CompletableFuture<Producto> getById(long id) {
+        return ejecutor.enviar(() -> productoService.getById(id));
+    }
+
+    /**
+     * La colección se copia al enviar, por lo que puede modificarse después.
+     * @see ProductoService#getByIds(Collection)
+     */
+    public CompletableFuture<Map<Long, Producto>> getByIds(Collection<Long> ids) {
+        List<Long> copia = (ids == null) ? null : new ArrayList<>(ids);
+        return ejecutor.enviar(() -> productoService.getByIds(copia));
+    }
+
+    /**
+     * @see ProductoService#getByNombre(String)
+     */
+    public CompletableFuture<Producto> getByNombre(String nombre) {
+        return ejecutor.enviar(() -> productoService.getByNombre(nombre));
+    }
+
+    /**
+     * @see ProductoService#buscarPorNombre(String, int)
+     */
+    public CompletableFuture<List<Producto>> buscarPorNombre(String texto, int limite) {
+        return ejecutor.enviar(() -> productoService.buscarPorNombre(texto, limite));
+    }
+
+    /**
+     * @see ProductoService#getAll()
+     */
+    public CompletableFuture<List<Producto>> getAll() {
+        return ejecutor.enviar(productoService::getAll);
+    }
+
+    // =========================================
+    // MÉTODOS DE OPERACIONES ESPECÍFICAS
+    // =========================================
+
+    /**
+     * Cancelar el futuro no revierte un ajuste que ya se confirmó.
+     * @see ProductoService#ajustarStock(long, int)
+     */
+    public CompletableFuture<Void> ajustarStock(long id, int delta) {
+        return ejecutor.enviar(() -> {
+            productoService.ajustarStock(id, delta);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+/**
+ * Indica que un ajuste de stock no se aplicó porque dejaba el stock del producto en negativo.
+ */
+public class StockInsuficienteException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long idProducto;
+    private final int delta;
+    private final int stockActual;
+
+    /**
+     * Crea la excepción con los datos del ajuste rechazado.
+     * @param idProducto ID del producto
+     * @param delta Ajuste pedido
+     * @param stockActual Stock leído al rechazar el ajuste
+     */
+    public StockInsuficienteException(long idProducto, int delta, int stockActual) {
+        super("Stock insuficiente para el producto " + idProducto + ": se pidió " + delta
+                + " y el stock actual es " + stockActual + ".");
+        this.idProducto = idProducto;
+        this.delta = delta;
+        this.stockActual = stockActual;
+    }
+
+    /**
+     * @return ID del producto
+     */
+    public long getIdProducto() {
+        return idProducto;
+    }
+
+    /**
+     * @return Ajuste pedido
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return Stock leído al rechazar el ajuste (puede haber cambiado después)
+     */
+    public int getStockActual() {
+        return stockActual;
+    }
+}
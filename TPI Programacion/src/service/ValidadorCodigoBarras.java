@@ -0,0 +1,200 @@
+package service;
+
+/**
+@author Hernan Cóceres
+@author Claudio Rodriguez
+@author Hernan E.Bula
+@author Gaston Alberto Cejas
+ */
+
+import model.CodigoBarras;
+import model.EnumTipo;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Validación de códigos EAN13, EAN8 y UPC: cantidad de dígitos del tipo y dígito verificador GS1.
+ *
+ * El dígito verificador hace que la suma ponderada de todos los dígitos, contando desde la
+ * derecha con pesos 1, 3, 1, 3..., sea múltiplo de 10. Las validaciones recorren el texto o los
+ * bytes ASCII una sola vez sin crear objetos; solo {@link #verificar(EnumTipo, CharSequence)}
+ * arma un mensaje, y únicamente cuando el código es inválido.
+ */
+public final class ValidadorCodigoBarras {
+
+    // =========================================
+    // CONSTANTES
+    // =========================================
+
+    /** Códigos desde los que un lote se valida en paralelo */
+    private static final int UMBRAL_PARALELO = 10_000;
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     * Clase de utilidad con métodos estáticos.
+     */
+    private ValidadorCodigoBarras() {
+        throw new UnsupportedOperationException("Clase de utilidad. No se puede instanciar.");
+    }
+
+    // =========================================
+    // VALIDACIÓN INDIVIDUAL
+    // =========================================
+
+    /**
+     * @param tipo Tipo de código
+     * @param valor Texto del código
+     * @return true si tiene los dígitos del tipo y el verificador es correcto
+     */
+    public static boolean esValido(EnumTipo tipo, CharSequence valor) {
+        if (tipo == null || valor == null || valor.length() != tipo.getDigitos()) {
+            return false;
+        }
+        int suma = 0;
+        for (int i = valor.length() - 1, peso = 1; i >= 0; i--, peso ^= 2) {
+            int digito = valor.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return false;
+            }
+            suma += digito * peso;
+        }
+        return suma % 10 == 0;
+    }
+
+    /**
+     * @param tipo Tipo de código
+     * @param ascii Código en bytes ASCII, por ejemplo leído de un archivo
+     * @return true si tiene los dígitos del tipo y el verificador es correcto
+     */
+    public static boolean esValido(EnumTipo tipo, byte[] ascii) {
+        return ascii != null && esValido(tipo, ascii, 0, ascii.length);
+    }
+
+    /**
+     * @param tipo Tipo de código
+     * @param ascii Bytes ASCII que contienen el código
+     * @param desde Posición del primer dígito
+     * @param longitud Cantidad de bytes del código
+     * @return true si tiene los dígitos del tipo y el verificador es correcto
+     * @throws IndexOutOfBoundsException Si el rango excede el arreglo
+     */
+    public static boolean esValido(EnumTipo tipo, byte[] ascii, int desde, int longitud) {
+        if (tipo == null || ascii == null || longitud != tipo.getDigitos()) {
+            return false;
+        }
+        if (desde < 0 || desde + longitud > ascii.length) {
+            throw new IndexOutOfBoundsException("Rango fuera del arreglo: " + desde + " + " + longitud);
+        }
+        int suma = 0;
+        for (int i = desde + longitud - 1, peso = 1; i >= desde; i--, peso ^= 2) {
+            int digito = ascii[i] - '0';
+            if (digito < 0 || digito > 9) {
+                return false;
+            }
+            suma += digito * peso;
+        }
+        return suma % 10 == 0;
+    }
+
+    /**
+     * Valida un código informando el motivo si es inválido.
+     * @param tipo Tipo de código
+     * @param valor Texto del código
+     * @throws IllegalArgumentException Si el tipo o el valor son null, la cantidad de dígitos
+     *         no corresponde al tipo o el dígito verificador es incorrecto
+     */
+    public static void verificar(EnumTipo tipo, CharSequence valor) throws IllegalArgumentException {
+        if (esValido(tipo, valor)) {
+            return;
+        }
+        if (tipo == null || valor == null) {
+            throw new IllegalArgumentException("El tipo y el valor del código de barras no pueden ser null.");
+        }
+        int digitos = tipo.getDigitos();
+        if (valor.length() != digitos || !sonDigitos(valor, 0, digitos)) {
+            throw new IllegalArgumentException("El código " + tipo + " debe tener exactamente " + digitos
+                    + " dígitos: " + valor);
+        }
+        throw new IllegalArgumentException("Dígito verificador inválido para " + tipo + ": " + valor
+                + " (se esperaba " + digitoVerificador(valor.subSequence(0, digitos - 1)) + ")");
+    }
+
+    /**
+     * Calcula el dígito verificador GS1 de un código sin su último dígito.
+     * @param cuerpo Dígitos del código sin el verificador
+     * @return Dígito verificador, entre 0 y 9
+     * @throws IllegalArgumentException Si el cuerpo es null, vacío o contiene algo que no es un dígito
+     */
+    public static int digitoVerificador(CharSequence cuerpo) throws IllegalArgumentException {
+        if (cuerpo == null || cuerpo.length() == 0 || !sonDigitos(cuerpo, 0, cuerpo.length())) {
+            throw new IllegalArgumentException("El cuerpo del código debe contener solo dígitos: " + cuerpo);
+        }
+        // El primer dígito desde la derecha del cuerpo queda junto al verificador: pesa 3
+        int suma = 0;
+        for (int i = cuerpo.length() - 1, peso = 3; i >= 0; i--, peso ^= 2) {
+            suma += (cuerpo.charAt(i) - '0') * peso;
+        }
+        return (10 - suma % 10) % 10;
+    }
+
+    // =========================================
+    // VALIDACIÓN POR LOTES
+    // =========================================
+
+    /**
+     * Valida muchos códigos, en paralelo si el lote es grande. Cada posición se escribe
+     * una única vez, desde un solo hilo.
+     * @param tipos Tipo de cada código
+     * @param valores Texto de cada código, en el mismo orden
+     * @return Validez de cada código, en el mismo orden
+     * @throws IllegalArgumentException Si los arreglos son null o de distinto tamaño
+     */
+    public static boolean[] validarLote(EnumTipo[] tipos, CharSequence[] valores) throws IllegalArgumentException {
+        if (tipos == null || valores == null || tipos.length != valores.length) {
+            throw new IllegalArgumentException("Debe haber exactamente un tipo por valor.");
+        }
+        boolean[] validos = new boolean[valores.length];
+        indices(valores.length).forEach(i -> validos[i] = esValido(tipos[i], valores[i]));
+        return validos;
+    }
+
+    /**
+     * Valida el tipo y el valor de muchos códigos, en paralelo si el lote es grande.
+     * @param codigos Códigos a validar; un código null es inválido
+     * @return Validez de cada código, en el mismo orden
+     * @throws IllegalArgumentException Si la lista es null
+     */
+    public static boolean[] validarLote(List<CodigoBarras> codigos) throws IllegalArgumentException {
+        if (codigos == null) {
+            throw new IllegalArgumentException("La lista de códigos no puede ser null.");
+        }
+        // Copia a arreglo: el acceso por posición de algunas listas no es de tiempo constante
+        CodigoBarras[] arreglo = codigos.toArray(new CodigoBarras[0]);
+        boolean[] validos = new boolean[arreglo.length];
+        indices(arreglo.length).forEach(i -> {
+            CodigoBarras codigo = arreglo[i];
+            validos[i] = codigo != null && esValido(codigo.getTipo(), codigo.getValor());
+        });
+        return validos;
+    }
+
+    // =========================================
+    // MÉTODOS PRIVADOS
+    // =========================================
+
+    private static IntStream indices(int cantidad) {
+        IntStream indices = IntStream.range(0, cantidad);
+        return (cantidad >= UMBRAL_PARALELO) ? indices.parallel() : indices;
+    }
+
+    private static boolean sonDigitos(CharSequence texto, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}